@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+package org.apache.fop.benchmarks;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FormattingResults;
+
+/**
+ * Base class for the benchmarks that process one of the {@link SyntheticDocuments}. Holds the
+ * shared {@link FopFactory} and the generated document, so that only the processing itself is
+ * measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public abstract class AbstractDocumentBenchmark {
+
+    /** The kind of synthetic document to process. */
+    @Param({SyntheticDocuments.TABLE, SyntheticDocuments.TEXT, SyntheticDocuments.PAGE_SEQUENCES})
+    public String kind;
+
+    /** The size factor of the synthetic document. */
+    @Param({"200"})
+    public int size;
+
+    /** The factory shared by all invocations. */
+    protected FopFactory fopFactory;
+
+    /** The generated XSL-FO document. */
+    protected byte[] document;
+
+    private TransformerFactory transformerFactory;
+
+    /**
+     * Generates the document and sets up the factory.
+     * @throws Exception if the set up fails
+     */
+    @Setup
+    public void setUpDocument() throws Exception {
+        fopFactory = FopFactory.newInstance(new File(".").toURI());
+        transformerFactory = TransformerFactory.newInstance();
+        document = SyntheticDocuments.create(kind, size);
+    }
+
+    /**
+     * Runs the generated document through FOP.
+     * @param outputFormat the MIME type of the output format
+     * @param userAgent the user agent to use (may carry overrides)
+     * @param out the target stream, may be null for formats that don't need one
+     * @return the formatting results
+     * @throws Exception if processing fails
+     */
+    protected FormattingResults process(String outputFormat, FOUserAgent userAgent, OutputStream out)
+            throws Exception {
+        Fop fop = newFop(outputFormat, userAgent, out);
+        Transformer transformer = transformerFactory.newTransformer();
+        Source src = SyntheticDocuments.toSource(document);
+        transformer.transform(src, new SAXResult(fop.getDefaultHandler()));
+        return fop.getResults();
+    }
+
+    private Fop newFop(String outputFormat, FOUserAgent userAgent, OutputStream out)
+            throws FOPException {
+        return out != null
+                ? fopFactory.newFop(outputFormat, userAgent, out)
+                : fopFactory.newFop(outputFormat, userAgent);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+package org.apache.fop.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.apache.fop.fonts.CMapIndex;
+import org.apache.fop.fonts.CMapSegment;
+
+/**
+ * Compares looking up glyph indices, and code points by glyph index, in a {@link CMapIndex}
+ * with the linear scan of the character map segments that MultiByteFont used to do. The
+ * character map mimics a CJK font: a few thousand segments, most of them short.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CMapLookupBenchmark {
+
+    /** The number of segments in the character map. */
+    @Param({"100", "5000"})
+    public int segments;
+
+    private List<CMapSegment> cmap;
+
+    private CMapIndex index;
+
+    private int[] codePoints;
+
+    private int[] glyphIndices;
+
+    /** Builds the character map and the code points to look up. */
+    @Setup
+    public void setUp() {
+        Random random = new Random(segments);
+        cmap = new ArrayList<CMapSegment>(segments);
+        cmap.add(new CMapSegment(0x20, 0x7E, 1));
+        int c = 0x3000;
+        int gi = 96;
+        for (int i = 1; i < segments; i++) {
+            int length = 1 + random.nextInt(8);
+            cmap.add(new CMapSegment(c, c + length - 1, gi));
+            gi += length;
+            c += length + random.nextInt(4);
+        }
+        index = new CMapIndex(cmap);
+        codePoints = new int[1000];
+        glyphIndices = new int[codePoints.length];
+        for (int i = 0; i < codePoints.length; i++) {
+            codePoints[i] = 0x3000 + random.nextInt(c - 0x3000);
+            glyphIndices[i] = random.nextInt(gi);
+        }
+    }
+
+    /**
+     * Looks up glyph indices by scanning the segments.
+     * @param blackhole the sink for the results
+     */
+    @Benchmark
+    public void glyphIndexLinear(Blackhole blackhole) {
+        for (int c : codePoints) {
+            blackhole.consume(scanGlyphIndex(c));
+        }
+    }
+
+    /**
+     * Looks up glyph indices in the index.
+     * @param blackhole the sink for the results
+     */
+    @Benchmark
+    public void glyphIndexIndexed(Blackhole blackhole) {
+        for (int c : codePoints) {
+            blackhole.consume(index.getGlyphIndex(c));
+        }
+    }
+
+    /**
+     * Looks up code points by scanning the segments.
+     * @param blackhole the sink for the results
+     */
+    @Benchmark
+    public void codePointLinear(Blackhole blackhole) {
+        for (int gi : glyphIndices) {
+            blackhole.consume(scanCodePoint(gi));
+        }
+    }
+
+    /**
+     * Looks up code points in the index.
+     * @param blackhole the sink for the results
+     */
+    @Benchmark
+    public void codePointIndexed(Blackhole blackhole) {
+        for (int gi : glyphIndices) {
+            blackhole.consume(index.getCodePoint(gi));
+        }
+    }
+
+    private int scanGlyphIndex(int c) {
+        for (CMapSegment segment : cmap) {
+            if (segment.getUnicodeStart() <= c && segment.getUnicodeEnd() >= c) {
+                int gi = segment.getGlyphStartIndex() + c - segment.getUnicodeStart();
+                if (gi != 0) {
+                    return gi;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private int scanCodePoint(int gi) {
+        for (CMapSegment segment : cmap) {
+            int s = segment.getGlyphStartIndex();
+            int e = s + (segment.getUnicodeEnd() - segment.getUnicodeStart());
+            if (gi >= s && gi <= e) {
+                return segment.getUnicodeStart() + (gi - s);
+            }
+        }
+        return 0;
+    }
+}
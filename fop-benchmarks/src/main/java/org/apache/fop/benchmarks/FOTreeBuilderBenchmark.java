@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+package org.apache.fop.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fo.FOEventHandler;
+
+/**
+ * Measures building the FO tree only: SAX parsing in {@link org.apache.fop.fo.FOTreeBuilder},
+ * {@link org.apache.fop.fo.PropertyList} creation and property resolution through
+ * {@link org.apache.fop.fo.FOPropertyMapping}. Layout is suppressed by a no-op
+ * {@link FOEventHandler}. {@link PropertyListBenchmark} measures property conversion and
+ * resolution on their own.
+ */
+public class FOTreeBuilderBenchmark extends AbstractDocumentBenchmark {
+
+    /**
+     * Parses the document into an FO tree.
+     * @return the user agent, to keep the work from being optimized away
+     * @throws Exception if parsing fails
+     */
+    @Benchmark
+    public FOUserAgent buildFOTree() throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setFOEventHandlerOverride(new FOEventHandler(userAgent) { });
+        process(MimeConstants.MIME_PDF, userAgent, null);
+        return userAgent;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+package org.apache.fop.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FormattingResults;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Measures the complete FO to PDF pipeline as used in production: FO tree building, layout,
+ * rendering through the intermediate format and PDF serialization.
+ */
+public class FullPipelineBenchmark extends AbstractDocumentBenchmark {
+
+    /**
+     * Renders the document to PDF, discarding the output.
+     * @return the formatting results
+     * @throws Exception if processing fails
+     */
+    @Benchmark
+    public FormattingResults foToPDF() throws Exception {
+        return process(MimeConstants.MIME_PDF, fopFactory.newFOUserAgent(),
+                NullOutputStream.INSTANCE);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+package org.apache.fop.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import javax.xml.transform.stream.StreamSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.AreaTreeModel;
+import org.apache.fop.area.AreaTreeParser;
+import org.apache.fop.area.RenderPagesModel;
+import org.apache.fop.fonts.FontInfo;
+
+/**
+ * Measures rendering a laid out document through
+ * {@link org.apache.fop.render.intermediate.IFRenderer} into the PDF document handler. The
+ * area tree is produced once during set up and parsed back by {@link AreaTreeParser} for every
+ * invocation, so layout is not part of the measurement.
+ */
+public class IFRendererBenchmark extends AbstractDocumentBenchmark {
+
+    private byte[] areaTree;
+
+    /**
+     * Lays out the document once and keeps its area tree XML.
+     * @throws Exception if layout fails
+     */
+    @Setup
+    public void setUpAreaTree() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(document.length * 4);
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        process(MimeConstants.MIME_FOP_AREA_TREE, userAgent, out);
+        areaTree = out.toByteArray();
+    }
+
+    /**
+     * Renders the area tree to PDF, discarding the output.
+     * @return the area tree model
+     * @throws Exception if rendering fails
+     */
+    @Benchmark
+    public AreaTreeModel renderAreaTree() throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        AreaTreeModel treeModel = new RenderPagesModel(userAgent, MimeConstants.MIME_PDF,
+                new FontInfo(), NullOutputStream.INSTANCE);
+        new AreaTreeParser().parse(new StreamSource(new ByteArrayInputStream(areaTree)),
+                treeModel, userAgent);
+        treeModel.endDocument();
+        return treeModel;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+package org.apache.fop.benchmarks;
+
+import java.io.OutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FormattingResults;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.AreaTreeHandler;
+import org.apache.fop.area.AreaTreeModel;
+import org.apache.fop.area.PageViewport;
+import org.apache.fop.fonts.FontSetup;
+
+/**
+ * Measures FO tree building plus layout, without any rendering. This covers the line and page
+ * breaking in {@link org.apache.fop.layoutmgr.BreakingAlgorithm} and
+ * {@link org.apache.fop.layoutmgr.PageBreakingAlgorithm} as well as the Knuth element generation
+ * in {@link org.apache.fop.layoutmgr.inline.TextLayoutManager#getNextKnuthElements}.
+ */
+public class LayoutBenchmark extends AbstractDocumentBenchmark {
+
+    /**
+     * Lays out the document, discarding the resulting pages.
+     * @return the formatting results
+     * @throws Exception if layout fails
+     */
+    @Benchmark
+    public FormattingResults layout() throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setFOEventHandlerOverride(new LayoutOnlyAreaTreeHandler(userAgent));
+        return process(MimeConstants.MIME_PDF, userAgent, null);
+    }
+
+    /**
+     * AreaTreeHandler whose model keeps no pages and which sets up the base 14 fonts itself,
+     * since there is no renderer to do so.
+     */
+    private static final class LayoutOnlyAreaTreeHandler extends AreaTreeHandler {
+
+        LayoutOnlyAreaTreeHandler(FOUserAgent userAgent) throws FOPException {
+            super(userAgent, MimeConstants.MIME_PDF, null);
+        }
+
+        @Override
+        protected void setupModel(FOUserAgent userAgent, String outputFormat, OutputStream stream) {
+            FontSetup.setup(fontInfo, false);
+            this.model = new DiscardingAreaTreeModel();
+        }
+    }
+
+    private static final class DiscardingAreaTreeModel extends AreaTreeModel {
+
+        @Override
+        public void addPage(PageViewport page) {
+            super.addPage(page);
+            //Release the page content as a renderer would once the page has been rendered
+            if (page.isResolved()) {
+                page.clear();
+            }
+        }
+    }
+}
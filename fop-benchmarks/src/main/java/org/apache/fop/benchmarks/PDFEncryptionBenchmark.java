@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+package org.apache.fop.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.pdf.PDFDictionary;
+import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFEncryptionParams;
+import org.apache.fop.pdf.PDFFilterList;
+import org.apache.fop.pdf.PDFReference;
+import org.apache.fop.pdf.PDFStream;
+
+/**
+ * Measures the output of an encrypted document made of many small objects, each holding a few
+ * strings and a short stream, which is where the per-object set-up of the cipher shows. A key
+ * length of 128 bits selects the revision 3 (RC4) security handler, 256 bits revision 5 (AES).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PDFEncryptionBenchmark {
+
+    /** The number of objects in the document. */
+    @Param({"20000"})
+    public int objects;
+
+    /** The length of the encryption key, in bits. */
+    @Param({"128", "256"})
+    public int keyLength;
+
+    private PDFDocument pdfDoc;
+
+    /** Builds a fresh document for every invocation, since output consumes it. */
+    @Setup(Level.Invocation)
+    public void setUpDocument() {
+        pdfDoc = new PDFDocument("FOP benchmark");
+        PDFEncryptionParams params = new PDFEncryptionParams();
+        params.setUserPassword("user");
+        params.setOwnerPassword("owner");
+        params.setEncryptionLengthInBits(keyLength);
+        pdfDoc.setEncryption(params);
+        for (int i = 0; i < objects; i++) {
+            PDFStream stream = pdfDoc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+            stream.add("q 1 0 0 1 " + i + " 0 cm 0 0 10 10 re f Q\n");
+            pdfDoc.registerObject(stream);
+            PDFDictionary dict = new PDFDictionary();
+            dict.put("T", "Object " + i);
+            dict.put("Contents", "The contents of object " + i);
+            dict.put("Alt", "Alternate description");
+            dict.put("AP", new PDFReference(stream));
+            pdfDoc.registerObject(dict);
+        }
+    }
+
+    /**
+     * Writes the document, discarding the output.
+     * @return the document
+     * @throws IOException if an I/O error occurs
+     */
+    @Benchmark
+    public PDFDocument output() throws IOException {
+        pdfDoc.outputHeader(NullOutputStream.INSTANCE);
+        pdfDoc.outputTrailer(NullOutputStream.INSTANCE);
+        return pdfDoc;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+package org.apache.fop.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFFilterList;
+import org.apache.fop.pdf.PDFNumber;
+import org.apache.fop.pdf.PDFPage;
+import org.apache.fop.pdf.PDFReference;
+import org.apache.fop.pdf.PDFStream;
+
+/**
+ * Measures {@link PDFDocument#output(java.io.OutputStream)} in isolation: serialization and
+ * compression of a document whose pages, content streams and fonts have already been built.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PDFOutputBenchmark {
+
+    /** The number of pages in the document. */
+    @Param({"500"})
+    public int pages;
+
+    /** Whether PDF 1.5 object streams are used. */
+    @Param({"false", "true"})
+    public boolean objectStreams;
+
+    private PDFDocument pdfDoc;
+
+    /** Builds a fresh document for every invocation, since output consumes it. */
+    @Setup(Level.Invocation)
+    public void setUpDocument() {
+        pdfDoc = new PDFDocument("FOP benchmark");
+        pdfDoc.setObjectStreamsEnabled(objectStreams);
+        pdfDoc.getResources().addFont(
+                pdfDoc.getFactory().makeFont("F1", "Helvetica", "WinAnsiEncoding", null, null));
+        Random random = new Random(pages);
+        for (int i = 0; i < pages; i++) {
+            PDFPage page = pdfDoc.getFactory().makePage(pdfDoc.getResources(), 595, 842, i);
+            PDFStream contents = pdfDoc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+            contents.add(createPageContent(random));
+            pdfDoc.registerObject(contents);
+            page.setContents(new PDFReference(contents));
+            pdfDoc.addObject(page);
+        }
+    }
+
+    private static String createPageContent(Random random) {
+        StringBuilder sb = new StringBuilder(16 * 1024);
+        for (int line = 0; line < 60; line++) {
+            double y = 800 - line * 12.5;
+            sb.append("q 0.5 w 0 0 0 RG 40 ").append(PDFNumber.doubleOut(y - 2.25, 3))
+                    .append(" m 555 ").append(PDFNumber.doubleOut(y - 2.25, 3)).append(" l S Q\n");
+            sb.append("BT /F1 10 Tf 1 0 0 -1 40 ").append(PDFNumber.doubleOut(y, 3)).append(" Tm [(");
+            for (int c = 0; c < 80; c++) {
+                sb.append((char) ('a' + random.nextInt(26)));
+                if (c % 9 == 8) {
+                    sb.append(")").append(random.nextInt(40) - 20).append("(");
+                }
+            }
+            sb.append(")] TJ ET\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the document, discarding the output.
+     * @return the document
+     * @throws IOException if an I/O error occurs
+     */
+    @Benchmark
+    public PDFDocument output() throws IOException {
+        pdfDoc.outputHeader(NullOutputStream.INSTANCE);
+        pdfDoc.outputTrailer(NullOutputStream.INSTANCE);
+        return pdfDoc;
+    }
+}
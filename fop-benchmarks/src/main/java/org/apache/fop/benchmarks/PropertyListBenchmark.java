@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.helpers.AttributesImpl;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.FOEventHandler;
+import org.apache.fop.fo.PropertyList;
+import org.apache.fop.fo.StaticPropertyList;
+import org.apache.fop.fo.flow.Block;
+import org.apache.fop.fo.pagination.Root;
+import org.apache.fop.fo.properties.Property;
+
+/**
+ * Measures {@link PropertyList} on its own, without SAX parsing or the rest of FO tree
+ * building: converting the attributes of an fo:block into properties, and resolving the
+ * properties the block binds, including inherited and default values.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropertyListBenchmark {
+
+    private AttributesImpl attributes;
+
+    private PropertyList rootPropertyList;
+
+    private Block block;
+
+    private List<Integer> explicitIds;
+
+    private List<Property> explicitValues;
+
+    /**
+     * Sets up a block in an FO tree and parses its attributes once, so that resolution can be
+     * measured from the parsed properties.
+     * @throws Exception if the set up fails
+     */
+    @Setup
+    public void setUp() throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        Root root = new Root(null);
+        root.setFOEventHandler(new FOEventHandler(userAgent) { });
+        rootPropertyList = new StaticPropertyList(root, null);
+        block = new Block(root);
+
+        attributes = new AttributesImpl();
+        addAttribute("font-family", "serif");
+        addAttribute("font-size", "11pt");
+        addAttribute("line-height", "1.3");
+        addAttribute("space-before", "6pt");
+        addAttribute("margin-left", "2em");
+        addAttribute("text-align", "justify");
+        addAttribute("text-indent", "5%");
+        addAttribute("border", "0.5pt solid black");
+        addAttribute("padding", "2pt");
+        addAttribute("color", "#333333");
+        addAttribute("keep-with-next", "always");
+
+        PropertyList parsed = convertAttributes();
+        explicitIds = new ArrayList<Integer>();
+        explicitValues = new ArrayList<Property>();
+        for (int propId = 1; propId <= Constants.PROPERTY_COUNT; propId++) {
+            Property value = parsed.getExplicit(propId);
+            if (value != null) {
+                explicitIds.add(propId);
+                explicitValues.add(value);
+            }
+        }
+    }
+
+    private void addAttribute(String name, String value) {
+        attributes.addAttribute("", name, name, "CDATA", value);
+    }
+
+    /**
+     * Converts the attributes of the block into properties.
+     * @return the property list, to keep the work from being optimized away
+     * @throws Exception if an attribute is invalid
+     */
+    @Benchmark
+    public PropertyList convertAttributes() throws Exception {
+        PropertyList propertyList = new StaticPropertyList(block, rootPropertyList);
+        propertyList.addAttributesToList(attributes);
+        return propertyList;
+    }
+
+    /**
+     * Resolves the properties of the block from already parsed attributes, as
+     * {@link Block#bind(PropertyList)} does.
+     * @return the block, to keep the work from being optimized away
+     * @throws Exception if a property can't be resolved
+     */
+    @Benchmark
+    public Block resolveProperties() throws Exception {
+        PropertyList propertyList = new StaticPropertyList(block, rootPropertyList);
+        for (int i = 0; i < explicitIds.size(); i++) {
+            propertyList.putExplicit(explicitIds.get(i), explicitValues.get(i));
+        }
+        block.bind(propertyList);
+        return block;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * Generates the synthetic XSL-FO documents the benchmarks are driven by. The documents are
+ * deterministic (fixed random seed) so that results of different runs can be compared.
+ */
+public final class SyntheticDocuments {
+
+    /** A long table with many rows of short, styled cells. */
+    public static final String TABLE = "table";
+
+    /** Dense, justified running text in a single page sequence. */
+    public static final String TEXT = "text";
+
+    /** Many short page sequences, like a batch of invoices. */
+    public static final String PAGE_SEQUENCES = "page-sequences";
+
+    private static final String[] WORDS = {
+        "lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit",
+        "invoice", "amount", "customer", "delivery", "statement", "balance", "payment",
+        "reference", "quantity", "description", "account", "period", "total", "tax",
+        "of", "the", "and", "to", "in", "for", "with", "on", "by", "at"
+    };
+
+    private SyntheticDocuments() {
+    }
+
+    /**
+     * Creates a document of the given kind.
+     * @param kind one of {@link #TABLE}, {@link #TEXT} or {@link #PAGE_SEQUENCES}
+     * @param size a size factor (rows, paragraphs or page sequences respectively)
+     * @return the UTF-8 encoded XSL-FO document
+     */
+    public static byte[] create(String kind, int size) {
+        StringBuilder sb = new StringBuilder(size * 512);
+        Random random = new Random(size);
+        startRoot(sb);
+        if (TABLE.equals(kind)) {
+            table(sb, random, size);
+        } else if (TEXT.equals(kind)) {
+            text(sb, random, size);
+        } else if (PAGE_SEQUENCES.equals(kind)) {
+            pageSequences(sb, random, size);
+        } else {
+            throw new IllegalArgumentException("Unknown document kind: " + kind);
+        }
+        sb.append("</fo:root>\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Wraps a generated document in a {@link Source}.
+     * @param document the document as returned by {@link #create(String, int)}
+     * @return a fresh source for the document
+     */
+    public static Source toSource(byte[] document) {
+        return new StreamSource(new ByteArrayInputStream(document));
+    }
+
+    private static void startRoot(StringBuilder sb) {
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">\n");
+        sb.append("<fo:layout-master-set>\n");
+        sb.append("<fo:simple-page-master master-name=\"A4\" page-width=\"210mm\" page-height=\"297mm\"");
+        sb.append(" margin=\"15mm\">\n");
+        sb.append("<fo:region-body margin-top=\"10mm\" margin-bottom=\"10mm\"/>\n");
+        sb.append("<fo:region-before extent=\"10mm\"/>\n");
+        sb.append("<fo:region-after extent=\"10mm\"/>\n");
+        sb.append("</fo:simple-page-master>\n");
+        sb.append("</fo:layout-master-set>\n");
+    }
+
+    private static void startPageSequence(StringBuilder sb, String initialPageNumber) {
+        sb.append("<fo:page-sequence master-reference=\"A4\"");
+        if (initialPageNumber != null) {
+            sb.append(" initial-page-number=\"").append(initialPageNumber).append('"');
+        }
+        sb.append(">\n");
+        sb.append("<fo:static-content flow-name=\"xsl-region-before\">");
+        sb.append("<fo:block font-size=\"8pt\" text-align=\"end\">Page <fo:page-number/></fo:block>");
+        sb.append("</fo:static-content>\n");
+        sb.append("<fo:flow flow-name=\"xsl-region-body\" font-family=\"Helvetica\" font-size=\"10pt\">\n");
+    }
+
+    private static void endPageSequence(StringBuilder sb) {
+        sb.append("</fo:flow>\n</fo:page-sequence>\n");
+    }
+
+    private static void table(StringBuilder sb, Random random, int rows) {
+        startPageSequence(sb, null);
+        sb.append("<fo:table table-layout=\"fixed\" width=\"100%\" border-collapse=\"separate\">\n");
+        sb.append("<fo:table-column column-width=\"15%\"/><fo:table-column column-width=\"45%\"/>");
+        sb.append("<fo:table-column column-width=\"20%\"/><fo:table-column column-width=\"20%\"/>\n");
+        sb.append("<fo:table-header><fo:table-row font-weight=\"bold\">");
+        cell(sb, "Item");
+        cell(sb, "Description");
+        cell(sb, "Quantity");
+        cell(sb, "Amount");
+        sb.append("</fo:table-row></fo:table-header>\n<fo:table-body>\n");
+        for (int i = 0; i < rows; i++) {
+            sb.append("<fo:table-row>");
+            cell(sb, Integer.toString(i + 1));
+            cell(sb, words(random, 3 + random.nextInt(6)));
+            cell(sb, Integer.toString(random.nextInt(100)));
+            cell(sb, random.nextInt(10000) + "." + random.nextInt(10) + random.nextInt(10));
+            sb.append("</fo:table-row>\n");
+        }
+        sb.append("</fo:table-body>\n</fo:table>\n");
+        endPageSequence(sb);
+    }
+
+    private static void cell(StringBuilder sb, String content) {
+        sb.append("<fo:table-cell border=\"0.5pt solid black\" padding=\"1pt 2pt\">");
+        sb.append("<fo:block>").append(content).append("</fo:block></fo:table-cell>");
+    }
+
+    private static void text(StringBuilder sb, Random random, int paragraphs) {
+        startPageSequence(sb, null);
+        for (int i = 0; i < paragraphs; i++) {
+            sb.append("<fo:block text-align=\"justify\" space-after=\"4pt\">");
+            sb.append(words(random, 80 + random.nextInt(80)));
+            sb.append("</fo:block>\n");
+        }
+        endPageSequence(sb);
+    }
+
+    private static void pageSequences(StringBuilder sb, Random random, int count) {
+        for (int i = 0; i < count; i++) {
+            startPageSequence(sb, i == 0 ? null : "1");
+            sb.append("<fo:block font-size=\"16pt\" space-after=\"6pt\">Statement ")
+                    .append(i + 1).append("</fo:block>\n");
+            for (int j = 0; j < 10; j++) {
+                sb.append("<fo:block text-align=\"justify\">");
+                sb.append(words(random, 30 + random.nextInt(30)));
+                sb.append("</fo:block>\n");
+            }
+            endPageSequence(sb);
+        }
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder sb = new StringBuilder(count * 8);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
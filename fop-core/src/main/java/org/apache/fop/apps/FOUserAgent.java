@@ -107,10 +107,12 @@ public class FOUserAgent {
     private FOEventHandler foEventHandlerOverride;
     private boolean locatorEnabled = true; // true by default (for error messages).
     private boolean conserveMemoryPolicy;
+    private boolean asyncLayout;
     private EventBroadcaster eventBroadcaster = new FOPEventBroadcaster();
     private StructureTreeEventHandler structureTreeEventHandler
             = DummyStructureTreeEventHandler.INSTANCE;
     private boolean pdfUAEnabled;
+    private FormattingResults formattingResults;
 
     /** Producer:  Metadata element for the system/software that produces
      * the document. (Some renderers can store this in the document.)
@@ -388,6 +390,23 @@ public class FOUserAgent {
         return keywords;
     }
 
+    /**
+     * Sets the object the results of the current rendering run are reported to.
+     * @param formattingResults the formatting results
+     */
+    public void setFormattingResults(FormattingResults formattingResults) {
+        this.formattingResults = formattingResults;
+    }
+
+    /**
+     * Returns the object the results of the current rendering run are reported to.
+     * @return the formatting results, or null if the document is not being laid out by FOP
+     * (e.g. when rendering intermediate format)
+     */
+    public FormattingResults getFormattingResults() {
+        return formattingResults;
+    }
+
     /**
      * Returns the renderer options
      * @return renderer options
@@ -668,6 +687,29 @@ public class FOUserAgent {
         this.conserveMemoryPolicy = conserveMemoryPolicy;
     }
 
+    /**
+     * Check whether asynchronous layout is enabled.
+     *
+     * @return true if page-sequences are laid out and rendered on a separate thread
+     * @see #setAsyncLayout(boolean)
+     */
+    public boolean isAsyncLayoutEnabled() {
+        return this.asyncLayout;
+    }
+
+    /**
+     * Controls whether page-sequences are laid out and rendered on a separate thread while
+     * the FO tree for the following page-sequences is still being built. Page-sequences are
+     * still processed one after the other, in document order, so the output is identical to
+     * synchronous processing. Note that event listeners may be notified from both threads
+     * when this is enabled. Ignored when accessibility is enabled.
+     *
+     * @param asyncLayout true to enable asynchronous layout
+     */
+    public void setAsyncLayout(boolean asyncLayout) {
+        this.asyncLayout = asyncLayout;
+    }
+
     /**
      * Check whether complex script features are enabled.
      *
@@ -438,6 +438,8 @@ public class FopConfParser {
                     hyphPatNames.put(llccKey, filename + Hyphenator.XMLTYPE);
                 } else if ("hyp".equals(extension)) {
                     hyphPatNames.put(llccKey, filename + Hyphenator.HYPTYPE);
+                } else if ("hyb".equals(extension)) {
+                    hyphPatNames.put(llccKey, filename + Hyphenator.HYBTYPE);
                 } else {
                     hyphPatNames.put(llccKey, filename);
                 }
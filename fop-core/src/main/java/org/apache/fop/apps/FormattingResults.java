@@ -19,17 +19,36 @@
 
 package org.apache.fop.apps;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.fop.fo.pagination.AbstractPageSequence;
 
 /**
  * Class for reporting back formatting results to the calling application.
+ * The output figures may be reported from the layout thread while the calling application
+ * reads them, so access to them is synchronized.
  */
 public class FormattingResults {
 
+    /** Phase: laying out the pages, not counting the rendering of the pages laid out */
+    public static final String PHASE_LAYOUT = "layout";
+    /** Phase: rendering the pages, including writing them out */
+    public static final String PHASE_RENDERING = "rendering";
+    /** Phase: compressing (and encrypting) streams, possibly on several threads */
+    public static final String PHASE_COMPRESSION = "compression";
+    /** Phase: writing the output */
+    public static final String PHASE_WRITING = "writing";
+
     private int pageCount;
     private List pageSequences;
+    private int deduplicatedObjectCount;
+    private final Map<String, Long> outputBytes = new LinkedHashMap<String, Long>();
+    private long unencodedStreamBytes;
+    private long encodedStreamBytes;
+    private final Map<String, Long> phaseTimes = new LinkedHashMap<String, Long>();
 
     /**
      * Constructor for the FormattingResults object
@@ -55,11 +74,74 @@ public class FormattingResults {
         return this.pageSequences;
     }
 
+    /**
+     * Gets the number of objects in the output that were left out because they were
+     * identical to another object in the output (e.g. the same image added twice under
+     * different URIs).
+     *
+     * @return   The number of deduplicated objects
+     */
+    public synchronized int getDeduplicatedObjectCount() {
+        return this.deduplicatedObjectCount;
+    }
+
+    /**
+     * Gets the number of bytes written to the output, by category of object. The
+     * categories depend on the output format; for PDF they are fonts, images, content,
+     * structure, object-streams and other.
+     *
+     * @return   A snapshot of the byte counts, keyed by category
+     */
+    public synchronized Map<String, Long> getOutputBytes() {
+        return Collections.unmodifiableMap(new LinkedHashMap<String, Long>(this.outputBytes));
+    }
+
+    /**
+     * Gets the ratio of the size of the streams in the output to their size before they
+     * were compressed.
+     *
+     * @return   The compression ratio, 1 if no streams were written
+     */
+    public synchronized double getCompressionRatio() {
+        if (this.unencodedStreamBytes == 0) {
+            return 1;
+        }
+        return (double) this.encodedStreamBytes / this.unencodedStreamBytes;
+    }
+
+    /**
+     * Gets the time spent in a phase of the processing, one of the PHASE_* constants.
+     * The phases overlap: rendering includes compression and writing, and compression may
+     * run on several threads at once.
+     *
+     * @param phase     the phase
+     * @return   The time spent in nanoseconds, 0 if nothing was reported for the phase
+     */
+    public synchronized long getTimeSpent(String phase) {
+        Long time = this.phaseTimes.get(phase);
+        return time == null ? 0 : time;
+    }
+
+    /**
+     * Gets the time spent in each phase of the processing.
+     *
+     * @return   A snapshot of the times in nanoseconds, keyed by phase
+     * @see #getTimeSpent(String)
+     */
+    public synchronized Map<String, Long> getTimesSpent() {
+        return Collections.unmodifiableMap(new LinkedHashMap<String, Long>(this.phaseTimes));
+    }
+
     /**
      * Resets this object
      */
-    public void reset() {
+    public synchronized void reset() {
         this.pageCount = 0;
+        this.deduplicatedObjectCount = 0;
+        this.outputBytes.clear();
+        this.unencodedStreamBytes = 0;
+        this.encodedStreamBytes = 0;
+        this.phaseTimes.clear();
         if (this.pageSequences != null) {
             this.pageSequences.clear();
         }
@@ -81,5 +163,50 @@ public class FormattingResults {
                 new PageSequenceResults(pageSequence.getId(),
                                         pageCount));
     }
-}
 
+    /**
+     * Reports objects that were left out of the output because they were identical
+     * to another object in the output.
+     *
+     * @param count the number of deduplicated objects
+     */
+    public synchronized void haveDeduplicatedObjects(int count) {
+        this.deduplicatedObjectCount += count;
+    }
+
+    /**
+     * Reports bytes written to the output for a category of object.
+     *
+     * @param category  the category of object
+     * @param bytes     the number of bytes written
+     */
+    public synchronized void haveWrittenBytes(String category, long bytes) {
+        add(this.outputBytes, category, bytes);
+    }
+
+    /**
+     * Reports streams written to the output.
+     *
+     * @param unencodedBytes    the length of the streams before they were compressed
+     * @param encodedBytes      the length of the streams as written
+     */
+    public synchronized void haveEncodedStreams(long unencodedBytes, long encodedBytes) {
+        this.unencodedStreamBytes += unencodedBytes;
+        this.encodedStreamBytes += encodedBytes;
+    }
+
+    /**
+     * Reports time spent in a phase of the processing.
+     *
+     * @param phase     the phase, one of the PHASE_* constants
+     * @param time      the time spent in nanoseconds
+     */
+    public synchronized void haveSpentTime(String phase, long time) {
+        add(this.phaseTimes, phase, time);
+    }
+
+    private static void add(Map<String, Long> map, String key, long value) {
+        Long total = map.get(key);
+        map.put(key, total == null ? value : total + value);
+    }
+}
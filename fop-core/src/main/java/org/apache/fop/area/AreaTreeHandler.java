@@ -87,6 +87,12 @@ public class AreaTreeHandler extends FOEventHandler {
 
     private TopLevelLayoutManager prevPageSeqLM;
 
+    // The time at which the current layout started, in nanoseconds
+    private long layoutStartTime;
+
+    // The time spent rendering when the current layout started, in nanoseconds
+    private long layoutStartRenderingTime;
+
     private int idGen;
 
     /**
@@ -101,6 +107,7 @@ public class AreaTreeHandler extends FOEventHandler {
     public AreaTreeHandler(FOUserAgent userAgent, String outputFormat,
             OutputStream stream) throws FOPException {
         super(userAgent);
+        userAgent.setFormattingResults(results);
 
         setupModel(userAgent, outputFormat, stream);
 
@@ -210,9 +217,11 @@ public class AreaTreeHandler extends FOEventHandler {
      */
     private void finishPrevPageSequence(Numeric initialPageNumber) {
         if (prevPageSeqLM != null) {
+            startLayout();
             prevPageSeqLM.doForcePageCount(initialPageNumber);
             prevPageSeqLM.finishPageSequence();
             prevPageSeqLM = null;
+            endLayout();
         }
     }
 
@@ -264,7 +273,9 @@ public class AreaTreeHandler extends FOEventHandler {
             PageSequenceLayoutManager pageSLM;
             pageSLM = getLayoutManagerMaker().makePageSequenceLayoutManager(
                     this, pageSequence);
+            startLayout();
             pageSLM.activateLayout();
+            endLayout();
             // preserve the current PageSequenceLayoutManger for the
             // force-page-count check at the beginning of the next PageSequence
             prevPageSeqLM = pageSLM;
@@ -286,13 +297,35 @@ public class AreaTreeHandler extends FOEventHandler {
 
         ExternalDocumentLayoutManager edLM;
         edLM = getLayoutManagerMaker().makeExternalDocumentLayoutManager(this, document);
+        startLayout();
         edLM.activateLayout();
+        endLayout();
         // preserve the current PageSequenceLayoutManger for the
         // force-page-count check at the beginning of the next PageSequence
         prevPageSeqLM = edLM;
 
     }
 
+    /**
+     * Starts timing the layout of pages.
+     */
+    private void startLayout() {
+        layoutStartTime = System.nanoTime();
+        layoutStartRenderingTime = results.getTimeSpent(FormattingResults.PHASE_RENDERING);
+    }
+
+    /**
+     * Reports the time spent laying out pages since {@link #startLayout()} was called. Pages
+     * are rendered as soon as they are laid out, so the time spent rendering them in the
+     * meantime, which the area tree model reports as it goes, is not counted.
+     */
+    private void endLayout() {
+        long renderingTime = results.getTimeSpent(FormattingResults.PHASE_RENDERING)
+                - layoutStartRenderingTime;
+        results.haveSpentTime(FormattingResults.PHASE_LAYOUT,
+                System.nanoTime() - layoutStartTime - renderingTime);
+    }
+
     /**
      * Called by the PageSequenceLayoutManager when it is finished with a
      * page-sequence.
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.xml.sax.SAXException;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.fo.extensions.ExternalDocument;
+import org.apache.fop.fo.pagination.PageSequence;
+
+/**
+ * Area tree handler that lays out and renders page-sequences on a dedicated thread, while the
+ * FO tree builder continues to parse the following page-sequences on the calling thread.
+ * <p>
+ * All page-sequence events are handed to the layout thread in document order and are
+ * processed one after the other by the superclass, so page numbering, force-page-count,
+ * ID resolution and the order of pages delivered to the {@link AreaTreeModel} are exactly
+ * the same as in synchronous processing. Everything touched by layout and rendering (fonts,
+ * the {@link IDTracker}, the renderer) is therefore only ever used from the layout thread.
+ * To keep memory bounded, parsing blocks when too many finished page-sequences are waiting
+ * to be laid out.
+ */
+public class AsyncAreaTreeHandler extends AreaTreeHandler {
+
+    /** Maximum number of parsed page-sequences waiting for the layout thread. */
+    private static final int MAX_PENDING_PAGE_SEQUENCES = 2;
+
+    private final ExecutorService layoutExecutor;
+
+    private final Semaphore pendingPageSequences = new Semaphore(MAX_PENDING_PAGE_SEQUENCES);
+
+    /** The first exception thrown on the layout thread, rethrown on the parsing thread. */
+    private volatile Throwable failure;
+
+    /**
+     * Constructor.
+     *
+     * @param userAgent FOUserAgent object for process
+     * @param outputFormat the MIME type of the output format to use (ex.
+     * "application/pdf").
+     * @param stream OutputStream
+     * @throws FOPException if the RenderPagesModel cannot be created
+     */
+    public AsyncAreaTreeHandler(FOUserAgent userAgent, String outputFormat,
+            OutputStream stream) throws FOPException {
+        super(userAgent, outputFormat, stream);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "FOP layout");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        //don't keep an idle thread around if processing is aborted before endDocument()
+        executor.allowCoreThreadTimeOut(true);
+        this.layoutExecutor = executor;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void startPageSequence(final PageSequence pageSequence) {
+        submit(new Runnable() {
+            public void run() {
+                AsyncAreaTreeHandler.super.startPageSequence(pageSequence);
+            }
+        }, false);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endPageSequence(final PageSequence pageSequence) {
+        submit(new Runnable() {
+            public void run() {
+                AsyncAreaTreeHandler.super.endPageSequence(pageSequence);
+            }
+        }, true);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void startExternalDocument(final ExternalDocument document) {
+        submit(new Runnable() {
+            public void run() {
+                AsyncAreaTreeHandler.super.startExternalDocument(document);
+            }
+        }, false);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endExternalDocument(final ExternalDocument document) {
+        submit(new Runnable() {
+            public void run() {
+                AsyncAreaTreeHandler.super.endExternalDocument(document);
+            }
+        }, true);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void endDocument() throws SAXException {
+        submit(new Runnable() {
+            public void run() {
+                try {
+                    AsyncAreaTreeHandler.super.endDocument();
+                } catch (SAXException se) {
+                    throw new AsyncLayoutException(se);
+                }
+            }
+        }, false);
+        layoutExecutor.shutdown();
+        try {
+            while (!layoutExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+                checkFailure();
+            }
+        } catch (InterruptedException ie) {
+            layoutExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new SAXException("Interrupted while waiting for layout to finish", ie);
+        }
+        Throwable t = failure;
+        if (t instanceof AsyncLayoutException) {
+            throw (SAXException) t.getCause();
+        }
+        checkFailure();
+    }
+
+    /**
+     * Queues a task for the layout thread.
+     * @param task the task
+     * @param pageSequenceEnd true if the task lays out a page-sequence, in which case the
+     * calling thread blocks while too many page-sequences are pending
+     */
+    private void submit(final Runnable task, final boolean pageSequenceEnd) {
+        checkFailure();
+        if (pageSequenceEnd) {
+            try {
+                pendingPageSequences.acquire();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the layout thread");
+            }
+        }
+        layoutExecutor.execute(new Runnable() {
+            public void run() {
+                try {
+                    if (failure == null) {
+                        task.run();
+                    }
+                } catch (Throwable t) {
+                    failure = t;
+                } finally {
+                    if (pageSequenceEnd) {
+                        pendingPageSequences.release();
+                    }
+                }
+            }
+        });
+    }
+
+    /** Rethrows an exception that occurred on the layout thread on the calling thread. */
+    private void checkFailure() {
+        Throwable t = failure;
+        if (t == null || t instanceof AsyncLayoutException) {
+            return;
+        }
+        layoutExecutor.shutdownNow();
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else {
+            throw new RuntimeException(t);
+        }
+    }
+
+    /** Carries a {@link SAXException} from {@link AreaTreeHandler#endDocument()}. */
+    private static final class AsyncLayoutException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        AsyncLayoutException(SAXException cause) {
+            super(cause);
+        }
+    }
+}
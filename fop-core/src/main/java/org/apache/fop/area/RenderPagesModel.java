@@ -30,6 +30,7 @@ import org.xml.sax.SAXException;
 
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FormattingResults;
 import org.apache.fop.fonts.FontInfo;
 import org.apache.fop.render.Renderer;
 import org.apache.fop.render.RendererEventProducer;
@@ -94,7 +95,9 @@ public class RenderPagesModel extends AreaTreeModel {
     public void startPageSequence(PageSequence pageSequence) {
         super.startPageSequence(pageSequence);
         if (renderer.supportsOutOfOrder()) {
+            long startTime = System.nanoTime();
             renderer.startPageSequence(getCurrentPageSequence());
+            haveSpentRenderingTime(startTime);
         }
     }
 
@@ -109,6 +112,7 @@ public class RenderPagesModel extends AreaTreeModel {
     @Override
     public void addPage(PageViewport page) {
         super.addPage(page);
+        long startTime = System.nanoTime();
 
         // for links the renderer needs to prepare the page
         // it is more appropriate to do this after queued pages but
@@ -149,6 +153,19 @@ public class RenderPagesModel extends AreaTreeModel {
             processOffDocumentItems(pendingODI);
             pendingODI.clear();
         }
+        haveSpentRenderingTime(startTime);
+    }
+
+    /**
+     * Reports the time spent rendering since the given time to the formatting results as
+     * soon as it is spent, so that the layout can tell it apart from its own.
+     * @param startTime the time the rendering started, in nanoseconds
+     */
+    private void haveSpentRenderingTime(long startTime) {
+        FormattingResults results = renderer.getUserAgent().getFormattingResults();
+        if (results != null) {
+            results.haveSpentTime(FormattingResults.PHASE_RENDERING, System.nanoTime() - startTime);
+        }
     }
 
     /**
@@ -245,6 +262,7 @@ public class RenderPagesModel extends AreaTreeModel {
      */
     @Override
     public void endDocument() throws SAXException {
+        long startTime = System.nanoTime();
         // render any pages that had unresolved ids
         checkPreparedPages(null, true);
 
@@ -257,6 +275,7 @@ public class RenderPagesModel extends AreaTreeModel {
         } catch (IOException ex) {
             throw new SAXException(ex);
         }
+        haveSpentRenderingTime(startTime);
     }
 }
 
@@ -37,17 +37,9 @@ import org.apache.fop.fo.properties.LengthRangeProperty;
  */
 public class TableCell extends TableFObj implements CommonAccessibilityHolder {
     // The value of properties relevant for fo:table-cell.
-    private CommonAccessibility commonAccessibility;
-    private CommonBorderPaddingBackground commonBorderPaddingBackground;
-    private LengthRangeProperty blockProgressionDimension;
+    // The values that don't depend on the position of the cell are shared between cells.
+    private TableCellProperties properties;
     private int columnNumber;
-    private int displayAlign;
-    private int emptyCells;
-    private int endsRow;
-    private int numberColumnsSpanned;
-    private int numberRowsSpanned;
-    private int startsRow;
-    private Length width;
     // Unused but valid items, commented out for performance:
     //     private CommonAural commonAural;
     //     private CommonRelativePosition commonRelativePosition;
@@ -78,21 +70,23 @@ public class TableCell extends TableFObj implements CommonAccessibilityHolder {
      */
     public void bind(PropertyList pList) throws FOPException {
         super.bind(pList);
-        commonAccessibility = CommonAccessibility.getInstance(pList);
-        commonBorderPaddingBackground = pList.getBorderPaddingBackgroundProps();
-        blockProgressionDimension = pList.get(PR_BLOCK_PROGRESSION_DIMENSION).getLengthRange();
-        displayAlign = pList.get(PR_DISPLAY_ALIGN).getEnum();
-        emptyCells = pList.get(PR_EMPTY_CELLS).getEnum();
-        startsRow = pList.get(PR_STARTS_ROW).getEnum();
+        int startsRow = pList.get(PR_STARTS_ROW).getEnum();
         // For properly computing columnNumber
-        if (startsRow() && getParent().getNameId() != FO_TABLE_ROW) {
+        if (startsRow == EN_TRUE && getParent().getNameId() != FO_TABLE_ROW) {
             ((TablePart) getParent()).signalNewRow();
         }
-        endsRow = pList.get(PR_ENDS_ROW).getEnum();
         columnNumber = pList.get(PR_COLUMN_NUMBER).getNumeric().getValue();
-        numberColumnsSpanned = pList.get(PR_NUMBER_COLUMNS_SPANNED).getNumeric().getValue();
-        numberRowsSpanned = pList.get(PR_NUMBER_ROWS_SPANNED).getNumeric().getValue();
-        width = pList.get(PR_WIDTH).getLength();
+        properties = TableCellProperties.getInstance(
+                CommonAccessibility.getInstance(pList),
+                pList.getBorderPaddingBackgroundProps(),
+                pList.get(PR_BLOCK_PROGRESSION_DIMENSION).getLengthRange(),
+                pList.get(PR_DISPLAY_ALIGN).getEnum(),
+                pList.get(PR_EMPTY_CELLS).getEnum(),
+                startsRow,
+                pList.get(PR_ENDS_ROW).getEnum(),
+                pList.get(PR_NUMBER_COLUMNS_SPANNED).getNumeric().getValue(),
+                pList.get(PR_NUMBER_ROWS_SPANNED).getNumeric().getValue(),
+                pList.get(PR_WIDTH).getLength());
     }
 
     /** {@inheritDoc} */
@@ -152,7 +146,7 @@ public class TableCell extends TableFObj implements CommonAccessibilityHolder {
 
     /** {@inheritDoc} */
     public CommonAccessibility getCommonAccessibility() {
-        return commonAccessibility;
+        return properties.getCommonAccessibility();
     }
 
     /**
@@ -161,7 +155,7 @@ public class TableCell extends TableFObj implements CommonAccessibilityHolder {
      * @return the {@link CommonBorderPaddingBackground} instance
      */
     public CommonBorderPaddingBackground getCommonBorderPaddingBackground() {
-        return this.commonBorderPaddingBackground;
+        return properties.getCommonBorderPaddingBackground();
     }
 
     /**
@@ -177,7 +171,7 @@ public class TableCell extends TableFObj implements CommonAccessibilityHolder {
      * @return true if "empty-cells" is "show"
      */
     public boolean showEmptyCells() {
-        return (this.emptyCells == EN_SHOW);
+        return (properties.getEmptyCells() == EN_SHOW);
     }
 
     /**
@@ -185,7 +179,7 @@ public class TableCell extends TableFObj implements CommonAccessibilityHolder {
      * @return the "number-columns-spanned" property.
      */
     public int getNumberColumnsSpanned() {
-        return Math.max(numberColumnsSpanned, 1);
+        return Math.max(properties.getNumberColumnsSpanned(), 1);
     }
 
     /**
@@ -193,7 +187,7 @@ public class TableCell extends TableFObj implements CommonAccessibilityHolder {
      * @return the "number-rows-spanned" property.
      */
     public int getNumberRowsSpanned() {
-        return Math.max(numberRowsSpanned, 1);
+        return Math.max(properties.getNumberRowsSpanned(), 1);
     }
 
     /**
@@ -201,7 +195,7 @@ public class TableCell extends TableFObj implements CommonAccessibilityHolder {
      * @return the "block-progression-dimension" property.
      */
     public LengthRangeProperty getBlockProgressionDimension() {
-        return blockProgressionDimension;
+        return properties.getBlockProgressionDimension();
     }
 
     /**
@@ -209,7 +203,7 @@ public class TableCell extends TableFObj implements CommonAccessibilityHolder {
      * @return the display-align property.
      */
     public int getDisplayAlign() {
-        return displayAlign;
+        return properties.getDisplayAlign();
     }
 
     /**
@@ -217,7 +211,7 @@ public class TableCell extends TableFObj implements CommonAccessibilityHolder {
      * @return the "width" property.
      */
     public Length getWidth() {
-        return width;
+        return properties.getWidth();
     }
 
     /**
@@ -225,7 +219,7 @@ public class TableCell extends TableFObj implements CommonAccessibilityHolder {
      * @return true if the cell starts a row.
      */
     public boolean startsRow() {
-        return (startsRow == EN_TRUE);
+        return (properties.getStartsRow() == EN_TRUE);
     }
 
     /**
@@ -233,7 +227,7 @@ public class TableCell extends TableFObj implements CommonAccessibilityHolder {
      * @return true if the cell ends a row.
      */
     public boolean endsRow() {
-        return (endsRow == EN_TRUE);
+        return (properties.getEndsRow() == EN_TRUE);
     }
 
     /** {@inheritDoc} */
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.flow.table;
+
+import org.apache.fop.datatypes.Length;
+import org.apache.fop.fo.properties.CommonAccessibility;
+import org.apache.fop.fo.properties.CommonBorderPaddingBackground;
+import org.apache.fop.fo.properties.LengthRangeProperty;
+import org.apache.fop.fo.properties.PropertyCache;
+import org.apache.fop.util.CompareUtil;
+
+/**
+ * The values of the properties of an <code>fo:table-cell</code> that do not depend on its
+ * position in the table. Tables usually consist of many cells sharing the same
+ * properties, so instances are cached and shared between all the cells having the same
+ * values. The column number, which differs from one cell to the next, is kept by
+ * {@link TableCell} itself.
+ */
+final class TableCellProperties {
+
+    /** cache holding all canonical instances */
+    private static final PropertyCache<TableCellProperties> CACHE
+            = new PropertyCache<TableCellProperties>();
+
+    private final CommonAccessibility commonAccessibility;
+    private final CommonBorderPaddingBackground commonBorderPaddingBackground;
+    private final LengthRangeProperty blockProgressionDimension;
+    private final int displayAlign;
+    private final int emptyCells;
+    private final int endsRow;
+    private final int numberColumnsSpanned;
+    private final int numberRowsSpanned;
+    private final int startsRow;
+    private final Length width;
+
+    /** cached hash code */
+    private int hash;
+
+    private TableCellProperties(CommonAccessibility commonAccessibility,
+            CommonBorderPaddingBackground commonBorderPaddingBackground,
+            LengthRangeProperty blockProgressionDimension, int displayAlign, int emptyCells,
+            int startsRow, int endsRow, int numberColumnsSpanned, int numberRowsSpanned,
+            Length width) {
+        this.commonAccessibility = commonAccessibility;
+        this.commonBorderPaddingBackground = commonBorderPaddingBackground;
+        this.blockProgressionDimension = blockProgressionDimension;
+        this.displayAlign = displayAlign;
+        this.emptyCells = emptyCells;
+        this.startsRow = startsRow;
+        this.endsRow = endsRow;
+        this.numberColumnsSpanned = numberColumnsSpanned;
+        this.numberRowsSpanned = numberRowsSpanned;
+        this.width = width;
+    }
+
+    /**
+     * Returns the canonical instance holding the given property values.
+     *
+     * @param commonAccessibility the accessibility properties
+     * @param commonBorderPaddingBackground the border, padding and background properties
+     * @param blockProgressionDimension the value of block-progression-dimension
+     * @param displayAlign the value of display-align
+     * @param emptyCells the value of empty-cells
+     * @param startsRow the value of starts-row
+     * @param endsRow the value of ends-row
+     * @param numberColumnsSpanned the value of number-columns-spanned
+     * @param numberRowsSpanned the value of number-rows-spanned
+     * @param width the value of width
+     * @return the corresponding instance
+     */
+    static TableCellProperties getInstance(CommonAccessibility commonAccessibility,
+            CommonBorderPaddingBackground commonBorderPaddingBackground,
+            LengthRangeProperty blockProgressionDimension, int displayAlign, int emptyCells,
+            int startsRow, int endsRow, int numberColumnsSpanned, int numberRowsSpanned,
+            Length width) {
+        return CACHE.fetch(new TableCellProperties(commonAccessibility,
+                commonBorderPaddingBackground, blockProgressionDimension, displayAlign,
+                emptyCells, startsRow, endsRow, numberColumnsSpanned, numberRowsSpanned, width));
+    }
+
+    CommonAccessibility getCommonAccessibility() {
+        return commonAccessibility;
+    }
+
+    CommonBorderPaddingBackground getCommonBorderPaddingBackground() {
+        return commonBorderPaddingBackground;
+    }
+
+    LengthRangeProperty getBlockProgressionDimension() {
+        return blockProgressionDimension;
+    }
+
+    int getDisplayAlign() {
+        return displayAlign;
+    }
+
+    int getEmptyCells() {
+        return emptyCells;
+    }
+
+    int getStartsRow() {
+        return startsRow;
+    }
+
+    int getEndsRow() {
+        return endsRow;
+    }
+
+    int getNumberColumnsSpanned() {
+        return numberColumnsSpanned;
+    }
+
+    int getNumberRowsSpanned() {
+        return numberRowsSpanned;
+    }
+
+    Length getWidth() {
+        return width;
+    }
+
+    /** {@inheritDoc} */
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof TableCellProperties)) {
+            return false;
+        }
+        TableCellProperties other = (TableCellProperties) obj;
+        return displayAlign == other.displayAlign
+                && emptyCells == other.emptyCells
+                && startsRow == other.startsRow
+                && endsRow == other.endsRow
+                && numberColumnsSpanned == other.numberColumnsSpanned
+                && numberRowsSpanned == other.numberRowsSpanned
+                && CompareUtil.equal(commonAccessibility, other.commonAccessibility)
+                && CompareUtil.equal(commonBorderPaddingBackground,
+                        other.commonBorderPaddingBackground)
+                && CompareUtil.equal(blockProgressionDimension, other.blockProgressionDimension)
+                && CompareUtil.equal(width, other.width);
+    }
+
+    /** {@inheritDoc} */
+    public int hashCode() {
+        if (hash == 0) {
+            int hash = 17;
+            hash = 37 * hash + CompareUtil.getHashCode(commonAccessibility);
+            hash = 37 * hash + CompareUtil.getHashCode(commonBorderPaddingBackground);
+            hash = 37 * hash + CompareUtil.getHashCode(blockProgressionDimension);
+            hash = 37 * hash + displayAlign;
+            hash = 37 * hash + emptyCells;
+            hash = 37 * hash + startsRow;
+            hash = 37 * hash + endsRow;
+            hash = 37 * hash + numberColumnsSpanned;
+            hash = 37 * hash + numberRowsSpanned;
+            hash = 37 * hash + CompareUtil.getHashCode(width);
+            this.hash = hash;
+        }
+        return hash;
+    }
+}
@@ -22,6 +22,7 @@ package org.apache.fop.fo.properties;
 import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.PropertyList;
 import org.apache.fop.fo.expr.PropertyException;
+import org.apache.fop.util.CompareUtil;
 
 /**
  * The "role" and "source-document" properties, see Section 7.5 of the XSL-FO 1.1
@@ -82,4 +83,25 @@ public final class CommonAccessibility {
         return role;
     }
 
+    /** {@inheritDoc} */
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CommonAccessibility)) {
+            return false;
+        }
+        CommonAccessibility other = (CommonAccessibility) obj;
+        return CompareUtil.equal(sourceDocument, other.sourceDocument)
+                && CompareUtil.equal(role, other.role);
+    }
+
+    /** {@inheritDoc} */
+    public int hashCode() {
+        int hash = 17;
+        hash = 37 * hash + CompareUtil.getHashCode(sourceDocument);
+        hash = 37 * hash + CompareUtil.getHashCode(role);
+        return hash;
+    }
+
 }
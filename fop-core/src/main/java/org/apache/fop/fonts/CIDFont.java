@@ -38,6 +38,16 @@ public abstract class CIDFont extends CustomFont {
         super(resourceResolver);
     }
 
+    /**
+     * Creates a font that shares the metrics of an already loaded font.
+     * @param template the font to take the metrics from
+     * @param resourceResolver the URI resolver for controlling file access
+     */
+    protected CIDFont(CIDFont template, InternalResourceResolver resourceResolver) {
+        super(template, resourceResolver);
+        this.width = template.width;
+    }
+
     // ---- Required ----
     /**
      * Returns the type of the CID font.
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable index over the segments of a character map, looking up the glyph index of a
+ * Unicode code point with a binary search and the code point of a glyph index with a table
+ * lookup. Since it never changes, it can be shared by all the instances of a font.
+ */
+public final class CMapIndex {
+
+    /** The number of code points whose glyph index is looked up directly. */
+    private static final int NUM_DIRECT_CODE_POINTS = 256;
+
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] glyphStarts;
+    /** the highest end of the segments up to each one, to find overlapping segments */
+    private final int[] maxEnds;
+
+    private final int[] directGlyphIndices = new int[NUM_DIRECT_CODE_POINTS];
+
+    /** the code point of each glyph index, or 0 */
+    private final int[] codePoints;
+
+    /**
+     * Creates an index of the given character map. Where segments overlap, the segment with
+     * the lowest start is used for a code point, and the first segment in the given order for
+     * a glyph index.
+     * @param cmap the segments of the character map
+     */
+    public CMapIndex(List<CMapSegment> cmap) {
+        List<CMapSegment> sorted = new ArrayList<CMapSegment>(cmap);
+        Collections.sort(sorted, new Comparator<CMapSegment>() {
+            public int compare(CMapSegment s1, CMapSegment s2) {
+                return s1.getUnicodeStart() < s2.getUnicodeStart() ? -1
+                        : (s1.getUnicodeStart() == s2.getUnicodeStart() ? 0 : 1);
+            }
+        });
+        int size = sorted.size();
+        starts = new int[size];
+        ends = new int[size];
+        glyphStarts = new int[size];
+        maxEnds = new int[size];
+        int maxEnd = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            CMapSegment segment = sorted.get(i);
+            starts[i] = segment.getUnicodeStart();
+            ends[i] = segment.getUnicodeEnd();
+            glyphStarts[i] = segment.getGlyphStartIndex();
+            maxEnd = Math.max(maxEnd, ends[i]);
+            maxEnds[i] = maxEnd;
+        }
+        for (int c = 0; c < NUM_DIRECT_CODE_POINTS; c++) {
+            directGlyphIndices[c] = searchGlyphIndex(c);
+        }
+
+        int maxGlyphIndex = -1;
+        for (CMapSegment segment : cmap) {
+            maxGlyphIndex = Math.max(maxGlyphIndex, getGlyphEnd(segment));
+        }
+        codePoints = new int[maxGlyphIndex + 1];
+        for (CMapSegment segment : cmap) {
+            int c = segment.getUnicodeStart();
+            int end = getGlyphEnd(segment);
+            for (int gi = segment.getGlyphStartIndex(); gi <= end; gi++) {
+                if (gi >= 0 && codePoints[gi] == 0) {
+                    codePoints[gi] = c;
+                }
+                c++;
+            }
+        }
+    }
+
+    private static int getGlyphEnd(CMapSegment segment) {
+        return segment.getGlyphStartIndex() + (segment.getUnicodeEnd() - segment.getUnicodeStart());
+    }
+
+    /**
+     * Returns the glyph index of a Unicode code point.
+     * @param c the code point
+     * @return the glyph index, or {@link SingleByteEncoding#NOT_FOUND_CODE_POINT} if the
+     * code point isn't in the character map
+     */
+    public int getGlyphIndex(int c) {
+        if (c >= 0 && c < NUM_DIRECT_CODE_POINTS) {
+            return directGlyphIndices[c];
+        }
+        return searchGlyphIndex(c);
+    }
+
+    private int searchGlyphIndex(int c) {
+        // find the last segment starting at or before c
+        int low = 0;
+        int high = starts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= c) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int glyphIndex = SingleByteEncoding.NOT_FOUND_CODE_POINT;
+        // segments normally don't overlap, but if they do, earlier ones may contain c as well
+        for (int i = high; i >= 0 && maxEnds[i] >= c; i--) {
+            if (ends[i] >= c) {
+                int gi = glyphStarts[i] + c - starts[i];
+                if (gi != SingleByteEncoding.NOT_FOUND_CODE_POINT) {
+                    glyphIndex = gi;
+                }
+            }
+        }
+        return glyphIndex;
+    }
+
+    /**
+     * Returns the Unicode code point that a glyph index is mapped from.
+     * @param glyphIndex the glyph index
+     * @return the code point, or 0 if no code point maps to the glyph index
+     */
+    public int getCodePoint(int glyphIndex) {
+        if (glyphIndex < 0 || glyphIndex >= codePoints.length) {
+            return 0;
+        }
+        return codePoints[glyphIndex];
+    }
+}
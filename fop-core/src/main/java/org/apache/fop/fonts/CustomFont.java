@@ -76,7 +76,7 @@ public abstract class CustomFont extends Typeface
 
     private int strikeoutThickness;
 
-    private Map<Integer, Map<Integer, Integer>> kerning;
+    private KerningTable kerning;
 
     private boolean useKerning = true;
     /** the character map, mapping Unicode ranges to glyph indices. */
@@ -94,6 +94,48 @@ public abstract class CustomFont extends Typeface
         this.resourceResolver = resourceResolver;
     }
 
+    /**
+     * Creates a font that shares the metrics of an already loaded font. The character map is
+     * copied as it may be extended while a document is rendered.
+     * @param template the font to take the metrics from
+     * @param resourceResolver the URI resource resolver for controlling file access
+     */
+    protected CustomFont(CustomFont template, InternalResourceResolver resourceResolver) {
+        this.resourceResolver = resourceResolver;
+        this.fontFileURI = template.fontFileURI;
+        this.fontName = template.fontName;
+        this.fullName = template.fullName;
+        this.familyNames = template.familyNames;
+        this.fontSubName = template.fontSubName;
+        this.embedFileURI = template.embedFileURI;
+        this.embedResourceName = template.embedResourceName;
+        this.embeddingMode = template.embeddingMode;
+        this.capHeight = template.capHeight;
+        this.xHeight = template.xHeight;
+        this.ascender = template.ascender;
+        this.descender = template.descender;
+        this.fontBBox = template.fontBBox;
+        this.flags = template.flags;
+        this.weight = template.weight;
+        this.stemV = template.stemV;
+        this.italicAngle = template.italicAngle;
+        this.missingWidth = template.missingWidth;
+        this.fontType = template.fontType;
+        this.firstChar = template.firstChar;
+        this.lastChar = template.lastChar;
+        this.underlinePosition = template.underlinePosition;
+        this.underlineThickness = template.underlineThickness;
+        this.strikeoutPosition = template.strikeoutPosition;
+        this.strikeoutThickness = template.strikeoutThickness;
+        this.kerning = template.kerning;
+        this.useKerning = template.useKerning;
+        this.cmap.addAll(template.cmap);
+        this.svgs = template.svgs;
+        this.useAdvanced = template.useAdvanced;
+        this.simulateStyle = template.simulateStyle;
+        this.unencodedCharacters = template.unencodedCharacters;
+    }
+
 
     /** {@inheritDoc} */
     public URI getFontURI() {
@@ -149,6 +191,18 @@ public abstract class CustomFont extends Typeface
         return embedFileURI;
     }
 
+    /**
+     * Returns the URI of the embeddable font file, resolved against the base URI.
+     *
+     * @return the resolved URI or null if not available.
+     */
+    public URI getResolvedEmbedFileURI() {
+        if (embedFileURI == null || resourceResolver == null) {
+            return null;
+        }
+        return resourceResolver.resolveFromBase(embedFileURI);
+    }
+
     /**
 
      * Returns the embedding mode for this font.
@@ -320,12 +374,18 @@ public abstract class CustomFont extends Typeface
      */
     public final Map<Integer, Map<Integer, Integer>> getKerningInfo() {
         if (hasKerningInfo()) {
-            return kerning;
+            return kerning.toMap();
         } else {
             return Collections.emptyMap();
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public int getKernValue(int first, int second) {
+        return hasKerningInfo() ? kerning.get(first, second) : 0;
+    }
+
     /**
      * Used to determine if advanced typographic features are enabled.
      * By default, this is false, but may be overridden by subclasses.
@@ -510,9 +570,9 @@ public abstract class CustomFont extends Typeface
     /** {@inheritDoc} */
     public void putKerningEntry(Integer key, Map<Integer, Integer> value) {
         if (kerning == null) {
-            kerning = new HashMap<Integer, Map<Integer, Integer>>();
+            kerning = new KerningTable();
         }
-        this.kerning.put(key, value);
+        this.kerning.putAll(key, value);
     }
 
     /**
@@ -522,9 +582,9 @@ public abstract class CustomFont extends Typeface
      */
     public void replaceKerningMap(Map<Integer, Map<Integer, Integer>> kerningMap) {
         if (kerningMap == null) {
-            this.kerning = Collections.emptyMap();
+            this.kerning = new KerningTable(0);
         } else {
-            this.kerning = kerningMap;
+            this.kerning = KerningTable.fromMap(kerningMap);
         }
     }
 
@@ -583,6 +643,38 @@ public abstract class CustomFont extends Typeface
         this.strikeoutThickness = strikeoutThickness;
     }
 
+    /**
+     * Returns the underline position as set, 0 if the font doesn't provide it.
+     * @return the underline position in font units, not scaled to any size
+     */
+    int getRawUnderlinePosition() {
+        return underlinePosition;
+    }
+
+    /**
+     * Returns the underline thickness as set, 0 if the font doesn't provide it.
+     * @return the underline thickness in font units, not scaled to any size
+     */
+    int getRawUnderlineThickness() {
+        return underlineThickness;
+    }
+
+    /**
+     * Returns the strikeout position as set, 0 if the font doesn't provide it.
+     * @return the strikeout position in font units, not scaled to any size
+     */
+    int getRawStrikeoutPosition() {
+        return strikeoutPosition;
+    }
+
+    /**
+     * Returns the strikeout thickness as set, 0 if the font doesn't provide it.
+     * @return the strikeout thickness in font units, not scaled to any size
+     */
+    int getRawStrikeoutThickness() {
+        return strikeoutThickness;
+    }
+
     /**
      * Returns a Map of used Glyphs.
      * @return Map Map of used Glyphs
@@ -117,6 +117,7 @@ public class DefaultFontConfigurator implements FontConfigurator<EmbedFontInfo>
         for (Directory directory : directories) {
             // add fonts found in directory
             FontFileFinder fontFileFinder = new FontFileFinder(directory.isRecursive() ? -1 : 1, listener);
+            fontFileFinder.setParallel(fontManager.isParallelFontDetection());
             List<URL> fontURLList;
             try {
                 fontURLList = fontFileFinder.find(new File(directory.getDirectory()));
@@ -82,6 +82,9 @@ public class Font implements Substitutable, Positionable {
 
     private final FontMetrics metric;
 
+    /** the words measured with this font */
+    private final GlyphMappingCache glyphMappingCache = new GlyphMappingCache();
+
     /**
      * Main constructor
      * @param key key of the font
@@ -104,6 +107,14 @@ public class Font implements Substitutable, Positionable {
         return this.metric;
     }
 
+    /**
+     * Returns the cache of the words measured with this font.
+     * @return the cache
+     */
+    GlyphMappingCache getGlyphMappingCache() {
+        return glyphMappingCache;
+    }
+
     /**
      * Determines whether the font is a multibyte font.
      * @return True if it is multibyte
@@ -204,6 +215,9 @@ public class Font implements Substitutable, Positionable {
             return 0;
         }
 
+        if (metric instanceof Typeface) {
+            return ((Typeface) metric).getKernValue(ch1, ch2) * getFontSize() / 1000;
+        }
         Map<Integer, Integer> kernPair = getKerning().get(ch1);
         if (kernPair != null) {
             Integer width = kernPair.get(ch2);
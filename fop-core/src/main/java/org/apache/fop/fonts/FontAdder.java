@@ -19,9 +19,15 @@
 
 package org.apache.fop.fonts;
 
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.fonts.autodetect.FontInfoFinder;
@@ -59,16 +65,62 @@ public class FontAdder {
         FontInfoFinder finder = new FontInfoFinder();
         finder.setEventListener(listener);
 
+        if (manager.isParallelFontDetection() && fontURLList.size() > 1) {
+            addInParallel(fontURLList, fontInfoList, finder, cache);
+            return;
+        }
         for (URL fontURL : fontURLList) {
             EmbedFontInfo[] embedFontInfos = finder.find(fontURL.toURI(), resourceResolver, cache);
-            if (embedFontInfos == null) {
-                continue;
+            add(embedFontInfos, fontInfoList);
+        }
+    }
+
+    /**
+     * Parses the font files on a thread pool of their own, since parsing blocks on reading the
+     * files. The font infos are added in the order of the font files, as when they're parsed one
+     * after the other.
+     */
+    private void addInParallel(List<URL> fontURLList, List<EmbedFontInfo> fontInfoList,
+            final FontInfoFinder finder, final FontCache cache) throws URISyntaxException {
+        int threads = Math.min(fontURLList.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<EmbedFontInfo[]>> results = new java.util.ArrayList<Future<EmbedFontInfo[]>>();
+            for (URL fontURL : fontURLList) {
+                final URI fontURI = fontURL.toURI();
+                results.add(executor.submit(new Callable<EmbedFontInfo[]>() {
+                    public EmbedFontInfo[] call() {
+                        return finder.find(fontURI, resourceResolver, cache);
+                    }
+                }));
             }
-            for (EmbedFontInfo fontInfo : embedFontInfos) {
-                if (fontInfo != null) {
-                    fontInfoList.add(fontInfo);
+            for (Future<EmbedFontInfo[]> result : results) {
+                try {
+                    add(result.get(), fontInfoList);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                } catch (ExecutionException e) {
+                    // FontInfoFinder reports errors loading a font itself
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    throw new RuntimeException(e.getCause());
                 }
             }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void add(EmbedFontInfo[] embedFontInfos, List<EmbedFontInfo> fontInfoList) {
+        if (embedFontInfos == null) {
+            return;
+        }
+        for (EmbedFontInfo fontInfo : embedFontInfos) {
+            if (fontInfo != null) {
+                fontInfoList.add(fontInfo);
+            }
         }
     }
 }
@@ -20,20 +20,24 @@
 package org.apache.fop.fonts;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.OutputStream;
-import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.CRC32;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -47,13 +51,7 @@ import org.apache.fop.util.LogUtil;
 /**
  * Fop cache (currently only used for font info caching)
  */
-public final class FontCache implements Serializable {
-
-    /**
-     * Serialization Version UID. Change this value if you want to make sure the
-     * user's cache file is purged after an update.
-     */
-    private static final long serialVersionUID = 9129238336422194339L;
+public final class FontCache {
 
     /** logging instance */
     private static Log log = LogFactory.getLog(FontCache.class);
@@ -64,8 +62,20 @@ public final class FontCache implements Serializable {
     /** font cache file path */
     private static final String DEFAULT_CACHE_FILENAME = "fop-fonts.cache";
 
+    /** Cache file signature: "FOPC" */
+    private static final int MAGIC = 0x464F5043;
+
+    /**
+     * Version of the cache file format. Change this value if you want to make sure the
+     * user's cache file is purged after an update.
+     */
+    private static final int VERSION = 2;
+
+    /** Checksum of a font file that couldn't be read */
+    private static final long NO_CHECKSUM = -1;
+
     /** has this cache been changed since it was last read? */
-    private transient boolean changed;
+    private boolean changed;
 
     /** change lock */
     private final boolean[] changeLock = new boolean[1];
@@ -73,21 +83,15 @@ public final class FontCache implements Serializable {
     /**
      * master mapping of font url -&gt; font info. This needs to be a list, since a
      * TTC file may contain more than 1 font.
-     * @serial
      */
     private Map<String, CachedFontFile> fontfileMap;
 
     /**
      * mapping of font url -&gt; file modified date (for all fonts that have failed
      * to load)
-     * @serial
      */
     private Map<String, Long> failedFontMap;
 
-    private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
-        ois.defaultReadObject();
-    }
-
     private static File getUserHome() {
         return toDirectory(System.getProperty("user.home"));
     }
@@ -136,7 +140,7 @@ public final class FontCache implements Serializable {
     /**
      * Reads the default font cache file and returns its contents.
      *
-     * @return the font cache deserialized from the file (or null if no cache
+     * @return the font cache read from the file (or null if no cache
      *         file exists or if it could not be read)
      * @deprecated use {@link #loadFrom(File)} instead
      */
@@ -149,7 +153,7 @@ public final class FontCache implements Serializable {
      *
      * @param cacheFile
      *            the cache file
-     * @return the font cache deserialized from the file (or null if no cache
+     * @return the font cache read from the file (or null if no cache
      *         file exists or if it could not be read)
      */
     public static FontCache loadFrom(File cacheFile) {
@@ -159,18 +163,20 @@ public final class FontCache implements Serializable {
                     log.trace("Loading font cache from "
                             + cacheFile.getCanonicalPath());
                 }
-                InputStream in = new BufferedInputStream(new FileInputStream(cacheFile));
-                ObjectInputStream oin = new ObjectInputStream(in);
+                DataInputStream in = new DataInputStream(
+                        new BufferedInputStream(new FileInputStream(cacheFile)));
                 try {
-                    return (FontCache) oin.readObject();
+                    if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                        // a cache file written by an older FOP version
+                        log.info("Font cache file has an outdated format. Discarding font cache file.");
+                        return null;
+                    }
+                    FontCache cache = new FontCache();
+                    cache.read(in);
+                    return cache;
                 } finally {
-                    IOUtils.closeQuietly(oin);
+                    IOUtils.closeQuietly(in);
                 }
-            } catch (ClassNotFoundException e) {
-                // We don't really care about the exception since it's just a
-                // cache file
-                log.warn("Could not read font cache. Discarding font cache file. Reason: "
-                        + e.getMessage());
             } catch (IOException ioe) {
                 // We don't really care about the exception since it's just a
                 // cache file
@@ -210,13 +216,12 @@ public final class FontCache implements Serializable {
             if (changed) {
                 try {
                     log.trace("Writing font cache to " + cacheFile.getCanonicalPath());
-                    OutputStream out = new java.io.FileOutputStream(cacheFile);
-                    out = new java.io.BufferedOutputStream(out);
-                    ObjectOutputStream oout = new ObjectOutputStream(out);
+                    DataOutputStream out = new DataOutputStream(
+                            new BufferedOutputStream(new FileOutputStream(cacheFile)));
                     try {
-                        oout.writeObject(this);
+                        write(out);
                     } finally {
-                        IOUtils.closeQuietly(oout);
+                        IOUtils.closeQuietly(out);
                     }
                 } catch (IOException ioe) {
                     LogUtil.handleException(log, ioe, true);
@@ -227,6 +232,137 @@ public final class FontCache implements Serializable {
         }
     }
 
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        Map<String, CachedFontFile> fontFiles = getFontFileMap();
+        out.writeInt(fontFiles.size());
+        for (Map.Entry<String, CachedFontFile> entry : fontFiles.entrySet()) {
+            out.writeUTF(entry.getKey());
+            CachedFontFile cachedFontFile = entry.getValue();
+            out.writeLong(cachedFontFile.lastModified());
+            out.writeLong(cachedFontFile.length());
+            out.writeLong(cachedFontFile.checksum());
+            EmbedFontInfo[] fontInfos = cachedFontFile.getEmbedFontInfos();
+            out.writeInt(fontInfos.length);
+            for (EmbedFontInfo fontInfo : fontInfos) {
+                writeFontInfo(out, fontInfo);
+            }
+        }
+        Map<String, Long> failedFonts = getFailedFontMap();
+        out.writeInt(failedFonts.size());
+        for (Map.Entry<String, Long> entry : failedFonts.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        out.flush();
+    }
+
+    private void read(DataInputStream in) throws IOException {
+        int fileCount = in.readInt();
+        for (int i = 0; i < fileCount; i++) {
+            String key = in.readUTF();
+            CachedFontFile cachedFontFile = new CachedFontFile(in.readLong(), in.readLong(),
+                    in.readLong());
+            int fontCount = in.readInt();
+            for (int j = 0; j < fontCount; j++) {
+                cachedFontFile.put(readFontInfo(in));
+            }
+            getFontFileMap().put(key, cachedFontFile);
+        }
+        int failedCount = in.readInt();
+        for (int i = 0; i < failedCount; i++) {
+            String key = in.readUTF();
+            getFailedFontMap().put(key, in.readLong());
+        }
+    }
+
+    private static void writeFontInfo(DataOutputStream out, EmbedFontInfo fontInfo)
+            throws IOException {
+        FontUris fontUris = fontInfo.getFontUris();
+        writeURI(out, fontUris.getEmbed());
+        writeURI(out, fontUris.getMetrics());
+        writeURI(out, fontUris.getAfm());
+        writeURI(out, fontUris.getPfm());
+        out.writeBoolean(fontInfo.getKerning());
+        out.writeBoolean(fontInfo.getAdvanced());
+        EncodingMode encodingMode = fontInfo.getEncodingMode();
+        writeString(out, encodingMode != null ? encodingMode.getName() : null);
+        EmbeddingMode embeddingMode = fontInfo.getEmbeddingMode();
+        writeString(out, embeddingMode != null ? embeddingMode.getName() : null);
+        out.writeBoolean(fontInfo.getSimulateStyle());
+        out.writeBoolean(fontInfo.getEmbedAsType1());
+        out.writeBoolean(fontInfo.getUseSVG());
+        out.writeBoolean(fontInfo.isLazyLoad());
+        writeString(out, fontInfo.getPostScriptName());
+        writeString(out, fontInfo.getSubFontName());
+        List<FontTriplet> triplets = fontInfo.getFontTriplets();
+        out.writeInt(triplets != null ? triplets.size() : -1);
+        if (triplets != null) {
+            for (FontTriplet triplet : triplets) {
+                writeString(out, triplet.getName());
+                writeString(out, triplet.getStyle());
+                out.writeInt(triplet.getWeight());
+                out.writeInt(triplet.getPriority());
+            }
+        }
+    }
+
+    private static EmbedFontInfo readFontInfo(DataInputStream in) throws IOException {
+        FontUris fontUris = new FontUris(readURI(in), readURI(in), readURI(in), readURI(in));
+        boolean kerning = in.readBoolean();
+        boolean advanced = in.readBoolean();
+        String encodingMode = readString(in);
+        String embeddingMode = readString(in);
+        boolean simulateStyle = in.readBoolean();
+        boolean embedAsType1 = in.readBoolean();
+        boolean useSVG = in.readBoolean();
+        boolean lazyLoad = in.readBoolean();
+        String postScriptName = readString(in);
+        String subFontName = readString(in);
+        int tripletCount = in.readInt();
+        List<FontTriplet> triplets = null;
+        if (tripletCount >= 0) {
+            triplets = new ArrayList<FontTriplet>(tripletCount);
+            for (int i = 0; i < tripletCount; i++) {
+                triplets.add(new FontTriplet(readString(in), readString(in), in.readInt(), in.readInt()));
+            }
+        }
+        EmbedFontInfo fontInfo = new EmbedFontInfo(fontUris, kerning, advanced, triplets, subFontName,
+                encodingMode != null ? EncodingMode.getValue(encodingMode) : null,
+                embeddingMode != null ? EmbeddingMode.getValue(embeddingMode) : null,
+                simulateStyle, embedAsType1, useSVG, lazyLoad);
+        fontInfo.setPostScriptName(postScriptName);
+        return fontInfo;
+    }
+
+    private static void writeURI(DataOutputStream out, URI uri) throws IOException {
+        writeString(out, uri != null ? uri.toString() : null);
+    }
+
+    private static URI readURI(DataInputStream in) throws IOException {
+        String uri = readString(in);
+        if (uri == null) {
+            return null;
+        }
+        try {
+            return new URI(uri);
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid font URI in font cache: " + uri);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
     /**
      * creates a key given a font info for the font mapping
      *
@@ -260,7 +396,9 @@ public final class FontCache implements Serializable {
      * @return boolean
      */
     public boolean containsFont(String embedUrl) {
-        return (embedUrl != null && getFontFileMap().containsKey(embedUrl));
+        synchronized (changeLock) {
+            return (embedUrl != null && getFontFileMap().containsKey(embedUrl));
+        }
     }
 
     /**
@@ -271,8 +409,10 @@ public final class FontCache implements Serializable {
      * @return font
      */
     public boolean containsFont(EmbedFontInfo fontInfo) {
-        return (fontInfo != null && getFontFileMap().containsKey(
-                getCacheKey(fontInfo)));
+        synchronized (changeLock) {
+            return (fontInfo != null && getFontFileMap().containsKey(
+                    getCacheKey(fontInfo)));
+        }
     }
 
     /**
@@ -331,8 +471,13 @@ public final class FontCache implements Serializable {
             } else {
                 // try and determine modified date
                 URI fontUri = resourceResolver.resolveFromBase(fontInfo.getEmbedURI());
-                long lastModified = getLastModified(fontUri);
-                cachedFontFile = new CachedFontFile(lastModified);
+                File fontFile = toFile(fontUri);
+                if (fontFile != null) {
+                    cachedFontFile = new CachedFontFile(fontFile.lastModified(), fontFile.length(),
+                            getChecksum(fontFile));
+                } else {
+                    cachedFontFile = new CachedFontFile(getLastModified(fontUri), -1, NO_CHECKSUM);
+                }
                 if (log.isTraceEnabled()) {
                     log.trace("Font added to cache: " + cacheKey);
                 }
@@ -351,7 +496,9 @@ public final class FontCache implements Serializable {
      * @return CachedFontFile object
      */
     public CachedFontFile getFontFile(String embedUrl) {
-        return containsFont(embedUrl) ? getFontFileMap().get(embedUrl) : null;
+        synchronized (changeLock) {
+            return containsFont(embedUrl) ? getFontFileMap().get(embedUrl) : null;
+        }
     }
 
     /**
@@ -367,10 +514,53 @@ public final class FontCache implements Serializable {
      *         if it is outdated
      */
     public EmbedFontInfo[] getFontInfos(String embedUrl, long lastModified) {
-        CachedFontFile cff = getFontFile(embedUrl);
-        if (cff.lastModified() == lastModified) {
-            return cff.getEmbedFontInfos();
-        } else {
+        synchronized (changeLock) {
+            CachedFontFile cff = getFontFile(embedUrl);
+            if (cff.lastModified() == lastModified) {
+                return cff.getEmbedFontInfos();
+            } else {
+                removeFont(embedUrl);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Returns the EmbedFontInfo instances belonging to a font file, if the font file hasn't
+     * changed since it was cached. A local font file is taken to be unchanged if its size and
+     * modification date are the same, or if only its modification date differs but its contents
+     * have the same checksum, as happens when fonts are copied or reinstalled. If the font file
+     * has changed, the entry is removed and null is returned.
+     *
+     * @param embedUrl
+     *            the font URL
+     * @param fontUri
+     *            the resolved URI of the font file
+     * @return the EmbedFontInfo instances or null if there's no cached entry or
+     *         if it is outdated
+     */
+    public EmbedFontInfo[] getFontInfos(String embedUrl, URI fontUri) {
+        synchronized (changeLock) {
+            CachedFontFile cff = getFontFile(embedUrl);
+            if (cff == null) {
+                return null;
+            }
+            File fontFile = toFile(fontUri);
+            if (fontFile == null) {
+                return getFontInfos(embedUrl, getLastModified(fontUri));
+            }
+            long lastModified = fontFile.lastModified();
+            if (fontFile.length() == cff.length()) {
+                // the checksum is only computed if the modification date differs
+                if (lastModified == cff.lastModified()
+                        || (cff.checksum() != NO_CHECKSUM && cff.checksum() == getChecksum(fontFile))) {
+                    if (cff.lastModified() != lastModified) {
+                        cff.setLastModified(lastModified);
+                        changed = true;
+                    }
+                    return cff.getEmbedFontInfos();
+                }
+            }
             removeFont(embedUrl);
             return null;
         }
@@ -466,6 +656,10 @@ public final class FontCache implements Serializable {
      * @return the last modified date/time
      */
     public static long getLastModified(URI uri) {
+        File file = toFile(uri);
+        if (file != null) {
+            return file.lastModified();
+        }
         try {
             URL url = uri.toURL();
             URLConnection conn = url.openConnection();
@@ -483,16 +677,53 @@ public final class FontCache implements Serializable {
         }
     }
 
-    private static class CachedFontFile implements Serializable {
-        private static final long serialVersionUID = 4524237324330578883L;
+    private static File toFile(URI uri) {
+        if (!"file".equals(uri.getScheme())) {
+            return null;
+        }
+        try {
+            return new File(uri);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long getChecksum(File file) {
+        CRC32 crc = new CRC32();
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            byte[] buf = new byte[65536];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                crc.update(buf, 0, n);
+            }
+            return crc.getValue();
+        } catch (IOException e) {
+            log.debug("IOError: " + e.getMessage());
+            return NO_CHECKSUM;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private static class CachedFontFile {
 
         /** file modify date (if available) */
         private long lastModified = -1;
 
+        /** file size (if available) */
+        private final long length;
+
+        /** CRC-32 of the file contents (if available) */
+        private final long checksum;
+
         private Map<String, EmbedFontInfo> filefontsMap;
 
-        public CachedFontFile(long lastModified) {
+        public CachedFontFile(long lastModified, long length, long checksum) {
             setLastModified(lastModified);
+            this.length = length;
+            this.checksum = checksum;
         }
 
         private Map<String, EmbedFontInfo> getFileFontsMap() {
@@ -536,11 +767,29 @@ public final class FontCache implements Serializable {
             this.lastModified = lastModified;
         }
 
+        /**
+         * Gets the size of the font file (not always available)
+         *
+         * @return the size, or -1
+         */
+        public long length() {
+            return this.length;
+        }
+
+        /**
+         * Gets the CRC-32 of the font file contents (not always available)
+         *
+         * @return the checksum, or -1
+         */
+        public long checksum() {
+            return this.checksum;
+        }
+
         /**
          * @return string representation of this object {@inheritDoc}
          */
         public String toString() {
-            return super.toString() + ", lastModified=" + lastModified;
+            return super.toString() + ", lastModified=" + lastModified + ", length=" + length;
         }
 
     }
@@ -47,6 +47,12 @@ public interface FontCacheManager {
      */
     void save() throws FOPException;
 
+    /**
+     * Returns the store for the metrics of the fonts that have been loaded.
+     * @return the font metrics store, or null if font metrics are not stored
+     */
+    FontMetricsStore getMetricsStore();
+
     /**
      * Deletes the font cache from the file-system.
      * @throws FOPException if an error occurs deleting the font cache
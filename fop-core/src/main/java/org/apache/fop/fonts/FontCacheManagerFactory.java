@@ -30,6 +30,9 @@ import org.apache.fop.apps.FOPException;
  */
 public final class FontCacheManagerFactory {
 
+    /** Name of the directory next to the font cache file that holds the font metrics records */
+    private static final String METRICS_DIRECTORY = "fop-font-metrics";
+
     private FontCacheManagerFactory() {
     }
 
@@ -56,6 +59,8 @@ public final class FontCacheManagerFactory {
 
         private FontCache fontCache;
 
+        private FontMetricsStore metricsStore;
+
         public FontCache load() {
             if (fontCache == null) {
                 fontCache = FontCache.loadFrom(getCacheFile(false));
@@ -72,7 +77,16 @@ public final class FontCacheManagerFactory {
             }
         }
 
+        public FontMetricsStore getMetricsStore() {
+            if (metricsStore == null) {
+                File dir = getCacheFile(false).getAbsoluteFile().getParentFile();
+                metricsStore = new FontMetricsStore(new File(dir, METRICS_DIRECTORY));
+            }
+            return metricsStore;
+        }
+
         public void delete() throws FOPException {
+            getMetricsStore().clear();
             if (!getCacheFile(true).delete()) {
                 throw new FOPException("Failed to flush the font cache file '" + cacheFile + "'.");
             }
@@ -87,6 +101,7 @@ public final class FontCacheManagerFactory {
 
         public void setCacheFile(URI fontCacheURI) {
             cacheFile = new File(fontCacheURI);
+            metricsStore = null;
         }
     }
 
@@ -100,6 +115,10 @@ public final class FontCacheManagerFactory {
             // nop
         }
 
+        public FontMetricsStore getMetricsStore() {
+            return null;
+        }
+
         public void delete() throws FOPException {
             throw new FOPException("Font Cache disabled");
         }
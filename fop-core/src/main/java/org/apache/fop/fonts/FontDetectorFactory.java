@@ -91,6 +91,7 @@ public final class FontDetectorFactory {
                 // search in font base if it is defined and
                 // is a directory but don't recurse
                 FontFileFinder fontFileFinder = new FontFileFinder(eventListener);
+                fontFileFinder.setParallel(fontManager.isParallelFontDetection());
                 URI fontBaseURI = fontManager.getResourceResolver().getBaseURI();
                 URL url = null;
                 try {
@@ -49,9 +49,18 @@ public class FontManager {
     /** Allows enabling kerning on the base 14 fonts, default is false */
     private boolean enableBase14Kerning;
 
+    /** Whether font files are searched for and parsed in parallel, default is false */
+    private boolean parallelFontDetection;
+
     /** FontTriplet matcher for fonts that shall be referenced rather than embedded. */
     private FontTriplet.Matcher referencedFontsMatcher;
 
+    /** Whether parsed fonts are shared by all documents, default is false */
+    private boolean fontSharing;
+
+    /** Parsed fonts shared by all documents, created once font sharing is used */
+    private FontRegistry fontRegistry;
+
     /**
      * Main constructor
      *
@@ -70,8 +79,10 @@ public class FontManager {
      * Sets the font resource resolver
      * @param resourceResolver resource resolver
      */
-    public void setResourceResolver(InternalResourceResolver resourceResolver) {
+    public synchronized void setResourceResolver(InternalResourceResolver resourceResolver) {
         this.resourceResolver = resourceResolver;
+        //the shared fonts are loaded with the font resource resolver
+        this.fontRegistry = null;
     }
 
     public InternalResourceResolver getResourceResolver() {
@@ -91,6 +102,36 @@ public class FontManager {
         this.enableBase14Kerning = value;
     }
 
+    /** @return true if font files are searched for and parsed in parallel */
+    public boolean isParallelFontDetection() {
+        return this.parallelFontDetection;
+    }
+
+    /**
+     * Controls whether font directories are searched, and the font files found parsed, in
+     * parallel on pools of their own, rather than one after the other.
+     * @param value true if fonts should be detected in parallel
+     */
+    public void setParallelFontDetection(boolean value) {
+        this.parallelFontDetection = value;
+    }
+
+    /** @return true if parsed fonts are shared by all documents */
+    public boolean isFontSharingEnabled() {
+        return this.fontSharing;
+    }
+
+    /**
+     * Controls whether parsed TrueType and OpenType fonts with multi-byte encoding are shared by
+     * all documents rendered with this font manager, rather than parsed for each document. A
+     * shared font is built from the font metrics store if it has a record for the font, and its
+     * OpenType layout tables are only read once the first document needs them.
+     * @param value true if fonts should be shared
+     */
+    public void setFontSharingEnabled(boolean value) {
+        this.fontSharing = value;
+    }
+
     /**
      * Sets the font substitutions
      * @param substitutions font substitutions
@@ -150,6 +191,20 @@ public class FontManager {
         fontCacheManager.delete();
     }
 
+    /**
+     * Returns the registry of the parsed fonts that are shared by all documents.
+     * @return the font registry, or null if font sharing is disabled
+     */
+    public synchronized FontRegistry getFontRegistry() {
+        if (!fontSharing) {
+            return null;
+        }
+        if (fontRegistry == null) {
+            fontRegistry = new FontRegistry(resourceResolver);
+        }
+        return fontRegistry;
+    }
+
     /**
      * Sets up the fonts on a given FontInfo object. The fonts to setup are defined by an
      * array of {@link FontCollection} objects.
@@ -162,6 +217,14 @@ public class FontManager {
         for (FontCollection fontCollection : fontCollections) {
             startNum = fontCollection.setup(startNum, fontInfo);
         }
+        FontMetricsStore metricsStore = fontCacheManager.getMetricsStore();
+        FontRegistry registry = getFontRegistry();
+        for (Typeface font : fontInfo.getFonts().values()) {
+            if (font instanceof LazyFont) {
+                ((LazyFont) font).setMetricsStore(metricsStore);
+                ((LazyFont) font).setFontRegistry(registry);
+            }
+        }
         // Make any defined substitutions in the font info
         getFontSubstitutions().adjustFontInfo(fontInfo);
     }
@@ -115,6 +115,21 @@ public class FontManagerConfigurator {
                 LogUtil.handleException(log, e, true);
             }
         }
+        if (cfg.getChild("parallel-font-detection", false) != null) {
+            try {
+                fontManager.setParallelFontDetection(
+                        cfg.getChild("parallel-font-detection").getValueAsBoolean());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, true);
+            }
+        }
+        if (cfg.getChild("share-fonts", false) != null) {
+            try {
+                fontManager.setFontSharingEnabled(cfg.getChild("share-fonts").getValueAsBoolean());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, true);
+            }
+        }
 
         // global font configuration
         Configuration fontsCfg = cfg.getChild("fonts", false);
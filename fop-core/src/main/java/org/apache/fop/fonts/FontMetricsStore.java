@@ -0,0 +1,541 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.awt.Rectangle;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.fonts.truetype.OpenFont.PostScriptVersion;
+
+/**
+ * Persistent store for the metrics of TrueType and OpenType fonts. Once a font has been parsed,
+ * its names, global metrics, glyph widths and bounding boxes, character map and kerning pairs
+ * are written to a small binary file, so that later runs (in this or another JVM) can build the
+ * {@link MultiByteFont} or {@link SingleByteFont} without reading the font file again. The
+ * records are memory-mapped when read.
+ * <p>
+ * Records are keyed by a digest of the font file's URI, size and modification date together with
+ * the options the font was loaded with, so a changed font file simply stops matching its old
+ * record. The OpenType layout tables (GDEF, GSUB, GPOS) are not stored: a record only notes which
+ * of them the font has, so that they can be read from the font file if and when they are needed.
+ */
+public final class FontMetricsStore {
+
+    /** logging instance */
+    private static Log log = LogFactory.getLog(FontMetricsStore.class);
+
+    /** Record signature: "FOPM" */
+    private static final int MAGIC = 0x464F504D;
+
+    /** Version of the record format. Change this value when the format changes. */
+    private static final int VERSION = 1;
+
+    private static final String SUFFIX = ".metrics";
+
+    private static final byte MULTI_BYTE = 1;
+    private static final byte SINGLE_BYTE = 2;
+
+    /** Layout table flags */
+    private static final int GDEF = 1;
+    private static final int GSUB = 2;
+    private static final int GPOS = 4;
+
+    private final File directory;
+
+    /**
+     * Creates a store that keeps its records in the given directory.
+     * @param directory the directory (created when the first record is written)
+     */
+    public FontMetricsStore(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the directory the records are kept in.
+     * @return the directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * A font built from a stored record.
+     */
+    public static final class StoredFont {
+
+        private final CustomFont font;
+        private final boolean layoutTables;
+
+        private StoredFont(CustomFont font, boolean layoutTables) {
+            this.font = font;
+            this.layoutTables = layoutTables;
+        }
+
+        /**
+         * Returns the font.
+         * @return the font
+         */
+        public CustomFont getFont() {
+            return font;
+        }
+
+        /**
+         * Indicates whether the font file has OpenType layout tables which have not been
+         * attached to the font.
+         * @return true if the layout tables still need to be read from the font file
+         */
+        public boolean hasLayoutTables() {
+            return layoutTables;
+        }
+    }
+
+    /**
+     * Builds a font from its stored record.
+     * @param fontURI the resolved URI of the font file
+     * @param options a string identifying the options the font is loaded with
+     * @param resourceResolver the resource resolver the font is built with
+     * @return the font, or null if there is no up-to-date record for the font
+     */
+    public StoredFont load(URI fontURI, String options, InternalResourceResolver resourceResolver) {
+        File recordFile = getRecordFile(fontURI, options);
+        if (recordFile == null || !recordFile.isFile()) {
+            return null;
+        }
+        try {
+            RandomAccessFile raf = new RandomAccessFile(recordFile, "r");
+            try {
+                FileChannel channel = raf.getChannel();
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                return readRecord(buffer, resourceResolver);
+            } finally {
+                IOUtils.closeQuietly(raf);
+            }
+        } catch (IOException ioe) {
+            discard(recordFile, ioe.getMessage());
+        } catch (BufferUnderflowException bue) {
+            discard(recordFile, "truncated record");
+        } catch (RuntimeException re) {
+            discard(recordFile, re.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Writes the record for a font that has just been loaded from its font file. Nothing is
+     * written if there already is a record for the font file in its current state, or if the
+     * font cannot be represented by a record.
+     * @param fontURI the resolved URI of the font file
+     * @param options a string identifying the options the font was loaded with
+     * @param font the font
+     */
+    public void save(URI fontURI, String options, CustomFont font) {
+        if (!isStorable(font)) {
+            return;
+        }
+        File recordFile = getRecordFile(fontURI, options);
+        if (recordFile == null || recordFile.isFile()) {
+            return;
+        }
+        File tempFile = null;
+        try {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream(8192);
+            writeRecord(new DataOutputStream(bout), font);
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                log.debug("Cannot create font metrics directory " + directory);
+                return;
+            }
+            //write to a temporary file first so concurrent readers never see a partial record
+            tempFile = File.createTempFile("fop", ".tmp", directory);
+            OutputStream out = new FileOutputStream(tempFile);
+            try {
+                bout.writeTo(out);
+            } finally {
+                IOUtils.closeQuietly(out);
+            }
+            if (!tempFile.renameTo(recordFile)) {
+                recordFile.delete();
+                if (!tempFile.renameTo(recordFile)) {
+                    log.debug("Cannot write font metrics record " + recordFile);
+                }
+            }
+            if (log.isTraceEnabled()) {
+                log.trace("Font metrics stored for " + fontURI);
+            }
+        } catch (IOException ioe) {
+            log.debug("I/O exception while writing font metrics for " + fontURI + ": "
+                    + ioe.getMessage());
+        } finally {
+            if (tempFile != null && tempFile.exists()) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Deletes all records.
+     */
+    public void clear() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(SUFFIX)) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private static boolean isStorable(CustomFont font) {
+        if (font.hasSVG()) {
+            return false;
+        }
+        if (font.getClass() == MultiByteFont.class) {
+            return true;
+        }
+        //Type 1 fonts are set up from their AFM/PFM files, which are cheap to read
+        return font.getClass() == SingleByteFont.class && font.getFontType() == FontType.TRUETYPE;
+    }
+
+    private File getRecordFile(URI fontURI, String options) {
+        if (fontURI == null || !"file".equals(fontURI.getScheme())) {
+            return null;
+        }
+        File fontFile;
+        try {
+            fontFile = new File(fontURI);
+        } catch (IllegalArgumentException iae) {
+            return null;
+        }
+        if (!fontFile.isFile()) {
+            return null;
+        }
+        String key = fontURI.toASCIIString() + '\n' + fontFile.length() + '\n'
+                + fontFile.lastModified() + '\n' + options;
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            byte[] digest = md.digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2 + SUFFIX.length());
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16));
+                name.append(Character.forDigit(b & 0xF, 16));
+            }
+            return new File(directory, name.append(SUFFIX).toString());
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    private void discard(File recordFile, String reason) {
+        log.warn("Discarding font metrics record " + recordFile.getName() + " (" + reason + ")");
+        recordFile.delete();
+    }
+
+    private static void writeRecord(DataOutputStream out, CustomFont font) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        boolean multiByte = font instanceof MultiByteFont;
+        out.writeByte(multiByte ? MULTI_BYTE : SINGLE_BYTE);
+        writeString(out, font.getFontType().getName());
+        writeString(out, font.getEmbeddingMode().getName());
+        writeString(out, font.getFontURI() != null ? font.getFontURI().toASCIIString() : null);
+        writeString(out, font.getEmbedFileURI() != null ? font.getEmbedFileURI().toASCIIString() : null);
+        writeString(out, font.getFontName());
+        writeString(out, font.getFullName());
+        Set<String> familyNames = font.getFamilyNames();
+        out.writeInt(familyNames.size());
+        for (String familyName : familyNames) {
+            writeString(out, familyName);
+        }
+        writeString(out, font.getFontSubName());
+        out.writeInt(font.getCapHeight());
+        out.writeInt(font.getXHeight(1));
+        out.writeInt(font.getAscender());
+        out.writeInt(font.getDescender());
+        int[] bbox = font.getFontBBox();
+        for (int i = 0; i < 4; i++) {
+            out.writeInt(bbox[i]);
+        }
+        out.writeInt(font.getRawUnderlinePosition());
+        out.writeInt(font.getRawUnderlineThickness());
+        out.writeInt(font.getRawStrikeoutPosition());
+        out.writeInt(font.getRawStrikeoutThickness());
+        out.writeInt(font.getFlags());
+        out.writeInt(font.getStemV());
+        out.writeInt(font.getItalicAngle());
+        out.writeInt(font.getMissingWidth());
+        out.writeInt(font.getWeight());
+        out.writeInt(font.getFirstChar());
+        out.writeInt(font.getLastChar());
+
+        CMapSegment[] cmap = font.getCMap();
+        out.writeInt(cmap.length);
+        for (CMapSegment segment : cmap) {
+            out.writeInt(segment.getUnicodeStart());
+            out.writeInt(segment.getUnicodeEnd());
+            out.writeInt(segment.getGlyphStartIndex());
+        }
+
+        Map<Integer, Map<Integer, Integer>> kerning = font.getKerningInfo();
+        out.writeInt(kerning.size());
+        for (Map.Entry<Integer, Map<Integer, Integer>> first : kerning.entrySet()) {
+            out.writeInt(first.getKey());
+            out.writeInt(first.getValue().size());
+            for (Map.Entry<Integer, Integer> second : first.getValue().entrySet()) {
+                out.writeInt(second.getKey());
+                out.writeInt(second.getValue());
+            }
+        }
+
+        Map<Character, SingleByteFont.UnencodedCharacter> unencoded = font.unencodedCharacters;
+        out.writeInt(unencoded != null ? unencoded.size() : 0);
+        if (unencoded != null) {
+            for (SingleByteFont.UnencodedCharacter uc : unencoded.values()) {
+                writeString(out, uc.getCharacter().getName());
+                writeString(out, uc.getCharacter().getUnicodeSequence());
+                out.writeInt(uc.getWidth());
+                writeRectangle(out, uc.getBBox());
+            }
+        }
+
+        if (multiByte) {
+            MultiByteFont mbf = (MultiByteFont) font;
+            writeString(out, mbf.getCIDType().getName());
+            out.writeBoolean(mbf.isOTFFile());
+            writeString(out, mbf.getTTCName());
+            out.writeInt(mbf.getDefaultWidth());
+            int layoutTables = (mbf.getGDEF() != null ? GDEF : 0)
+                    | (mbf.getGSUB() != null ? GSUB : 0)
+                    | (mbf.getGPOS() != null ? GPOS : 0);
+            out.writeByte(layoutTables);
+            writeWidths(out, mbf.width);
+            Rectangle[] bboxes = mbf.boundingBoxes;
+            out.writeInt(bboxes != null ? bboxes.length : -1);
+            if (bboxes != null) {
+                for (Rectangle r : bboxes) {
+                    writeRectangle(out, r);
+                }
+            }
+        } else {
+            SingleByteFont sbf = (SingleByteFont) font;
+            writeString(out, sbf.getEncodingName());
+            PostScriptVersion version = sbf.getTrueTypePostScriptVersion();
+            writeString(out, version != null ? version.name() : null);
+            writeWidths(out, sbf.width);
+            for (int i = font.getFirstChar(); i <= font.getLastChar(); i++) {
+                writeRectangle(out, sbf.getBoundingBox(i, 1));
+            }
+        }
+        out.flush();
+    }
+
+    private static StoredFont readRecord(ByteBuffer in, InternalResourceResolver resourceResolver)
+            throws IOException {
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+            throw new IOException("unsupported record format");
+        }
+        byte kind = in.get();
+        FontType fontType = FontType.byName(readString(in));
+        EmbeddingMode embeddingMode = EmbeddingMode.getValue(readString(in));
+        String fontURI = readString(in);
+        String embedURI = readString(in);
+        CustomFont font;
+        MultiByteFont multiFont = null;
+        SingleByteFont singleFont = null;
+        if (kind == MULTI_BYTE) {
+            multiFont = new MultiByteFont(resourceResolver, embeddingMode);
+            font = multiFont;
+        } else if (kind == SINGLE_BYTE) {
+            singleFont = new SingleByteFont(resourceResolver, embeddingMode);
+            font = singleFont;
+        } else {
+            throw new IOException("unknown font kind " + kind);
+        }
+        font.setFontType(fontType);
+        font.setFontURI(fontURI != null ? URI.create(fontURI) : null);
+        if (embedURI != null) {
+            font.setEmbedURI(URI.create(embedURI));
+        }
+        font.setFontName(readString(in));
+        font.setFullName(readString(in));
+        int familyCount = in.getInt();
+        Set<String> familyNames = new LinkedHashSet<String>(familyCount);
+        for (int i = 0; i < familyCount; i++) {
+            familyNames.add(readString(in));
+        }
+        font.setFamilyNames(familyNames);
+        font.setFontSubFamilyName(readString(in));
+        font.setCapHeight(in.getInt());
+        font.setXHeight(in.getInt());
+        font.setAscender(in.getInt());
+        font.setDescender(in.getInt());
+        font.setFontBBox(new int[] {in.getInt(), in.getInt(), in.getInt(), in.getInt()});
+        font.setUnderlinePosition(in.getInt());
+        font.setUnderlineThickness(in.getInt());
+        font.setStrikeoutPosition(in.getInt());
+        font.setStrikeoutThickness(in.getInt());
+        font.setFlags(in.getInt());
+        font.setStemV(in.getInt());
+        font.setItalicAngle(in.getInt());
+        font.setMissingWidth(in.getInt());
+        font.setWeight(in.getInt());
+        font.setFirstChar(in.getInt());
+        font.setLastChar(in.getInt());
+
+        int segmentCount = in.getInt();
+        CMapSegment[] cmap = new CMapSegment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            cmap[i] = new CMapSegment(in.getInt(), in.getInt(), in.getInt());
+        }
+        font.setCMap(cmap);
+
+        int kerningCount = in.getInt();
+        for (int i = 0; i < kerningCount; i++) {
+            Integer first = in.getInt();
+            int pairCount = in.getInt();
+            Map<Integer, Integer> pairs = new HashMap<Integer, Integer>(pairCount * 4 / 3 + 1);
+            for (int j = 0; j < pairCount; j++) {
+                int second = in.getInt();
+                pairs.put(second, in.getInt());
+            }
+            font.putKerningEntry(first, pairs);
+        }
+
+        int unencodedCount = in.getInt();
+        for (int i = 0; i < unencodedCount; i++) {
+            NamedCharacter nc = new NamedCharacter(readString(in), readString(in));
+            font.addUnencodedCharacter(nc, in.getInt(), readRectangle(in));
+        }
+
+        boolean layoutTables = false;
+        if (multiFont != null) {
+            multiFont.setCIDType(CIDFontType.byName(readString(in)));
+            multiFont.setIsOTFFile(in.getBoolean());
+            multiFont.setTTCName(readString(in));
+            multiFont.setDefaultWidth(in.getInt());
+            layoutTables = in.get() != 0;
+            multiFont.setWidthArray(readWidths(in));
+            int bboxCount = in.getInt();
+            if (bboxCount >= 0) {
+                Rectangle[] bboxes = new Rectangle[bboxCount];
+                for (int i = 0; i < bboxCount; i++) {
+                    bboxes[i] = readRectangle(in);
+                }
+                multiFont.setBBoxArray(bboxes);
+            }
+        } else {
+            String encoding = readString(in);
+            singleFont.setEncoding(encoding);
+            String version = readString(in);
+            if (version != null) {
+                singleFont.setTrueTypePostScriptVersion(PostScriptVersion.valueOf(version));
+            }
+            int[] widths = readWidths(in);
+            if (widths != null) {
+                singleFont.width = widths;
+            }
+            for (int i = font.getFirstChar(); i <= font.getLastChar(); i++) {
+                Rectangle bbox = readRectangle(in);
+                if (bbox != null) {
+                    singleFont.setBoundingBox(i, bbox);
+                }
+            }
+        }
+        return new StoredFont(font, layoutTables);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeWidths(DataOutputStream out, int[] widths) throws IOException {
+        out.writeInt(widths != null ? widths.length : -1);
+        if (widths != null) {
+            for (int w : widths) {
+                out.writeInt(w);
+            }
+        }
+    }
+
+    private static int[] readWidths(ByteBuffer in) {
+        int count = in.getInt();
+        if (count < 0) {
+            return null;
+        }
+        int[] widths = new int[count];
+        in.asIntBuffer().get(widths);
+        in.position(in.position() + count * 4);
+        return widths;
+    }
+
+    private static void writeRectangle(DataOutputStream out, Rectangle r) throws IOException {
+        out.writeBoolean(r != null);
+        if (r != null) {
+            out.writeInt(r.x);
+            out.writeInt(r.y);
+            out.writeInt(r.width);
+            out.writeInt(r.height);
+        }
+    }
+
+    private static Rectangle readRectangle(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        return new Rectangle(in.getInt(), in.getInt(), in.getInt(), in.getInt());
+    }
+}
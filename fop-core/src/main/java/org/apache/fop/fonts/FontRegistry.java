@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+
+/**
+ * Registry of parsed fonts that is shared by all documents rendered with a {@link FontManager}
+ * (i.e. with one {@link org.apache.fop.apps.FopFactory}) when font sharing is enabled. Each font
+ * file is parsed at most once per set of loading options, even when several documents ask for it
+ * at the same time. Every document gets its own {@link MultiByteFont} instance which shares the
+ * glyph widths, bounding boxes, kerning and OpenType layout tables with the registered font, but
+ * keeps track of its own used glyphs and private use mappings. The subsets of the shared fonts
+ * built for embedding are kept in a {@link FontSubsetCache}, so documents using the same glyphs
+ * don't build them again.
+ * <p>
+ * The registered fonts are loaded with the resource resolver of the registry, never with that
+ * of the document which happened to ask for them first, so they don't keep a document's resolver
+ * alive. If the registered font was built from the {@link FontMetricsStore}, its OpenType layout
+ * tables are read from the font file the first time a document needs them, once for all
+ * documents (see {@link LazyFont}).
+ * <p>
+ * A font file on the local file system is parsed again when its modification time or length
+ * changes. This is checked at most once every few seconds per font. Fonts obtained from other
+ * URIs are only parsed again after {@link #clear()}.
+ * <p>
+ * Only {@link MultiByteFont}s are shared: they are the ones whose parsed form is large (CJK fonts
+ * in particular). Other fonts are loaded for every document, as before.
+ */
+public final class FontRegistry {
+
+    /** logging instance */
+    private static Log log = LogFactory.getLog(FontRegistry.class);
+
+    /** How long a font file is assumed not to have changed after it was checked, in milliseconds */
+    private static final long CHECK_INTERVAL = 5000;
+
+    private final ConcurrentMap<String, Entry> fonts = new ConcurrentHashMap<String, Entry>();
+
+    private final FontSubsetCache subsetCache = new FontSubsetCache();
+
+    private final InternalResourceResolver resourceResolver;
+
+    private final long checkInterval;
+
+    /**
+     * Loads a font from its font file (or from the font metrics store).
+     */
+    public interface Loader {
+
+        /**
+         * Loads the font. The returned font must not refer to resources of a particular
+         * document as it may be shared.
+         * @param resourceResolver the resource resolver to load the font with
+         * @return the font
+         * @throws IOException if the font could not be loaded
+         */
+        CustomFont load(InternalResourceResolver resourceResolver) throws IOException;
+    }
+
+    /**
+     * Creates a registry.
+     * @param resourceResolver the resource resolver the registered fonts are loaded with
+     */
+    public FontRegistry(InternalResourceResolver resourceResolver) {
+        this(resourceResolver, CHECK_INTERVAL);
+    }
+
+    FontRegistry(InternalResourceResolver resourceResolver, long checkInterval) {
+        this.resourceResolver = resourceResolver;
+        this.checkInterval = checkInterval;
+    }
+
+    /**
+     * Returns a font for a document.
+     * @param fontURI the resolved URI of the font file
+     * @param options a string identifying the options the font is loaded with
+     * @param resourceResolver the resource resolver of the document
+     * @param loader loads the font if it hasn't been loaded yet
+     * @return the font
+     * @throws IOException if the font could not be loaded
+     */
+    public CustomFont getFont(URI fontURI, String options, InternalResourceResolver resourceResolver,
+            Loader loader) throws IOException {
+        if (fontURI == null) {
+            return loader.load(resourceResolver);
+        }
+        String key = fontURI.toASCIIString() + '\n' + options;
+        Entry entry = fonts.get(key);
+        String version = null;
+        if (entry == null || entry.isCheckDue(checkInterval)) {
+            version = getVersion(fontURI);
+        }
+        if (entry == null || (version != null && !entry.version.equals(version))) {
+            Entry newEntry = new Entry(version);
+            if (entry == null) {
+                entry = fonts.putIfAbsent(key, newEntry);
+            } else {
+                if (log.isDebugEnabled()) {
+                    log.debug("Font file has changed, parsing it again: " + fontURI);
+                }
+                entry = fonts.replace(key, entry, newEntry) ? null : fonts.get(key);
+            }
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+        return entry.getFont(loader, this.resourceResolver, resourceResolver, subsetCache);
+    }
+
+    /**
+     * Returns a string that changes when the given font file changes: its modification time and
+     * length if it is a local file, an empty string otherwise.
+     */
+    private static String getVersion(URI fontURI) {
+        if ("file".equals(fontURI.getScheme())) {
+            try {
+                File file = new File(fontURI);
+                return file.lastModified() + ":" + file.length();
+            } catch (IllegalArgumentException e) {
+                // not a plain file URI, e.g. one with an authority
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Returns the cache of the subsets of the shared fonts.
+     * @return the subset cache
+     */
+    public FontSubsetCache getSubsetCache() {
+        return subsetCache;
+    }
+
+    /**
+     * Returns the number of fonts that are shared.
+     * @return the number of fonts
+     */
+    public int size() {
+        int size = 0;
+        for (Entry entry : fonts.values()) {
+            if (entry.isShared()) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes all fonts from the registry. Documents that are currently rendered keep using
+     * the fonts they have already obtained.
+     */
+    public void clear() {
+        fonts.clear();
+        subsetCache.clear();
+    }
+
+    private static boolean isShareable(CustomFont font) {
+        return font.getClass() == MultiByteFont.class;
+    }
+
+    private static final class Entry {
+
+        private final String version;
+
+        /* when the font file was last checked for changes */
+        private volatile long checked = System.currentTimeMillis();
+
+        private MultiByteFont template;
+
+        private boolean loaded;
+
+        Entry(String version) {
+            this.version = version;
+        }
+
+        boolean isCheckDue(long checkInterval) {
+            long now = System.currentTimeMillis();
+            if (now - checked < checkInterval) {
+                return false;
+            }
+            checked = now;
+            return true;
+        }
+
+        synchronized CustomFont getFont(Loader loader, InternalResourceResolver registryResolver,
+                InternalResourceResolver documentResolver, FontSubsetCache subsetCache) throws IOException {
+            if (template != null) {
+                return new MultiByteFont(template, documentResolver);
+            }
+            if (loaded) {
+                //not shareable
+                return loader.load(documentResolver);
+            }
+            loaded = true;
+            CustomFont font = loader.load(registryResolver);
+            if (isShareable(font)) {
+                template = (MultiByteFont) font;
+                template.setSubsetCache(subsetCache);
+                if (log.isDebugEnabled()) {
+                    log.debug("Font registered for sharing: " + font.getFontURI());
+                }
+                return new MultiByteFont(template, documentResolver);
+            }
+            return font;
+        }
+
+        synchronized boolean isShared() {
+            return template != null;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of font subsets that is shared by all documents rendered with a {@link FontManager}.
+ * Documents produced from the same template often use the same glyphs of a font, in the same
+ * order, so their subsets are identical and only need to be built once. A subset is looked up
+ * by the font it was built from, the name of the font in a collection and the glyphs it contains
+ * with their indices in the subset.
+ * <p>
+ * The subsets are kept up to a total size; when it is exceeded, the least recently used subsets
+ * are evicted.
+ */
+public final class FontSubsetCache {
+
+    /** The default maximum total size of the cached subsets, in bytes. */
+    public static final long DEFAULT_MAX_SIZE = 32L * 1024 * 1024;
+
+    private final LinkedHashMap<Key, byte[]> subsets = new LinkedHashMap<Key, byte[]>(16, 0.75f, true);
+
+    private long maxSize;
+
+    private long size;
+
+    /**
+     * Creates a cache with the default maximum size.
+     */
+    public FontSubsetCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache.
+     * @param maxSize the maximum total size of the cached subsets, in bytes
+     */
+    public FontSubsetCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns a subset built before.
+     * @param font the font the subset is built from
+     * @param name the name of the font in a collection, may be null
+     * @param glyphs the glyphs of the subset, the original glyph indices mapped to the indices
+     * in the subset
+     * @return the subset, which must not be modified, or null if it's not in the cache
+     */
+    public synchronized byte[] get(Object font, String name, Map<Integer, Integer> glyphs) {
+        return subsets.get(new Key(font, name, glyphs));
+    }
+
+    /**
+     * Adds a subset to the cache, evicting the least recently used subsets if the cache gets
+     * too big.
+     * @param font the font the subset is built from
+     * @param name the name of the font in a collection, may be null
+     * @param glyphs the glyphs of the subset, the original glyph indices mapped to the indices
+     * in the subset
+     * @param subset the subset, which must not be modified afterwards
+     */
+    public synchronized void put(Object font, String name, Map<Integer, Integer> glyphs,
+            byte[] subset) {
+        if (subset.length > maxSize) {
+            return;
+        }
+        byte[] previous = subsets.put(new Key(font, name, glyphs), subset);
+        if (previous != null) {
+            size -= previous.length;
+        }
+        size += subset.length;
+        evict();
+    }
+
+    private void evict() {
+        Iterator<byte[]> iter = subsets.values().iterator();
+        while (size > maxSize && iter.hasNext()) {
+            size -= iter.next().length;
+            iter.remove();
+        }
+    }
+
+    /**
+     * Sets the maximum total size of the cached subsets.
+     * @param maxSize the maximum size, in bytes
+     */
+    public synchronized void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+        evict();
+    }
+
+    /**
+     * Returns the number of subsets in the cache.
+     * @return the number of subsets
+     */
+    public synchronized int size() {
+        return subsets.size();
+    }
+
+    /**
+     * Returns the total size of the subsets in the cache.
+     * @return the size, in bytes
+     */
+    public synchronized long getTotalSize() {
+        return size;
+    }
+
+    /**
+     * Removes all subsets from the cache.
+     */
+    public synchronized void clear() {
+        subsets.clear();
+        size = 0;
+    }
+
+    private static final class Key {
+
+        private final Object font;
+
+        private final String name;
+
+        /* each original glyph index and its index in the subset, packed in a long, sorted */
+        private final long[] glyphs;
+
+        private final int hashCode;
+
+        Key(Object font, String name, Map<Integer, Integer> glyphs) {
+            this.font = font;
+            this.name = name;
+            this.glyphs = new long[glyphs.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> glyph : glyphs.entrySet()) {
+                this.glyphs[i++] = ((long) glyph.getKey() << 32) | (glyph.getValue() & 0xFFFFFFFFL);
+            }
+            Arrays.sort(this.glyphs);
+            this.hashCode = (System.identityHashCode(font) * 31
+                    + (name != null ? name.hashCode() : 0)) * 31 + Arrays.hashCode(this.glyphs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return font == other.font
+                    && (name == null ? other.name == null : name.equals(other.name))
+                    && Arrays.equals(glyphs, other.glyphs);
+        }
+    }
+}
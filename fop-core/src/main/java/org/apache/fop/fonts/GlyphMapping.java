@@ -115,6 +115,21 @@ public class GlyphMapping {
         // 1. extract unmapped character sequence.
         CharSequence ics = text.subSequence(startIndex, endIndex);
 
+        // words mapped before with the same script, language and options are taken
+        // from the cache; associations are specific to each occurrence and aren't cached
+        GlyphMappingCache cache = font.getGlyphMappingCache();
+        String cacheKey = null;
+        if (!retainAssociations) {
+            cacheKey = script + '\u0000' + language + '\u0000' + dontOptimizeForIdentityMapping
+                    + retainControls + '\u0000' + ics;
+            GlyphMappingCache.WordMapping cached = cache.getWordMapping(cacheKey);
+            if (cached != null) {
+                return new GlyphMapping(startIndex, endIndex, 0, nLS, MinOptMax.getInstance(cached.width),
+                        endsWithHyphen, false, breakOpportunityChar != 0, font, level,
+                        cached.getGposAdjustments(), cached.mapping, null);
+            }
+        }
+
         // 2. if script is not specified (by FO property) or it is specified as 'auto',
         // then compute dominant script.
         if ((script == null) || "auto".equals(script)) {
@@ -176,10 +191,13 @@ public class GlyphMapping {
 
         // [TBD] - handle letter spacing
 
+        String mapping = !dontOptimizeForIdentityMapping && CharUtilities.isSameSequence(mcs, ics)
+                ? null : mcs.toString();
+        if (cacheKey != null) {
+            cache.putWordMapping(cacheKey, new GlyphMappingCache.WordMapping(ipd.getOpt(), mapping, gpa));
+        }
         return new GlyphMapping(startIndex, endIndex, 0, nLS, ipd, endsWithHyphen, false,
-                breakOpportunityChar != 0, font, level, gpa,
-                !dontOptimizeForIdentityMapping && CharUtilities.isSameSequence(mcs, ics) ? null : mcs.toString(),
-                associations);
+                breakOpportunityChar != 0, font, level, gpa, mapping, associations);
     }
 
     private static boolean useKerningAdjustments(final Font font, String script, String language) {
@@ -246,28 +264,26 @@ public class GlyphMapping {
         }
 
         CharSequence ics = text.subSequence(startIndex, endIndex);
-        int offset = 0;
-        for (int currentChar : CharUtilities.codepointsIter(ics)) {
-
-            // character width
-            int charWidth = font.getCharWidth(currentChar);
-            wordIPD = wordIPD.plus(charWidth);
+        GlyphMappingCache.WordWidth wordWidth = getWordWidth(ics, font, kerning);
+        wordIPD = wordIPD.plus(wordWidth.width);
 
-            // kerning
-            if (kerning) {
-                int kern = 0;
-                if (offset > 0) {
-                    int previousChar = Character.codePointAt(ics, offset - 1);
-                    kern = font.getKernValue(previousChar, currentChar);
-                } else if (precedingChar != 0) {
-                    kern = font.getKernValue(precedingChar, currentChar);
-                }
+        // kerning
+        if (kerning) {
+            if (precedingChar != 0 && ics.length() > 0) {
+                int kern = font.getKernValue(precedingChar, Character.codePointAt(ics, 0));
                 if (kern != 0) {
-                    addToLetterAdjust(letterSpaceAdjustArray, startIndex + offset, kern);
+                    addToLetterAdjust(letterSpaceAdjustArray, startIndex, kern);
                     wordIPD = wordIPD.plus(kern);
                 }
             }
-            offset++;
+            if (wordWidth.kerning != null) {
+                for (int offset = 1; offset < wordWidth.kerning.length; offset++) {
+                    if (wordWidth.kerning[offset] != 0) {
+                        addToLetterAdjust(letterSpaceAdjustArray, startIndex + offset,
+                                wordWidth.kerning[offset]);
+                    }
+                }
+            }
         }
         if (kerning
                 && (breakOpportunityChar != 0)
@@ -308,6 +324,44 @@ public class GlyphMapping {
                 (breakOpportunityChar != 0) && !isSpace(breakOpportunityChar), font, level, null);
     }
 
+    /**
+     * Returns the width of a word and the kerning between its characters, measuring the word
+     * unless it has already been measured with the same font.
+     */
+    private static GlyphMappingCache.WordWidth getWordWidth(CharSequence ics, Font font, boolean kerning) {
+        String word = ics.toString();
+        GlyphMappingCache cache = font.getGlyphMappingCache();
+        GlyphMappingCache.WordWidth wordWidth = cache.getWordWidth(word);
+        if (wordWidth != null) {
+            return wordWidth;
+        }
+        int width = 0;
+        int[] kernings = null;
+        int offset = 0;
+        for (int currentChar : CharUtilities.codepointsIter(word)) {
+
+            // character width
+            width += font.getCharWidth(currentChar);
+
+            // kerning
+            if (kerning && offset > 0) {
+                int previousChar = Character.codePointAt(word, offset - 1);
+                int kern = font.getKernValue(previousChar, currentChar);
+                if (kern != 0) {
+                    if (kernings == null) {
+                        kernings = new int[word.length()];
+                    }
+                    kernings[offset] = kern;
+                    width += kern;
+                }
+            }
+            offset++;
+        }
+        wordWidth = new GlyphMappingCache.WordWidth(width, kernings);
+        cache.putWordWidth(word, wordWidth);
+        return wordWidth;
+    }
+
     private static void addToLetterAdjust(MinOptMax[] letterSpaceAdjustArray, int index, int width) {
         if (letterSpaceAdjustArray[index] == null) {
             letterSpaceAdjustArray[index] = MinOptMax.getInstance(width);
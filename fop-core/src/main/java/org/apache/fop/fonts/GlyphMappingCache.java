@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the measured words of a {@link Font} (i.e. of a font at a given size), used by
+ * {@link GlyphMapping} so that words occurring several times in a document are measured,
+ * and if needed mapped to glyphs, only once. At most {@link #MAX_WORDS} words are kept, the
+ * least recently used ones are evicted first.
+ */
+final class GlyphMappingCache {
+
+    /** The maximum number of words kept per font */
+    static final int MAX_WORDS = 2000;
+
+    private final Words words = new Words();
+
+    private int hits;
+
+    private int misses;
+
+    /**
+     * Width and kerning of a word which is not mapped to glyphs.
+     */
+    static final class WordWidth {
+
+        /** The width of the word, kerning between its characters included */
+        final int width;
+
+        /** The kerning before each character of the word, or null if there is none */
+        final int[] kerning;
+
+        WordWidth(int width, int[] kerning) {
+            this.width = width;
+            this.kerning = kerning;
+        }
+    }
+
+    /**
+     * Result of mapping a word to glyphs.
+     */
+    static final class WordMapping {
+
+        /** The width of the mapped word */
+        final int width;
+
+        /** The mapped characters, or null if they are the same as the word's */
+        final String mapping;
+
+        /** The glyph position adjustments, or null if there are none */
+        private final int[][] gposAdjustments;
+
+        WordMapping(int width, String mapping, int[][] gposAdjustments) {
+            this.width = width;
+            this.mapping = mapping;
+            this.gposAdjustments = copy(gposAdjustments);
+        }
+
+        /**
+         * Returns a copy of the glyph position adjustments, as users of a {@link GlyphMapping}
+         * may modify them.
+         * @return the glyph position adjustments or null
+         */
+        int[][] getGposAdjustments() {
+            return copy(gposAdjustments);
+        }
+
+        private static int[][] copy(int[][] gpa) {
+            if (gpa == null) {
+                return null;
+            }
+            int[][] copy = new int[gpa.length][];
+            for (int i = 0; i < gpa.length; i++) {
+                copy[i] = gpa[i].clone();
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Returns the width of a word that is not mapped to glyphs.
+     * @param word the word
+     * @return the width or null if the word hasn't been measured yet
+     */
+    WordWidth getWordWidth(String word) {
+        return (WordWidth) get(word);
+    }
+
+    /**
+     * Stores the width of a word that is not mapped to glyphs.
+     * @param word the word
+     * @param width its width
+     */
+    void putWordWidth(String word, WordWidth width) {
+        put(word, width);
+    }
+
+    /**
+     * Returns the result of mapping a word to glyphs.
+     * @param key the word along with the script, language and options used to map it
+     * @return the mapping or null if the word hasn't been mapped yet
+     */
+    WordMapping getWordMapping(String key) {
+        return (WordMapping) get(key);
+    }
+
+    /**
+     * Stores the result of mapping a word to glyphs.
+     * @param key the word along with the script, language and options used to map it
+     * @param mapping the mapping
+     */
+    void putWordMapping(String key, WordMapping mapping) {
+        put(key, mapping);
+    }
+
+    private synchronized Object get(String key) {
+        Object value = words.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    private synchronized void put(String key, Object value) {
+        words.put(key, value);
+    }
+
+    /** @return the number of words found in the cache */
+    synchronized int getHitCount() {
+        return hits;
+    }
+
+    /** @return the number of words that had to be measured */
+    synchronized int getMissCount() {
+        return misses;
+    }
+
+    /** @return the number of words in the cache */
+    synchronized int size() {
+        return words.size();
+    }
+
+    /** The cached words, in least recently used order. */
+    private static final class Words extends LinkedHashMap<String, Object> {
+
+        private static final long serialVersionUID = 6384251326712405537L;
+
+        Words() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+            return size() > MAX_WORDS;
+        }
+    }
+}
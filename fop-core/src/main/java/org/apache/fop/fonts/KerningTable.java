@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The kerning pairs of a font, in an open-addressing hash table keyed by the pair of
+ * characters packed into a long. Compared to nested maps of boxed integers this takes a
+ * fraction of the memory, and looking up a pair allocates nothing.
+ * <p>
+ * The table is filled while the font is loaded and only read afterwards; it is not
+ * synchronized.
+ */
+public final class KerningTable {
+
+    private static final long FREE = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    /* the pairs as nested maps, for getKerningInfo(), created on demand */
+    private volatile Map<Integer, Map<Integer, Integer>> map;
+
+    /**
+     * Creates an empty table.
+     */
+    public KerningTable() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty table with room for the given number of pairs.
+     * @param expectedPairs the number of pairs expected
+     */
+    public KerningTable(int expectedPairs) {
+        int capacity = 16;
+        while (capacity < expectedPairs * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Creates a table holding the pairs of a kerning map.
+     * @param kerning the kerning map, keyed by first and then second character
+     * @return the table
+     */
+    public static KerningTable fromMap(Map<Integer, Map<Integer, Integer>> kerning) {
+        int pairs = 0;
+        for (Map<Integer, Integer> seconds : kerning.values()) {
+            pairs += seconds.size();
+        }
+        KerningTable table = new KerningTable(pairs);
+        for (Map.Entry<Integer, Map<Integer, Integer>> first : kerning.entrySet()) {
+            table.putAll(first.getKey(), first.getValue());
+        }
+        return table;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        values = new int[capacity];
+    }
+
+    private static long key(int first, int second) {
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (keys.length - 1);
+    }
+
+    /**
+     * Sets the kerning of a pair of characters.
+     * @param first the first character
+     * @param second the second character
+     * @param value the kerning value
+     */
+    public void put(int first, int second, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+        long key = key(first, second);
+        int i = slot(key);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                values[i] = value;
+                map = null;
+                return;
+            }
+            i = (i + 1) & (keys.length - 1);
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        map = null;
+    }
+
+    /**
+     * Sets the kerning of the pairs starting with the given character.
+     * @param first the first character
+     * @param seconds the kerning values, keyed by second character
+     */
+    public void putAll(int first, Map<Integer, Integer> seconds) {
+        for (Map.Entry<Integer, Integer> second : seconds.entrySet()) {
+            put(first, second.getKey(), second.getValue());
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != FREE) {
+                int i = slot(oldKeys[j]);
+                while (keys[i] != FREE) {
+                    i = (i + 1) & (keys.length - 1);
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Returns the kerning of a pair of characters.
+     * @param first the first character
+     * @param second the second character
+     * @return the kerning value, 0 if there's no kerning for the pair
+     */
+    public int get(int first, int second) {
+        long key = key(first, second);
+        int i = slot(key);
+        long k;
+        while ((k = keys[i]) != FREE) {
+            if (k == key) {
+                return values[i];
+            }
+            i = (i + 1) & (keys.length - 1);
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the number of pairs in this table.
+     * @return the number of pairs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Indicates whether this table has no pairs.
+     * @return true if there are no pairs
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the pairs of this table as nested maps, keyed by first and then second
+     * character. The maps are created on the first call and cannot be modified.
+     * @return the kerning map
+     */
+    public Map<Integer, Map<Integer, Integer>> toMap() {
+        Map<Integer, Map<Integer, Integer>> result = map;
+        if (result == null) {
+            Map<Integer, Map<Integer, Integer>> kerning = new HashMap<Integer, Map<Integer, Integer>>();
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != FREE) {
+                    Integer first = (int) (keys[i] >> 32);
+                    Map<Integer, Integer> seconds = kerning.get(first);
+                    if (seconds == null) {
+                        seconds = new HashMap<Integer, Integer>();
+                        kerning.put(first, seconds);
+                    }
+                    seconds.put((int) keys[i], values[i]);
+                }
+            }
+            for (Map.Entry<Integer, Map<Integer, Integer>> entry : kerning.entrySet()) {
+                entry.setValue(Collections.unmodifiableMap(entry.getValue()));
+            }
+            result = Collections.unmodifiableMap(kerning);
+            map = result;
+        }
+        return result;
+    }
+}
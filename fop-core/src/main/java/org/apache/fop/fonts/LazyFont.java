@@ -19,6 +19,7 @@
 
 package org.apache.fop.fonts;
 import java.awt.Rectangle;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
@@ -58,6 +59,13 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
     private Typeface realFont;
     private FontDescriptor realFontDescriptor;
 
+    private FontMetricsStore metricsStore;
+    /* cleared once the layout tables have been attached, so that other threads see them */
+    private volatile boolean layoutTablesPending;
+    private FontRegistry fontRegistry;
+    /* a font just parsed from its font file, kept until its metrics have been stored */
+    private CustomFont parsedFont;
+
     /**
      * Main constructor
      * @param fontInfo  the font info to embed
@@ -118,8 +126,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
                     if (fontUris.getEmbed() == null) {
                         throw new RuntimeException("Cannot load font. No font URIs available.");
                     }
-                    realFont = FontLoader.loadFont(fontUris, subFontName, embedded, embeddingMode, encodingMode,
-                            useKerning, useAdvanced, resourceResolver, simulateStyle, embedAsType1, useSVG);
+                    realFont = loadCustomFont();
                 }
                 if (realFont instanceof FontDescriptor) {
                     realFontDescriptor = (FontDescriptor) realFont;
@@ -139,6 +146,138 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         }
     }
 
+    /**
+     * Sets the store the metrics of this font are read from and written to, so that the font file
+     * doesn't have to be parsed again in later runs.
+     * @param metricsStore the font metrics store (may be null)
+     */
+    public void setMetricsStore(FontMetricsStore metricsStore) {
+        this.metricsStore = metricsStore;
+    }
+
+    /**
+     * Sets the registry through which the parsed font is shared with other documents. The
+     * registered font is loaded with the registry's resource resolver, from the URIs of this
+     * font resolved against the base URI of this font's resolver.
+     * @param fontRegistry the font registry (may be null if fonts aren't shared)
+     */
+    public void setFontRegistry(FontRegistry fontRegistry) {
+        this.fontRegistry = fontRegistry;
+    }
+
+    private CustomFont loadCustomFont() throws IOException {
+        CustomFont font;
+        if (fontRegistry == null) {
+            font = loadFontFile(fontUris, resourceResolver);
+        } else {
+            final FontUris resolvedUris = new FontUris(resolve(fontUris.getEmbed()),
+                    resolve(fontUris.getMetrics()), resolve(fontUris.getAfm()), resolve(fontUris.getPfm()));
+            font = fontRegistry.getFont(getResolvedFontURI(), getMetricsOptions(), resourceResolver,
+                    new FontRegistry.Loader() {
+                        public CustomFont load(InternalResourceResolver resolver) throws IOException {
+                            return loadFontFile(resolvedUris, resolver);
+                        }
+                    });
+            font.setSimulateStyle(simulateStyle);
+        }
+        layoutTablesPending = font instanceof MultiByteFont && ((MultiByteFont) font).isLayoutTablesPending();
+        //stored only now so that other documents waiting for the shared font aren't held up
+        if (parsedFont != null) {
+            metricsStore.save(getResolvedFontURI(), getMetricsOptions(), parsedFont);
+            parsedFont = null;
+        }
+        return font;
+    }
+
+    private CustomFont loadFontFile(FontUris uris, InternalResourceResolver resolver) throws IOException {
+        if (metricsStore != null) {
+            FontMetricsStore.StoredFont stored = metricsStore.load(getResolvedFontURI(),
+                    getMetricsOptions(), resolver);
+            if (stored != null) {
+                CustomFont font = stored.getFont();
+                font.setSimulateStyle(simulateStyle);
+                if (log.isDebugEnabled()) {
+                    log.debug("Font metrics for " + fontUris.getEmbed() + " read from the font metrics store");
+                }
+                if (useAdvanced && stored.hasLayoutTables() && font instanceof MultiByteFont) {
+                    ((MultiByteFont) font).setLayoutTablesPending(true);
+                }
+                return font;
+            }
+        }
+        CustomFont font = FontLoader.loadFont(uris, subFontName, embedded, embeddingMode,
+                encodingMode, useKerning, useAdvanced, resolver, simulateStyle,
+                embedAsType1, useSVG);
+        if (metricsStore != null) {
+            parsedFont = font;
+        }
+        return font;
+    }
+
+    /**
+     * Reads the OpenType layout tables of a font that was built from the font metrics store.
+     * They are only read once they are needed for glyph substitution or positioning. A font
+     * shared through the font registry takes them from the registered font, so that they are
+     * read once for all documents.
+     */
+    private void loadLayoutTables() {
+        if (!layoutTablesPending) {
+            return;
+        }
+        synchronized (this) {
+            if (!layoutTablesPending) {
+                return;
+            }
+            MultiByteFont font = (MultiByteFont) realFont;
+            MultiByteFont owner = font.getTemplate() != null ? font.getTemplate() : font;
+            synchronized (owner) {
+                if (owner.isLayoutTablesPending()) {
+                    try {
+                        readLayoutTables(owner);
+                    } catch (IOException ioe) {
+                        log.error("Failed to read the OpenType layout tables of " + fontUris.getEmbed() + " "
+                                + ioe.getMessage(), ioe);
+                    } finally {
+                        owner.setLayoutTablesPending(false);
+                    }
+                }
+            }
+            if (owner != font) {
+                font.setGDEF(owner.getGDEF());
+                font.setGSUB(owner.getGSUB());
+                font.setGPOS(owner.getGPOS());
+                font.setLayoutTablesPending(false);
+            }
+            layoutTablesPending = false;
+        }
+    }
+
+    private void readLayoutTables(MultiByteFont font) throws IOException {
+        CustomFont parsed = FontLoader.loadFont(fontUris, subFontName, embedded, embeddingMode,
+                encodingMode, useKerning, useAdvanced, resourceResolver, simulateStyle,
+                embedAsType1, useSVG);
+        if (parsed instanceof MultiByteFont) {
+            MultiByteFont source = (MultiByteFont) parsed;
+            font.setGDEF(source.getGDEF());
+            font.setGSUB(source.getGSUB());
+            font.setGPOS(source.getGPOS());
+        }
+    }
+
+    private URI getResolvedFontURI() {
+        return resourceResolver.resolveFromBase(fontUris.getEmbed());
+    }
+
+    private URI resolve(URI uri) {
+        return uri != null ? resourceResolver.resolveFromBase(uri) : null;
+    }
+
+    private String getMetricsOptions() {
+        return "sub-font=" + subFontName + ",embedded=" + embedded + ",embedding-mode=" + embeddingMode
+                + ",encoding-mode=" + encodingMode + ",kerning=" + useKerning + ",advanced=" + useAdvanced
+                + ",embed-as-type1=" + embedAsType1 + ",svg=" + useSVG;
+    }
+
     /**
      * Gets the real font.
      * @return the real font
@@ -321,6 +460,13 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         return realFont.getKerningInfo();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public int getKernValue(int first, int second) {
+        load(true);
+        return realFont.getKernValue(first, second);
+    }
+
     /** {@inheritDoc} */
     public boolean hasFeature(int tableType, String script, String language, String feature) {
         load(true);
@@ -409,6 +555,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
      */
     public boolean performsSubstitution() {
         load(true);
+        loadLayoutTables();
         if (realFontDescriptor instanceof Substitutable) {
             return ((Substitutable)realFontDescriptor).performsSubstitution();
         } else {
@@ -422,6 +569,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
     public CharSequence performSubstitution(CharSequence cs, String script, String language, List associations,
                                             boolean retainControls) {
         load(true);
+        loadLayoutTables();
         if (realFontDescriptor instanceof Substitutable) {
             return ((Substitutable)realFontDescriptor).performSubstitution(cs,
                 script, language, associations, retainControls);
@@ -438,6 +586,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         if (!isMetricsLoaded) {
             load(true);
         }
+        loadLayoutTables();
         if (realFontDescriptor instanceof Substitutable) {
             return ((Substitutable)realFontDescriptor)
                 .reorderCombiningMarks(cs, gpa, script, language, associations);
@@ -453,6 +602,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         if (!isMetricsLoaded) {
             load(true);
         }
+        loadLayoutTables();
         if (realFontDescriptor instanceof Positionable) {
             return ((Positionable)realFontDescriptor).performsPositioning();
         } else {
@@ -468,6 +618,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         if (!isMetricsLoaded) {
             load(true);
         }
+        loadLayoutTables();
         if (realFontDescriptor instanceof Positionable) {
             return ((Positionable)realFontDescriptor)
                 .performPositioning(cs, script, language, fontSize);
@@ -484,6 +635,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
         if (!isMetricsLoaded) {
             load(true);
         }
+        loadLayoutTables();
         if (realFontDescriptor instanceof Positionable) {
             return ((Positionable)realFontDescriptor)
                 .performPositioning(cs, script, language);
@@ -26,6 +26,7 @@ import java.nio.CharBuffer;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -82,9 +83,19 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
 
     private boolean isOTFFile;
 
-    // since for most users the most likely glyphs are in the first cmap segments we store their mapping.
-    private static final int NUM_MOST_LIKELY_GLYPHS = 256;
-    private int[] mostLikelyGlyphs = new int[NUM_MOST_LIKELY_GLYPHS];
+    /* index of the character map as loaded, shared with the fonts using this one as template */
+    private volatile CMapIndex cmapIndex;
+
+    /* the private use mappings added to the character map, and their reverse */
+    private Map<Integer, Integer> privateUseGlyphs = new HashMap<Integer, Integer>();
+    private Map<Integer, Integer> privateUseChars = new HashMap<Integer, Integer>();
+
+    /* the subsets of the registered font this one is a copy of, null if it isn't a copy */
+    private FontSubsetCache subsetCache;
+    private MultiByteFont template;
+
+    /* set while the OpenType layout tables of a font built from stored metrics are still to be read */
+    private volatile boolean layoutTablesPending;
 
     //A map to store each used glyph from the CID set against the glyph name.
     private LinkedHashMap<Integer, String> usedGlyphNames = new LinkedHashMap<Integer, String>();
@@ -103,6 +114,60 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
         }
     }
 
+    /**
+     * Creates a font that shares the glyph metrics, character map and OpenType layout tables of
+     * an already loaded font, but keeps track of its own used glyphs. This allows several
+     * documents that are rendered at the same time to use one copy of a large font.
+     * @param template the font to take the metrics from
+     * @param resourceResolver the URI resolver for controlling file access
+     */
+    protected MultiByteFont(MultiByteFont template, InternalResourceResolver resourceResolver) {
+        super(template, resourceResolver);
+        if (getEmbeddingMode() != EmbeddingMode.FULL) {
+            cidSet = new CIDSubset(this);
+        } else {
+            cidSet = new CIDFull(this);
+        }
+        this.ttcName = template.ttcName;
+        this.encoding = template.encoding;
+        this.defaultWidth = template.defaultWidth;
+        this.cidType = template.cidType;
+        //read before the tables: they are set before the flag is cleared
+        this.layoutTablesPending = template.layoutTablesPending;
+        this.gdef = template.gdef;
+        this.gsub = template.gsub;
+        this.gpos = template.gpos;
+        this.boundingBoxes = template.boundingBoxes;
+        this.isOTFFile = template.isOTFFile;
+        this.subsetCache = template.subsetCache;
+        this.template = template;
+        synchronized (template) {
+            this.cmapIndex = template.getCMapIndex();
+            this.privateUseGlyphs.putAll(template.privateUseGlyphs);
+            this.privateUseChars.putAll(template.privateUseChars);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setCMap(CMapSegment[] cmap) {
+        super.setCMap(cmap);
+        synchronized (this) {
+            this.cmapIndex = null;
+            this.privateUseGlyphs.clear();
+            this.privateUseChars.clear();
+        }
+    }
+
+    private CMapIndex getCMapIndex() {
+        CMapIndex index = cmapIndex;
+        if (index == null) {
+            index = new CMapIndex(cmap);
+            cmapIndex = index;
+        }
+        return index;
+    }
+
     /** {@inheritDoc} */
     @Override
     public int getDefaultWidth() {
@@ -220,32 +285,17 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @param c the Unicode character index
      * @return the glyph index (or 0 if the glyph is not available)
      */
-    // [TBD] - needs optimization, i.e., change from linear search to binary search
     public int findGlyphIndex(int c) {
-        int idx = c;
-        int retIdx = SingleByteEncoding.NOT_FOUND_CODE_POINT;
-
-        // for most users the most likely glyphs are in the first cmap segments (meaning the one with
-        // the lowest unicode start values)
-        if (idx < NUM_MOST_LIKELY_GLYPHS && mostLikelyGlyphs[idx] != 0) {
-            return mostLikelyGlyphs[idx];
-        }
-        for (CMapSegment i : cmap) {
-            if (retIdx == 0
-                    && i.getUnicodeStart() <= idx
-                    && i.getUnicodeEnd() >= idx) {
-                retIdx = i.getGlyphStartIndex()
-                    + idx
-                    - i.getUnicodeStart();
-                if (idx < NUM_MOST_LIKELY_GLYPHS) {
-                    mostLikelyGlyphs[idx] = retIdx;
-                }
-                if (retIdx != 0) {
-                    break;
+        int glyphIndex = getCMapIndex().getGlyphIndex(c);
+        if (glyphIndex == SingleByteEncoding.NOT_FOUND_CODE_POINT && !privateUseGlyphs.isEmpty()) {
+            synchronized (this) {
+                Integer gi = privateUseGlyphs.get(c);
+                if (gi != null) {
+                    glyphIndex = gi;
                 }
             }
         }
-        return retIdx;
+        return glyphIndex;
     }
 
     /**
@@ -254,7 +304,12 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      */
     protected synchronized void addPrivateUseMapping(int pu, int gi) {
         assert findGlyphIndex(pu) == SingleByteEncoding.NOT_FOUND_CODE_POINT;
+        getCMapIndex();
         cmap.add(new CMapSegment(pu, pu, gi));
+        privateUseGlyphs.put(pu, gi);
+        if (!privateUseChars.containsKey(gi)) {
+            privateUseChars.put(gi, pu);
+        }
     }
 
     /**
@@ -309,15 +364,14 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @param gi glyph index
      * @return unicode scalar value
      */
-    // [TBD] - needs optimization, i.e., change from linear search to binary search
     private int findCharacterFromGlyphIndex(int gi, boolean augment) {
-        int cc = 0;
-        for (CMapSegment segment : cmap) {
-            int s = segment.getGlyphStartIndex();
-            int e = s + (segment.getUnicodeEnd() - segment.getUnicodeStart());
-            if ((gi >= s) && (gi <= e)) {
-                cc = segment.getUnicodeStart() + (gi - s);
-                break;
+        int cc = getCMapIndex().getCodePoint(gi);
+        if (cc == 0 && !privateUseChars.isEmpty()) {
+            synchronized (this) {
+                Integer pu = privateUseChars.get(gi);
+                if (pu != null) {
+                    cc = pu;
+                }
             }
         }
         if ((cc == 0) && augment) {
@@ -462,6 +516,62 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
         return cidSet.getGlyphs();
     }
 
+    /**
+     * Sets the cache in which the copies of this font keep their subsets.
+     * @param subsetCache the subset cache
+     */
+    void setSubsetCache(FontSubsetCache subsetCache) {
+        this.subsetCache = subsetCache;
+    }
+
+    /**
+     * Returns the registered font this one is a copy of.
+     * @return the template, or null if this font isn't a copy
+     */
+    MultiByteFont getTemplate() {
+        return template;
+    }
+
+    /**
+     * Indicates whether the OpenType layout tables of this font still have to be read from the
+     * font file, because the font was built from the font metrics store.
+     * @return true if the layout tables haven't been read yet
+     */
+    boolean isLayoutTablesPending() {
+        return layoutTablesPending;
+    }
+
+    /**
+     * Marks whether the OpenType layout tables of this font still have to be read.
+     * @param layoutTablesPending true if the layout tables haven't been read yet
+     */
+    void setLayoutTablesPending(boolean layoutTablesPending) {
+        this.layoutTablesPending = layoutTablesPending;
+    }
+
+    /**
+     * Returns a subset of this font with the used glyphs, if another document that uses the
+     * same font with the same glyphs built one before.
+     * @return the subset, which must not be modified, or null
+     */
+    public byte[] getCachedSubset() {
+        if (subsetCache == null || template == null) {
+            return null;
+        }
+        return subsetCache.get(template, ttcName, getUsedGlyphs());
+    }
+
+    /**
+     * Keeps a subset of this font with the used glyphs for other documents that use the same
+     * font. This only has an effect for fonts shared through a {@link FontRegistry}.
+     * @param subset the subset, which must not be modified afterwards
+     */
+    public void cacheSubset(byte[] subset) {
+        if (subsetCache != null && template != null) {
+            subsetCache.put(template, ttcName, getUsedGlyphs(), subset);
+        }
+    }
+
     /**
      * Returns the character from it's original glyph index in the font
      * @param glyphIndex The original index of the character
@@ -20,6 +20,7 @@
 package org.apache.fop.fonts;
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
@@ -112,6 +113,27 @@ public abstract class Typeface implements FontMetrics {
         return false;
     }
 
+    /**
+     * Returns the kerning between two characters, in 1/1000ths of the font size.
+     * Subclasses with a faster way to look up a pair than {@link #getKerningInfo()}
+     * override this method.
+     * @param first the first character
+     * @param second the second character
+     * @return the kerning, 0 if there's no kerning between the characters
+     */
+    public int getKernValue(int first, int second) {
+        if (hasKerningInfo()) {
+            Map<Integer, Integer> kernPair = getKerningInfo().get(first);
+            if (kernPair != null) {
+                Integer kern = kernPair.get(second);
+                if (kern != null) {
+                    return kern;
+                }
+            }
+        }
+        return 0;
+    }
+
     /**
      * Sets the font event listener that can be used to receive events about particular events
      * in this class.
@@ -30,6 +30,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import org.apache.commons.io.DirectoryWalker;
 import org.apache.commons.io.IOCase;
@@ -53,6 +55,8 @@ public class FontFileFinder extends DirectoryWalker implements FontFinder {
     public static final int DEFAULT_DEPTH_LIMIT = -1;
     private final FontEventListener eventListener;
 
+    private boolean parallel;
+
     /**
      * Default constructor
      * @param listener for throwing font related events
@@ -71,6 +75,16 @@ public class FontFileFinder extends DirectoryWalker implements FontFinder {
         eventListener = listener;
     }
 
+    /**
+     * Sets whether directory trees are searched in parallel, on a fork-join pool of their own.
+     * The font files are returned in the same order either way, except that when several
+     * symbolic links lead to the same directory, the link through which it is searched may vary.
+     * @param parallel true to search directories in parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
     /**
      * Font directory filter.  Currently ignores hidden directories.
      * @return IOFileFilter font directory filter
@@ -186,6 +200,16 @@ public class FontFileFinder extends DirectoryWalker implements FontFinder {
     private void walkDirectory(File startDirectory, Collection<URL> results) throws IOException {
         Objects.requireNonNull(startDirectory, "startDirectory");
 
+        if (parallel) {
+            //the tasks block on file system calls, so they don't run on the common pool
+            ForkJoinPool pool = new ForkJoinPool();
+            try {
+                results.addAll(pool.invoke(new DirectoryTask(startDirectory, 0, new HashMap<String, String>())));
+            } finally {
+                pool.shutdown();
+            }
+            return;
+        }
         try {
             walk(startDirectory, 0, results, new HashMap<>());
         } catch (CancelException cancel) {
@@ -194,11 +218,15 @@ public class FontFileFinder extends DirectoryWalker implements FontFinder {
 
     }
 
-    private void walk(File directory, int depth, Collection<URL> results,
-                      Map<String, String> visitedSymlinks) throws IOException {
+    private static FileFilter createFilter() {
         IOFileFilter fileFilter = FileFilterUtils.makeFileOnly(getFileFilter());
         IOFileFilter directoryFilter = FileFilterUtils.makeDirectoryOnly(getDirectoryFilter());
-        FileFilter filter = directoryFilter.or(fileFilter);
+        return directoryFilter.or(fileFilter);
+    }
+
+    private void walk(File directory, int depth, Collection<URL> results,
+                      Map<String, String> visitedSymlinks) throws IOException {
+        FileFilter filter = createFilter();
 
         checkIfCancelled(directory, depth, results);
 
@@ -224,6 +252,62 @@ public class FontFileFinder extends DirectoryWalker implements FontFinder {
         checkIfCancelled(directory, depth, results);
     }
 
+    /**
+     * Searches a directory, searching its subdirectories in parallel. The font files are
+     * returned in the same order as a sequential search returns them, unless several symbolic
+     * links lead to the same directory: the first link to be reached is used, which depends on
+     * the scheduling of the tasks.
+     */
+    private final class DirectoryTask extends RecursiveTask<List<URL>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final File directory;
+
+        private final int depth;
+
+        private final Map<String, String> visitedSymlinks;
+
+        DirectoryTask(File directory, int depth, Map<String, String> visitedSymlinks) {
+            this.directory = directory;
+            this.depth = depth;
+            this.visitedSymlinks = visitedSymlinks;
+        }
+
+        @Override
+        protected List<URL> compute() {
+            List<URL> results = new java.util.ArrayList<>();
+            int childDepth = depth + 1;
+            File[] childFiles = directory.listFiles(createFilter());
+            if (childFiles != null) {
+                DirectoryTask[] subdirectories = new DirectoryTask[childFiles.length];
+                for (int i = 0; i < childFiles.length; i++) {
+                    File childFile = childFiles[i];
+                    if (childFile.isDirectory()) {
+                        if (Files.isSymbolicLink(childFile.toPath())) {
+                            synchronized (visitedSymlinks) {
+                                if (hasSymlinkBeenWalked(childFile, visitedSymlinks)) {
+                                    continue;
+                                }
+                            }
+                        }
+                        subdirectories[i] = new DirectoryTask(childFile, childDepth, visitedSymlinks);
+                        subdirectories[i].fork();
+                    }
+                }
+                for (int i = 0; i < childFiles.length; i++) {
+                    if (subdirectories[i] != null) {
+                        results.addAll(subdirectories[i].join());
+                    } else if (!childFiles[i].isDirectory()) {
+                        handleFile(childFiles[i], childDepth, results);
+                    }
+                }
+            }
+            handleDirectoryEnd(directory, depth, results);
+            return results;
+        }
+    }
+
     private boolean hasSymlinkBeenWalked(File symlink, Map<String, String> visitedSymlinks) {
         String symlinkPath;
         try {
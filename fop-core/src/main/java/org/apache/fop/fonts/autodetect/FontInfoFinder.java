@@ -178,7 +178,7 @@ public class FontInfoFinder {
             fileLastModified = FontCache.getLastModified(fontURI);
             // firstly try and fetch it from cache before loading/parsing the font file
             if (fontCache.containsFont(embedStr)) {
-                EmbedFontInfo[] fontInfos = fontCache.getFontInfos(embedStr, fileLastModified);
+                EmbedFontInfo[] fontInfos = fontCache.getFontInfos(embedStr, embedUri);
                 if (fontInfos != null) {
                     return fontInfos;
                 }
@@ -201,7 +201,7 @@ public class FontInfoFinder {
             try {
                 in = resourceResolver.getResource(fontURI);
                 TTFFile ttf = new TTFFile(false, false);
-                FontFileReader reader = new FontFileReader(in);
+                FontFileReader reader = new FontFileReader(in, embedUri);
                 ttcNames = ttf.getTTCnames(reader);
                 if (ttcNames == null) {
                     return null;
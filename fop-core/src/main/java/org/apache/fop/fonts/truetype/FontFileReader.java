@@ -19,21 +19,41 @@
 
 package org.apache.fop.fonts.truetype;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.commons.io.IOUtils;
 
 /**
  * Reads a TrueType font file into a byte array and
  * provides file like functions for array access.
+ * <p>
+ * A font file on the local file system can be mapped into memory instead, so that only the parts
+ * of the file that are read are loaded, and the file isn't copied onto the heap. This is enabled
+ * by setting the system property {@value #MAP_FONT_FILES} to true. A mapped file is then read
+ * directly rather than through the stream handed out by the resource resolver, and it stays open
+ * until the reader has been garbage collected, which prevents it from being replaced or deleted on
+ * some platforms.
  */
 public class FontFileReader {
 
+    /** The system property that enables mapping local font files into memory, default false. */
+    public static final String MAP_FONT_FILES = "org.apache.fop.fonts.truetype.map-font-files";
+
     private final int fsize; // file size
     private int current;    // current position in file
-    private final byte[] file;
+    private final ByteBuffer file;
+
+    /* bytes written to a mapped file, which can't be written to itself, by position */
+    private TreeMap<Integer, Byte> patches;
 
     /**
      * Constructor
@@ -42,11 +62,100 @@ public class FontFileReader {
      * @throws IOException In case of an I/O problem
      */
     public FontFileReader(InputStream in) throws IOException {
-        this.file = IOUtils.toByteArray(in);
-        this.fsize = this.file.length;
+        this(in, null);
+    }
+
+    /**
+     * Creates a reader for a font obtained from a URI. If mapping font files is enabled and the
+     * URI denotes a file on the local file system, the file is mapped into memory and the stream
+     * isn't read; otherwise the stream is read in.
+     *
+     * @param in InputStream to read from
+     * @param uri the resolved URI the stream was obtained from, may be null
+     * @throws IOException In case of an I/O problem
+     */
+    public FontFileReader(InputStream in, URI uri) throws IOException {
+        ByteBuffer mapped = uri != null && Boolean.getBoolean(MAP_FONT_FILES) ? map(uri) : null;
+        this.file = mapped != null ? mapped : ByteBuffer.wrap(IOUtils.toByteArray(in));
+        this.fsize = this.file.capacity();
+        this.current = 0;
+    }
+
+    /**
+     * Creates a reader for a font file, which is mapped into memory. The file stays open until
+     * the reader has been garbage collected.
+     *
+     * @param file the font file
+     * @throws IOException In case of an I/O problem
+     */
+    public FontFileReader(File file) throws IOException {
+        this.file = map(file);
+        this.fsize = this.file.capacity();
         this.current = 0;
     }
 
+    private static ByteBuffer map(URI uri) throws IOException {
+        if (!"file".equals(uri.getScheme())) {
+            return null;
+        }
+        File file;
+        try {
+            file = new File(uri);
+        } catch (IllegalArgumentException e) {
+            // not a plain file URI, e.g. one with an authority
+            return null;
+        }
+        if (!file.isFile() || file.length() > Integer.MAX_VALUE) {
+            return null;
+        }
+        return map(file);
+    }
+
+    private static ByteBuffer map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            // the mapping stays valid after the channel is closed
+            FileChannel channel = raf.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            IOUtils.closeQuietly(raf);
+        }
+    }
+
+    /**
+     * Indicates whether the font file is mapped into memory rather than read in.
+     *
+     * @return true if the file is mapped
+     */
+    public boolean isMapped() {
+        return !file.hasArray();
+    }
+
+    private byte get(int pos) {
+        if (patches != null) {
+            Byte patch = patches.get(pos);
+            if (patch != null) {
+                return patch;
+            }
+        }
+        return file.get(pos);
+    }
+
+    private void get(int pos, byte[] dst, int length) {
+        if (file.hasArray()) {
+            System.arraycopy(file.array(), pos, dst, 0, length);
+        } else {
+            ByteBuffer slice = file.duplicate();
+            slice.position(pos);
+            slice.get(dst, 0, length);
+            if (patches != null) {
+                for (Map.Entry<Integer, Byte> patch : patches.subMap(pos, pos + length).entrySet()) {
+                    dst[patch.getKey() - pos] = patch.getValue();
+                }
+            }
+        }
+    }
+
 
     /**
      * Set current file position to offset
@@ -101,7 +210,7 @@ public class FontFileReader {
             throw new java.io.EOFException("Reached EOF, file size=" + fsize);
         }
 
-        final byte ret = file[current++];
+        final byte ret = get(current++);
         return ret;
     }
 
@@ -168,8 +277,16 @@ public class FontFileReader {
         final byte b1 = (byte)((val >> 8) & 0xff);
         final byte b2 = (byte)(val & 0xff);
         final int fileIndex = (int) pos;
-        file[fileIndex] = b1;
-        file[fileIndex + 1] = b2;
+        if (file.hasArray()) {
+            file.put(fileIndex, b1);
+            file.put(fileIndex + 1, b2);
+        } else {
+            if (patches == null) {
+                patches = new TreeMap<Integer, Byte>();
+            }
+            patches.put(fileIndex, b1);
+            patches.put(fileIndex + 1, b2);
+        }
     }
 
     /**
@@ -240,7 +357,7 @@ public class FontFileReader {
      */
     public final String readTTFString() throws IOException {
         int i = current;
-        while (file[i++] != 0) {
+        while (get(i++) != 0) {
             if (i >= fsize) {
                 throw new java.io.EOFException("Reached EOF, file size="
                                                + fsize);
@@ -248,7 +365,7 @@ public class FontFileReader {
         }
 
         byte[] tmp = new byte[i - current - 1];
-        System.arraycopy(file, current, tmp, 0, i - current - 1);
+        get(current, tmp, tmp.length);
         return new String(tmp, "ISO-8859-1");
     }
 
@@ -266,7 +383,7 @@ public class FontFileReader {
         }
 
         byte[] tmp = new byte[len];
-        System.arraycopy(file, current, tmp, 0, len);
+        get(current, tmp, len);
         current += len;
         final String encoding;
         if ((tmp.length > 0) && (tmp[0] == 0)) {
@@ -291,7 +408,7 @@ public class FontFileReader {
         }
 
         byte[] tmp = new byte[len];
-        System.arraycopy(file, current, tmp, 0, len);
+        get(current, tmp, len);
         current += len;
         //Use this for all known encoding IDs for now
         return new String(tmp, StandardCharsets.UTF_16BE);
@@ -312,14 +429,20 @@ public class FontFileReader {
         }
 
         byte[] ret = new byte[length];
-        System.arraycopy(file, offset, ret, 0, length);
+        get(offset, ret, length);
         return ret;
     }
     /**
-     * Returns the full byte array representation of the file.
+     * Returns the full byte array representation of the file. If the file is mapped, this
+     * copies the whole file, so it should be avoided where only parts of it are needed.
      * @return byte array.
      */
     public byte[] getAllBytes() {
-        return file;
+        if (file.hasArray()) {
+            return file.array();
+        }
+        byte[] ret = new byte[fsize];
+        get(0, ret, fsize);
+        return ret;
     }
 }
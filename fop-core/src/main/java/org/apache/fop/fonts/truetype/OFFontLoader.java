@@ -112,7 +112,7 @@ public class OFFontLoader extends FontLoader {
     private void read(String ttcFontName) throws IOException {
         InputStream in = resourceResolver.getResource(this.fontFileURI);
         try {
-            FontFileReader reader = new FontFileReader(in);
+            FontFileReader reader = new FontFileReader(in, resourceResolver.resolveFromBase(fontFileURI));
             String header = readHeader(reader);
             boolean isCFF = header.equals("OTTO");
             OpenFont otf = (isCFF) ? new OTFFile(useKerning, useAdvanced) : new TTFFile(useKerning, useAdvanced);
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Cache of hyphenated words. Documents tend to use the same words over and over again,
+ * so the result of hyphenating a word is kept, per language, in a map that evicts the
+ * least recently used words once it is full. The cache belongs to the
+ * {@link HyphenationTreeCache} and is therefore shared by all the renderings of a
+ * {@link org.apache.fop.apps.FopFactory}.</p>
+ *
+ * <p>The cached {@link Hyphenation} instances are shared and must not be modified.</p>
+ */
+public class HyphenationCache {
+
+    /** The default maximum number of words kept per language */
+    public static final int DEFAULT_MAX_WORDS = 10000;
+
+    /** Marks the words that have no hyphenation point */
+    private static final Hyphenation NO_HYPHENATION = new Hyphenation("", new int[0]);
+
+    private final int maxWords;
+
+    private final ConcurrentMap<String, Words> languages = new ConcurrentHashMap<String, Words>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /** Creates a cache keeping up to {@link #DEFAULT_MAX_WORDS} words per language. */
+    public HyphenationCache() {
+        this(DEFAULT_MAX_WORDS);
+    }
+
+    /**
+     * Creates a cache.
+     * @param maxWords the maximum number of words kept per language
+     */
+    public HyphenationCache(int maxWords) {
+        if (maxWords <= 0) {
+            throw new IllegalArgumentException("maxWords must be positive: " + maxWords);
+        }
+        this.maxWords = maxWords;
+    }
+
+    /**
+     * Returns the hyphenation of a word, hyphenating it with the given tree if it isn't
+     * in the cache yet.
+     * @param hTree the hyphenation tree for the language
+     * @param lang the language
+     * @param country the country (may be null or "none")
+     * @param word the word to be hyphenated
+     * @param remainCharCount minimum number of characters allowed before the hyphenation point
+     * @param pushCharCount minimum number of characters allowed after the hyphenation point
+     * @return the hyphenated word or null if the word is not hyphenated
+     */
+    public Hyphenation hyphenate(HyphenationTree hTree, String lang, String country, String word,
+            int remainCharCount, int pushCharCount) {
+        Words words = getWords(HyphenationTreeCache.constructLlccKey(lang, country));
+        String key = remainCharCount + "," + pushCharCount + ":" + word;
+        Hyphenation hyph;
+        synchronized (words) {
+            hyph = words.get(key);
+        }
+        if (hyph != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            hyph = hTree.hyphenate(word, remainCharCount, pushCharCount);
+            if (hyph == null) {
+                hyph = NO_HYPHENATION;
+            }
+            synchronized (words) {
+                words.put(key, hyph);
+            }
+        }
+        return hyph != NO_HYPHENATION ? hyph : null;
+    }
+
+    private Words getWords(String llccKey) {
+        Words words = languages.get(llccKey);
+        if (words == null) {
+            Words newWords = new Words(maxWords);
+            words = languages.putIfAbsent(llccKey, newWords);
+            if (words == null) {
+                words = newWords;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Returns the number of lookups that found the word in the cache.
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups that had to hyphenate the word.
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of words currently in the cache, for all languages.
+     * @return the number of words
+     */
+    public int size() {
+        int size = 0;
+        for (Words words : languages.values()) {
+            synchronized (words) {
+                size += words.size();
+            }
+        }
+        return size;
+    }
+
+    /** Removes all words from the cache and resets the hit and miss counts. */
+    public void clear() {
+        languages.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /** The words of a language, in least recently used order. */
+    private static final class Words extends LinkedHashMap<String, Hyphenation> {
+
+        private static final long serialVersionUID = -2786386426003489557L;
+
+        private final int maxWords;
+
+        Words(int maxWords) {
+            super(16, 0.75f, true);
+            this.maxWords = maxWords;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Hyphenation> eldest) {
+            return size() > maxWords;
+        }
+    }
+}
@@ -76,6 +76,19 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
         vspace.alloc(1);    // this reserves index 0, which we don't use
     }
 
+    /**
+     * Creates a tree with the given initial storage for patterns and character classes.
+     * A capacity of zero is used by subclasses that keep their patterns elsewhere.
+     * @param capacity the initial number of nodes
+     */
+    HyphenationTree(int capacity) {
+        super(capacity);
+        stoplist = new HashMap(0);
+        classmap = new TernaryTree(capacity);
+        vspace = new ByteVector(Math.max(capacity, 1));
+        vspace.alloc(1);    // this reserves index 0, which we don't use
+    }
+
     private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
         ois.defaultReadObject();
     }
@@ -314,6 +327,27 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
         }
     }
 
+    /**
+     * Looks up the character class of a character.
+     * @param key null terminated character array holding the character
+     * @param start index of the character in the array
+     * @return the normalization character of its class, or -1 if the character doesn't
+     * belong to any class
+     */
+    protected int findClass(char[] key, int start) {
+        return classmap.find(key, start);
+    }
+
+    /**
+     * Looks up a hyphenation exception.
+     * @param word the normalized word
+     * @return the pre-hyphenated word as a list of strings and {@link Hyphen} instances,
+     * or null if the word isn't an exception
+     */
+    protected List getException(String word) {
+        return (List) stoplist.get(word);
+    }
+
     /**
      * Hyphenate word and return a Hyphenation object.
      * @param word the word to be hyphenated
@@ -341,7 +375,7 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
         for (int i = 0; i < len; i++) {
             char[] c = new char[2];
             c[0] = w[i];
-            int nc = classmap.find(c, 0);
+            int nc = findClass(c, 0);
             if (nc > 0) {
                 if (wordParts > 1) {
                     return true;
@@ -381,7 +415,7 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
         boolean foundLetter = false;
         for (int i = 0; i < word.length; i++) {
             c[0] = word[i];
-            if (classmap.find(c, 0) < 0) {
+            if (findClass(c, 0) < 0) {
                 if (foundLetter) {
                     breakPoints.add(i);
                 }
@@ -480,7 +514,7 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
         boolean bEndOfLetters = false;
         for (i = 1; i <= len; i++) {
             c[0] = w[offset + i - 1];
-            int nc = classmap.find(c, 0);
+            int nc = findClass(c, 0);
             if (nc < 0) {    // found a non-letter character ...
                 if (i == (1 + iIgnoreAtBeginning)) {
                     // ... before any letter character
@@ -509,9 +543,9 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
 
         // check exception list first
         String sw = new String(word, 1, len);
-        if (stoplist.containsKey(sw)) {
+        List hw = getException(sw);
+        if (hw != null) {
             // assume only simple hyphens (Hyphen.pre="-", Hyphen.post = Hyphen.no = null)
-            ArrayList hw = (ArrayList)stoplist.get(sw);
             int j = 0;
             for (i = 0; i < hw.size(); i++) {
                 Object o = hw.get(i);
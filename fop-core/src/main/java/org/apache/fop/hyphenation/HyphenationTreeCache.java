@@ -32,6 +32,8 @@ public class HyphenationTreeCache {
     private Hashtable hyphenTrees = new Hashtable();
     /** Used to avoid multiple error messages for the same language if a pattern file is missing. */
     private Set missingHyphenationTrees;
+    /** Contains the hyphenated words */
+    private final HyphenationCache hyphenationCache = new HyphenationCache();
 
     /**
      * Looks in the cache if a hyphenation tree is available and returns it if it is found.
@@ -52,6 +54,14 @@ public class HyphenationTreeCache {
         }
     }
 
+    /**
+     * Returns the cache of hyphenated words that goes with the cached hyphenation trees.
+     * @return the cache of hyphenated words
+     */
+    public HyphenationCache getHyphenationCache() {
+        return hyphenationCache;
+    }
+
     /**
      * Constructs the key for the hyphenation pattern file.
      * @param lang the language
@@ -20,10 +20,13 @@
 package org.apache.fop.hyphenation;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URL;
 import java.util.Map;
 
 import org.xml.sax.InputSource;
@@ -53,6 +56,7 @@ public final class Hyphenator {
 
     public static final String HYPTYPE = Hyphenator.class.toString() + "HYP";
     public static final String XMLTYPE = Hyphenator.class.toString() + "XML";
+    public static final String HYBTYPE = Hyphenator.class.toString() + "HYB";
 
     private Hyphenator() {
     }
@@ -107,8 +111,8 @@ public final class Hyphenator {
         return hTree;
     }
 
-    private static InputStream getResourceStream(String key) {
-        InputStream is = null;
+    private static URL getResource(String key, String extension) {
+        URL url = null;
         // Try to use Context Class Loader to load the properties file.
         try {
             java.lang.reflect.Method getCCL = Thread.class.getMethod(
@@ -117,8 +121,8 @@ public final class Hyphenator {
                 ClassLoader contextClassLoader = (ClassLoader)getCCL.invoke(
                         Thread.currentThread(),
                         new Object[0]);
-                is = contextClassLoader.getResourceAsStream("hyph/" + key
-                                                            + ".hyp");
+                url = contextClassLoader.getResource("hyph/" + key
+                                                     + extension);
             }
         } catch (NoSuchMethodException e) {
             //ignore, fallback further down
@@ -128,12 +132,47 @@ public final class Hyphenator {
             //ignore, fallback further down
         }
 
-        if (is == null) {
-            is = Hyphenator.class.getResourceAsStream("/hyph/" + key
-                                                      + ".hyp");
+        if (url == null) {
+            url = Hyphenator.class.getResource("/hyph/" + key
+                                               + extension);
+        }
+
+        return url;
+    }
+
+    private static InputStream getResourceStream(String key) {
+        URL url = getResource(key, ".hyp");
+        if (url == null) {
+            return null;
+        }
+        try {
+            return url.openStream();
+        } catch (IOException ioe) {
+            log.error("I/O error while opening precompiled hyphenation pattern file " + url, ioe);
+            return null;
         }
+    }
 
-        return is;
+    /**
+     * Loads a compiled pattern file, mapping it if it is a local file.
+     * @param uri the URI of the file
+     * @param resourceResolver the resource resolver used for non-local files,
+     * or null to open the URI directly
+     * @return the hyphenation tree
+     * @throws IOException if the file can't be read or isn't a compiled pattern file
+     */
+    private static HyphenationTree readMappedHyphenationTree(URI uri,
+            InternalResourceResolver resourceResolver) throws IOException {
+        if ("file".equals(uri.getScheme())) {
+            return MappedHyphenationTree.map(new File(uri));
+        }
+        InputStream in = resourceResolver != null
+                ? resourceResolver.getResource(uri) : uri.toURL().openStream();
+        try {
+            return MappedHyphenationTree.read(in);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
     }
 
     private static HyphenationTree readHyphenationTree(InputStream in) {
@@ -156,6 +195,17 @@ public final class Hyphenator {
      * @return the hyphenation tree or null if it wasn't found in the resources
      */
     public static HyphenationTree getFopHyphenationTree(String key) {
+        URL url = getResource(key, ".hyb");
+        if (url != null) {
+            try {
+                return readMappedHyphenationTree(url.toURI(), null);
+            } catch (IOException ioe) {
+                log.error("I/O error while loading compiled hyphenation pattern file " + url, ioe);
+                return null;
+            } catch (URISyntaxException use) {
+                log.debug("An exception was thrown while attempting to load " + url, use);
+            }
+        }
         InputStream is = getResourceStream(key);
         if (is == null) {
             if (log.isDebugEnabled()) {
@@ -179,11 +229,37 @@ public final class Hyphenator {
         HyphenationTree hTree = null;
         // I use here the following convention. The file name specified in
         // the configuration is taken as the base name. First we try
+        // name + ".hyb" assuming a compiled pattern file, then
         // name + ".hyp" assuming a serialized HyphenationTree. If that fails
         // we try name + ".xml", assumming a raw hyphenation pattern file.
 
-        // first try serialized object
-        String name = key + ".hyp";
+        // first try compiled pattern file
+        String name = key + ".hyb";
+        if (key.endsWith(HYBTYPE)) {
+            name = key.replace(HYBTYPE, "");
+        }
+        if (!key.endsWith(HYPTYPE) && !key.endsWith(XMLTYPE)) {
+            try {
+                URI uri = resourceResolver.resolveFromBase(InternalResourceResolver.cleanURI(name));
+                if (!"file".equals(uri.getScheme()) || new File(uri).exists()) {
+                    return readMappedHyphenationTree(uri, resourceResolver);
+                }
+            } catch (IOException ioe) {
+                if (log.isDebugEnabled()) {
+                    log.debug("I/O problem while trying to load " + name, ioe);
+                }
+            } catch (URISyntaxException use) {
+                log.debug("An exception was thrown while attempting to load " + name, use);
+            } catch (IllegalArgumentException iae) {
+                log.debug("An exception was thrown while attempting to load " + name, iae);
+            }
+            if (key.endsWith(HYBTYPE)) {
+                return null;
+            }
+        }
+
+        // then try serialized object
+        name = key + ".hyp";
         if (key.endsWith(HYPTYPE)) {
             name = key.replace(HYPTYPE, "");
         }
@@ -252,7 +328,11 @@ public final class Hyphenator {
         if (hTree == null) {
             return null;
         }
-        return hTree.hyphenate(word, leftMin, rightMin);
+        HyphenationTreeCache cache = foUserAgent.getHyphenationTreeCache();
+        if (cache == null) {
+            return hTree.hyphenate(word, leftMin, rightMin);
+        }
+        return cache.getHyphenationCache().hyphenate(hTree, lang, country, word, leftMin, rightMin);
     }
 
 }
@@ -0,0 +1,482 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * <p>A hyphenation tree that reads its patterns directly from a compiled pattern file
+ * (".hyb") instead of holding them in Java arrays. The file is memory-mapped when it is
+ * available on the file system, so nothing is deserialized when the tree is loaded and
+ * all the JVMs and {@link org.apache.fop.apps.FopFactory} instances using the same file
+ * share the same physical pages.</p>
+ *
+ * <p>A compiled pattern file is made of:</p>
+ * <ul>
+ * <li>a header: the magic number "FOPH" and the format version;</li>
+ * <li>the pattern tree and the character class tree: the root node, the node count,
+ * the length of the key array, the nodes (split char, low, equal and high pointers,
+ * i.e. 8 bytes per node) and the key array;</li>
+ * <li>the packed interletter values, as in {@link HyphenationTree#vspace};</li>
+ * <li>the exceptions, sorted by word: their count, a table of offsets and, for each
+ * exception, the word and the parts between its hyphenation points.</li>
+ * </ul>
+ * <p>All values are big endian. The file is written by {@link #write(HyphenationTree,
+ * OutputStream)} from a tree loaded from XML or from a serialized ".hyp" file.</p>
+ *
+ * <p>Instances are immutable and may be used by several threads at the same time.</p>
+ */
+public final class MappedHyphenationTree extends HyphenationTree {
+
+    private static final long serialVersionUID = 4513370325853624394L;
+
+    /** Magic number of a compiled pattern file ("FOPH") */
+    static final int MAGIC = 0x464F5048;
+
+    /** Format version of the compiled pattern files */
+    static final int VERSION = 1;
+
+    private final transient Trie patterns;
+
+    private final transient Trie classes;
+
+    private final transient ByteBuffer values;
+
+    private final transient int exceptionCount;
+
+    private final transient CharBuffer exceptions;
+
+    private MappedHyphenationTree(ByteBuffer buffer) throws IOException {
+        super(0);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a compiled hyphenation pattern file");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported compiled hyphenation pattern file version: "
+                        + version);
+            }
+            patterns = Trie.read(buffer);
+            classes = Trie.read(buffer);
+            int valuesLength = buffer.getInt();
+            values = slice(buffer, valuesLength);
+            exceptionCount = buffer.getInt();
+            exceptions = buffer.slice().asCharBuffer();
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated compiled hyphenation pattern file");
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt compiled hyphenation pattern file");
+        }
+    }
+
+    /**
+     * Maps a compiled pattern file.
+     * @param file the file
+     * @return the hyphenation tree
+     * @throws IOException if the file can't be read or isn't a compiled pattern file
+     */
+    public static MappedHyphenationTree map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            //the mapping stays valid after the channel is closed
+            return new MappedHyphenationTree(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Reads a compiled pattern file from a stream, for files that can't be mapped (i.e. which
+     * are inside a JAR file). The stream is not closed.
+     * @param in the stream
+     * @return the hyphenation tree
+     * @throws IOException if the stream can't be read or doesn't contain a compiled pattern file
+     */
+    public static MappedHyphenationTree read(InputStream in) throws IOException {
+        return new MappedHyphenationTree(ByteBuffer.wrap(IOUtils.toByteArray(in)));
+    }
+
+    /**
+     * Writes a hyphenation tree as a compiled pattern file.
+     * @param hTree the hyphenation tree, loaded from XML or deserialized
+     * @param out the stream to write to; it is not closed
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(HyphenationTree hTree, OutputStream out) throws IOException {
+        DataOutputStream dout = new DataOutputStream(out);
+        dout.writeInt(MAGIC);
+        dout.writeInt(VERSION);
+        writeTrie(hTree, dout);
+        writeTrie(hTree.classmap, dout);
+        dout.writeInt(hTree.vspace.length());
+        dout.write(hTree.vspace.getArray(), 0, hTree.vspace.length());
+        writeExceptions(hTree.stoplist, dout);
+        dout.flush();
+    }
+
+    private static void writeTrie(TernaryTree tree, DataOutputStream out) throws IOException {
+        int nodeCount = Math.min(tree.freenode, tree.sc.length);
+        out.writeInt(tree.root);
+        out.writeInt(nodeCount);
+        out.writeInt(tree.kv.length());
+        for (int p = 0; p < nodeCount; p++) {
+            out.writeChar(tree.sc[p]);
+            out.writeChar(tree.lo[p]);
+            out.writeChar(tree.eq[p]);
+            out.writeChar(tree.hi[p]);
+        }
+        char[] keys = tree.kv.getArray();
+        for (int i = 0; i < tree.kv.length(); i++) {
+            out.writeChar(keys[i]);
+        }
+    }
+
+    private static void writeExceptions(Map stoplist, DataOutputStream out) throws IOException {
+        String[] words = (String[]) stoplist.keySet().toArray(new String[stoplist.size()]);
+        Arrays.sort(words);
+        char[][] entries = new char[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            StringBuilder entry = new StringBuilder();
+            entry.append((char) words[i].length()).append(words[i]);
+            List parts = new ArrayList();
+            for (Object o : (List) stoplist.get(words[i])) {
+                //only the parts matter for finding the hyphenation points
+                if (o instanceof String) {
+                    parts.add(o);
+                }
+            }
+            entry.append((char) parts.size());
+            for (Object part : parts) {
+                entry.append((char) ((String) part).length()).append((String) part);
+            }
+            entries[i] = entry.toString().toCharArray();
+        }
+        out.writeInt(words.length);
+        int offset = words.length * 2;
+        for (char[] entry : entries) {
+            out.writeChar(offset >>> 16);
+            out.writeChar(offset);
+            offset += entry.length;
+        }
+        for (char[] entry : entries) {
+            out.writeChars(new String(entry));
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int length) {
+        ByteBuffer slice = buffer.slice();
+        slice.limit(length);
+        buffer.position(buffer.position() + length);
+        return slice;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int findClass(char[] key, int start) {
+        return classes.find(key, start);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String findPattern(String pat) {
+        char[] key = new char[pat.length() + 1];
+        pat.getChars(0, pat.length(), key, 0);
+        int k = patterns.find(key, 0);
+        if (k < 0) {
+            return "";
+        }
+        StringBuffer buf = new StringBuffer();
+        for (byte v = values.get(k++); v != 0; v = values.get(k++)) {
+            buf.append((char) ((v >>> 4) - 1 + '0'));
+            if ((v & 0x0f) == 0) {
+                break;
+            }
+            buf.append((char) ((v & 0x0f) - 1 + '0'));
+        }
+        return buf.toString();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected List getException(String word) {
+        int low = 0;
+        int high = exceptionCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = getExceptionOffset(mid);
+            int cmp = compareWord(word, entry);
+            if (cmp == 0) {
+                return getExceptionParts(entry + 1 + exceptions.get(entry));
+            } else if (cmp < 0) {
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return null;
+    }
+
+    private int getExceptionOffset(int index) {
+        return exceptions.get(index * 2) << 16 | exceptions.get(index * 2 + 1);
+    }
+
+    private int compareWord(String word, int entry) {
+        int length = exceptions.get(entry);
+        int n = Math.min(word.length(), length);
+        for (int i = 0; i < n; i++) {
+            int d = word.charAt(i) - exceptions.get(entry + 1 + i);
+            if (d != 0) {
+                return d;
+            }
+        }
+        return word.length() - length;
+    }
+
+    private List getExceptionParts(int offset) {
+        int count = exceptions.get(offset++);
+        List parts = new ArrayList(count);
+        for (int i = 0; i < count; i++) {
+            int length = exceptions.get(offset++);
+            char[] part = new char[length];
+            for (int j = 0; j < length; j++) {
+                part[j] = exceptions.get(offset++);
+            }
+            parts.add(new String(part));
+        }
+        return parts;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void searchPatterns(char[] word, int index, byte[] il) {
+        int i = index;
+        char sp = word[i];
+        int p = patterns.root;
+        int nodeCount = patterns.nodeCount;
+
+        while (p > 0 && p < nodeCount) {
+            if (patterns.splitChar(p) == 0xFFFF) {
+                if (patterns.compareKey(word, i, patterns.low(p)) == 0) {
+                    updateValues(patterns.equal(p), index, il);    // data pointer is in eq[]
+                }
+                return;
+            }
+            int d = sp - patterns.splitChar(p);
+            if (d == 0) {
+                if (sp == 0) {
+                    break;
+                }
+                sp = word[++i];
+                p = patterns.equal(p);
+                int q = p;
+
+                // look for a pattern ending at this position by searching for
+                // the null char ( splitchar == 0 )
+                while (q > 0 && q < nodeCount) {
+                    char splitChar = patterns.splitChar(q);
+                    if (splitChar == 0xFFFF) {        // stop at compressed branch
+                        break;
+                    }
+                    if (splitChar == 0) {
+                        updateValues(patterns.equal(q), index, il);
+                        break;
+                    } else {
+                        q = patterns.low(q);
+                    }
+                }
+            } else {
+                p = d < 0 ? patterns.low(p) : patterns.high(p);
+            }
+        }
+    }
+
+    /**
+     * Decodes the packed interletter values at the given index and merges them into
+     * the values of the word, like {@link #getValues(int)} does.
+     */
+    private void updateValues(int k, int index, byte[] il) {
+        int j = index;
+        for (byte v = values.get(k++); v != 0; v = values.get(k++)) {
+            j = updateValue((byte) ((v >>> 4) - 1), j, il);
+            if ((v & 0x0f) == 0) {
+                break;
+            }
+            j = updateValue((byte) ((v & 0x0f) - 1), j, il);
+        }
+    }
+
+    private static int updateValue(byte value, int j, byte[] il) {
+        if (j < il.length && value > il[j]) {
+            il[j] = value;
+        }
+        return j + 1;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addClass(String chargroup) {
+        throw new UnsupportedOperationException("Compiled hyphenation trees are read-only");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addException(String word, ArrayList hyphenatedword) {
+        throw new UnsupportedOperationException("Compiled hyphenation trees are read-only");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addPattern(String pattern, String ivalue) {
+        throw new UnsupportedOperationException("Compiled hyphenation trees are read-only");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void printStats() {
+        System.out.println("Value space size = " + Integer.toString(values.limit()));
+        System.out.println("Node count = " + Integer.toString(patterns.nodeCount));
+        System.out.println("Key Array length = " + Integer.toString(patterns.keys.limit()));
+        System.out.println("Number of exceptions = " + Integer.toString(exceptionCount));
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        throw new NotSerializableException("Compiled hyphenation trees are not serializable;"
+                + " use MappedHyphenationTree.write()");
+    }
+
+    /**
+     * A ternary tree stored as in {@link TernaryTree}, with the four node arrays interleaved.
+     */
+    private static final class Trie {
+
+        private static final int SPLIT_CHAR = 0;
+        private static final int LOW = 1;
+        private static final int EQUAL = 2;
+        private static final int HIGH = 3;
+        private static final int NODE_SIZE = 4;
+
+        private final char root;
+        private final int nodeCount;
+        private final CharBuffer nodes;
+        private final CharBuffer keys;
+
+        private Trie(char root, int nodeCount, CharBuffer nodes, CharBuffer keys) {
+            this.root = root;
+            this.nodeCount = nodeCount;
+            this.nodes = nodes;
+            this.keys = keys;
+        }
+
+        static Trie read(ByteBuffer buffer) {
+            char root = (char) buffer.getInt();
+            int nodeCount = buffer.getInt();
+            int keyLength = buffer.getInt();
+            CharBuffer nodes = slice(buffer, nodeCount * NODE_SIZE * 2).asCharBuffer();
+            CharBuffer keys = slice(buffer, keyLength * 2).asCharBuffer();
+            return new Trie(root, nodeCount, nodes, keys);
+        }
+
+        char splitChar(int p) {
+            return nodes.get(p * NODE_SIZE + SPLIT_CHAR);
+        }
+
+        char low(int p) {
+            return nodes.get(p * NODE_SIZE + LOW);
+        }
+
+        char equal(int p) {
+            return nodes.get(p * NODE_SIZE + EQUAL);
+        }
+
+        char high(int p) {
+            return nodes.get(p * NODE_SIZE + HIGH);
+        }
+
+        /**
+         * Compares a null terminated key with a key of the key array, like
+         * {@link HyphenationTree#hstrcmp(char[], int, char[], int)}: returns 0 if they are
+         * equal or if the stored key is a prefix of the given one.
+         */
+        int compareKey(char[] s, int si, int ti) {
+            for (; s[si] == keys.get(ti); si++, ti++) {
+                if (s[si] == 0) {
+                    return 0;
+                }
+            }
+            if (keys.get(ti) == 0) {
+                return 0;
+            }
+            return s[si] - keys.get(ti);
+        }
+
+        /** Same as {@link TernaryTree#find(char[], int)}. */
+        int find(char[] key, int start) {
+            int p = root;
+            int i = start;
+            while (p != 0) {
+                if (splitChar(p) == 0xFFFF) {
+                    return strcmp(key, i, low(p)) == 0 ? equal(p) : -1;
+                }
+                char c = key[i];
+                int d = c - splitChar(p);
+                if (d == 0) {
+                    if (c == 0) {
+                        return equal(p);
+                    }
+                    i++;
+                    p = equal(p);
+                } else if (d < 0) {
+                    p = low(p);
+                } else {
+                    p = high(p);
+                }
+            }
+            return -1;
+        }
+
+        private int strcmp(char[] a, int startA, int startB) {
+            for (; a[startA] == keys.get(startB); startA++, startB++) {
+                if (a[startA] == 0) {
+                    return 0;
+                }
+            }
+            return a[startA] - keys.get(startB);
+        }
+    }
+}
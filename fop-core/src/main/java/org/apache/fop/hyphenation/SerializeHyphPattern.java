@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 
 /**
  * <p>Serialize hyphenation patterns.</p>
@@ -33,6 +34,8 @@ public class SerializeHyphPattern {
 
     private boolean errorDump;
 
+    private boolean compiled;
+
     /**
      * Controls the amount of error information dumped.
      * @param errorDump True if more error info should be provided
@@ -41,6 +44,15 @@ public class SerializeHyphPattern {
         this.errorDump = errorDump;
     }
 
+    /**
+     * Controls the format of the pattern files.
+     * @param compiled True to write compiled pattern files (".hyb", see
+     * {@link MappedHyphenationTree}) instead of serialized ones (".hyp")
+     */
+    public void setCompiled(boolean compiled) {
+        this.compiled = compiled;
+    }
+
     /**
      * Compile all xml files in sourceDir, and write output hyp files in targetDir
      * @param sourceDir Directory with pattern xml files
@@ -57,7 +69,7 @@ public class SerializeHyphPattern {
             for (String sourceFile : sourceFiles) {
                 File infile = new File(sourceDir, sourceFile);
                 String outfilename = sourceFile.substring(0, sourceFile.length()
-                        - extension.length()) + ".hyp";
+                        - extension.length()) + (compiled ? ".hyb" : ".hyp");
                 File outfile = new File(targetDir, outfilename);
                 serializeFile(infile, outfile);
             }
@@ -73,11 +85,16 @@ public class SerializeHyphPattern {
         startProcess = rebuild(infile, outfile);
         if (startProcess) {
             HyphenationTree hTree = buildPatternFile(infile);
-            // serialize class
-            try (ObjectOutputStream out = new ObjectOutputStream(
-                        new java.io.BufferedOutputStream(
-                        new java.io.FileOutputStream(outfile)))) {
-                out.writeObject(hTree);
+            try (OutputStream out = new java.io.BufferedOutputStream(
+                        new java.io.FileOutputStream(outfile))) {
+                if (compiled) {
+                    MappedHyphenationTree.write(hTree, out);
+                } else {
+                    // serialize class
+                    ObjectOutputStream oout = new ObjectOutputStream(out);
+                    oout.writeObject(hTree);
+                    oout.flush();
+                }
             } catch (IOException ioe) {
                 System.err.println("Can't write compiled pattern file: "
                                    + outfile);
@@ -128,10 +145,11 @@ public class SerializeHyphPattern {
 
     /**
      * Entry point for ant java task
-     * @param args sourceDir, targetDir
+     * @param args sourceDir, targetDir and optionally "hyb" to write compiled pattern files
      */
     public static void main(String[] args) {
         SerializeHyphPattern ser = new SerializeHyphPattern();
+        ser.setCompiled(args.length > 2 && "hyb".equals(args[2]));
         ser.serializeDir(new File(args[0]), new File(args[1]));
     }
 
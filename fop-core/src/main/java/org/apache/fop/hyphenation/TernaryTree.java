@@ -124,16 +124,29 @@ public class TernaryTree implements Cloneable, Serializable {
         init();
     }
 
+    /**
+     * Creates an empty tree whose arrays have the given initial size. A size of zero is
+     * used by subclasses that don't store their nodes in these arrays.
+     * @param capacity the initial number of nodes
+     */
+    TernaryTree(int capacity) {
+        init(capacity, new CharVector(new char[0]));
+    }
+
     /** initialize */
     protected void init() {
+        init(BLOCK_SIZE, new CharVector());
+    }
+
+    private void init(int capacity, CharVector keys) {
         root = 0;
         freenode = 1;
         length = 0;
-        lo = new char[BLOCK_SIZE];
-        hi = new char[BLOCK_SIZE];
-        eq = new char[BLOCK_SIZE];
-        sc = new char[BLOCK_SIZE];
-        kv = new CharVector();
+        lo = new char[capacity];
+        hi = new char[capacity];
+        eq = new char[capacity];
+        sc = new char[capacity];
+        kv = keys;
     }
 
     /**
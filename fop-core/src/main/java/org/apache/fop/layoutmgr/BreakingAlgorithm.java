@@ -115,6 +115,12 @@ public abstract class BreakingAlgorithm {
      */
     protected KnuthSequence<KnuthElement> par;
 
+    /**
+     * The type, width, stretch, shrink and penalty of the elements of {@link #par},
+     * for the scans over the paragraph that don't need the elements themselves.
+     */
+    protected KnuthElementTable elements;
+
     /**
      * The width of a line (or height of a column in page-breaking mode).
      * -1 indicates that the line widths are different for each line.
@@ -523,6 +529,7 @@ public abstract class BreakingAlgorithm {
                                   double threshold, boolean force,
                                   int allowedBreaks) {
         this.par = par;
+        this.elements = KnuthElementTable.lower(par);
         this.threshold = threshold;
         this.force = force;
 
@@ -645,6 +652,7 @@ public abstract class BreakingAlgorithm {
             ListElement el = (ListElement)this.par.get(0);
             if (!el.isPenalty()) {
                 this.par.add(0, KnuthPenalty.DUMMY_ZERO_PENALTY);
+                this.elements = KnuthElementTable.lower(this.par);
             }
         }
 
@@ -752,13 +760,17 @@ public abstract class BreakingAlgorithm {
                                                  boolean previousIsBox,
                                                  int allowedBreaks) {
         KnuthElement element = getElement(position);
-        if (element.isBox()) {
+        switch (elements.getType(position)) {
+        case KnuthElementTable.BOX:
             handleBox((KnuthBox) element);
-        } else if (element.isGlue()) {
+            break;
+        case KnuthElementTable.GLUE:
             handleGlueAt((KnuthGlue) element, position, previousIsBox, allowedBreaks);
-        } else if (element.isPenalty()) {
+            break;
+        case KnuthElementTable.PENALTY:
             handlePenaltyAt((KnuthPenalty) element, position, allowedBreaks);
-        } else {
+            break;
+        default:
             throw new IllegalArgumentException(
                     "Unknown KnuthElement type: expecting KnuthBox, KnuthGlue or KnuthPenalty");
         }
@@ -904,11 +916,7 @@ public abstract class BreakingAlgorithm {
         // advance in the sequence in order to avoid taking into account
         // these elements twice
         int restartingIndex = restartingNode.position;
-        while (restartingIndex + 1 < par.size()
-               && !(getElement(restartingIndex + 1).isBox())) {
-            restartingIndex++;
-        }
-        return restartingIndex;
+        return elements.nextBoxIndex(restartingIndex + 1) - 1;
     }
 
     /**
@@ -1021,15 +1029,14 @@ public abstract class BreakingAlgorithm {
         // the values stored in the node; these would be as if the break
         // was just before the next box element, thus ignoring glues and
         // penalties between the "real" break and the following box
-        for (int i = elementIdx; i < par.size(); i++) {
-            KnuthElement tempElement = getElement(i);
-            if (tempElement.isBox()) {
+        for (int i = elementIdx; i < elements.size(); i++) {
+            if (elements.isBox(i)) {
                 break;
-            } else if (tempElement.isGlue()) {
-                newWidth += tempElement.getWidth();
-                newStretch += tempElement.getStretch();
-                newShrink += tempElement.getShrink();
-            } else if (tempElement.isForcedBreak() && i != elementIdx) {
+            } else if (elements.isGlue(i)) {
+                newWidth += elements.getWidth(i);
+                newStretch += elements.getStretch(i);
+                newShrink += elements.getShrink(i);
+            } else if (elements.isForcedBreak(i) && i != elementIdx) {
                 break;
             }
         }
@@ -1140,15 +1147,14 @@ public abstract class BreakingAlgorithm {
         // the values stored in the node; these would be as if the break
         // was just before the next box element, thus ignoring glues and
         // penalties between the "real" break and the following box
-        for (int i = elementIdx; i < par.size(); i++) {
-            KnuthElement tempElement = getElement(i);
-            if (tempElement.isBox()) {
+        for (int i = elementIdx; i < elements.size(); i++) {
+            if (elements.isBox(i)) {
                 break;
-            } else if (tempElement.isGlue()) {
-                newWidth += tempElement.getWidth();
-                newStretch += tempElement.getStretch();
-                newShrink += tempElement.getShrink();
-            } else if (tempElement.isForcedBreak() && i != elementIdx) {
+            } else if (elements.isGlue(i)) {
+                newWidth += elements.getWidth(i);
+                newStretch += elements.getStretch(i);
+                newShrink += elements.getShrink(i);
+            } else if (elements.isForcedBreak(i) && i != elementIdx) {
                 break;
             }
         }
@@ -1258,8 +1264,7 @@ public abstract class BreakingAlgorithm {
         }
 
         if (element.isPenalty() && ((KnuthPenalty) element).isPenaltyFlagged()
-            && getElement(activeNode.position).isPenalty()
-            && ((KnuthPenalty) getElement(activeNode.position)).isPenaltyFlagged()) {
+            && elements.isPenaltyFlagged(activeNode.position)) {
             // add demerit for consecutive breaks at flagged penalties
             demerits += repeatedFlaggedDemerit;
             // there are at least two consecutive lines ending with a flagged penalty;
@@ -1269,9 +1274,7 @@ public abstract class BreakingAlgorithm {
             for (KnuthNode prevNode = activeNode.previous;
                  prevNode != null && flaggedPenaltiesCount <= maxFlaggedPenaltiesCount;
                  prevNode = prevNode.previous) {
-                KnuthElement prevElement = getElement(prevNode.position);
-                if (prevElement.isPenalty()
-                    && ((KnuthPenalty) prevElement).isPenaltyFlagged()) {
+                if (elements.isPenaltyFlagged(prevNode.position)) {
                     // the previous line ends with a flagged penalty too
                     flaggedPenaltiesCount++;
                 } else {
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.util.List;
+
+/**
+ * Column-oriented copy of the values of a sequence of Knuth elements that the breaking
+ * algorithms look at: the type, width, stretch, shrink and penalty of every element are
+ * kept in parallel primitive arrays. The breaking algorithms scan the element list many times
+ * (once per candidate break for the glues following it, once per restart, etc.) and reading
+ * these arrays avoids a list lookup, a cast and several virtual calls per element visited.
+ * <p>
+ * A table is a snapshot: it has to be rebuilt when the underlying sequence is modified.
+ */
+public final class KnuthElementTable {
+
+    /** Type of an element that is not a Knuth element (i.e. an unresolved element) */
+    public static final byte OTHER = 0;
+    /** Type of a {@link KnuthBox} */
+    public static final byte BOX = 1;
+    /** Type of a {@link KnuthGlue} */
+    public static final byte GLUE = 2;
+    /** Type of a {@link KnuthPenalty} */
+    public static final byte PENALTY = 3;
+
+    private static final byte TYPE_MASK = 0x03;
+    private static final byte FLAGGED = 0x04;
+
+    private final int size;
+    private final byte[] types;
+    private final int[] widths;
+    private final int[] stretches;
+    private final int[] shrinks;
+    private final int[] penalties;
+
+    private KnuthElementTable(int size) {
+        this.size = size;
+        this.types = new byte[size];
+        this.widths = new int[size];
+        this.stretches = new int[size];
+        this.shrinks = new int[size];
+        this.penalties = new int[size];
+    }
+
+    /**
+     * Builds the table for a list of elements.
+     * @param elements the elements (usually a {@link KnuthSequence})
+     * @return the table
+     */
+    public static KnuthElementTable lower(List<? extends ListElement> elements) {
+        KnuthElementTable table = new KnuthElementTable(elements.size());
+        int index = 0;
+        for (ListElement element : elements) {
+            table.set(index++, element);
+        }
+        return table;
+    }
+
+    private void set(int index, ListElement element) {
+        if (!(element instanceof KnuthElement)) {
+            types[index] = OTHER;
+            return;
+        }
+        KnuthElement knuthElement = (KnuthElement) element;
+        widths[index] = knuthElement.getWidth();
+        if (knuthElement.isBox()) {
+            types[index] = BOX;
+        } else if (knuthElement.isGlue()) {
+            types[index] = GLUE;
+            stretches[index] = knuthElement.getStretch();
+            shrinks[index] = knuthElement.getShrink();
+        } else if (knuthElement.isPenalty()) {
+            KnuthPenalty penalty = (KnuthPenalty) knuthElement;
+            types[index] = penalty.isPenaltyFlagged() ? PENALTY | FLAGGED : PENALTY;
+            penalties[index] = penalty.getPenalty();
+        }
+    }
+
+    /** @return the number of elements */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index the element index
+     * @return the type of the element: {@link #BOX}, {@link #GLUE}, {@link #PENALTY}
+     * or {@link #OTHER}
+     */
+    public int getType(int index) {
+        return types[index] & TYPE_MASK;
+    }
+
+    /**
+     * @param index the element index
+     * @return true if the element is a box
+     */
+    public boolean isBox(int index) {
+        return (types[index] & TYPE_MASK) == BOX;
+    }
+
+    /**
+     * @param index the element index
+     * @return true if the element is a glue
+     */
+    public boolean isGlue(int index) {
+        return (types[index] & TYPE_MASK) == GLUE;
+    }
+
+    /**
+     * @param index the element index
+     * @return true if the element is a penalty
+     */
+    public boolean isPenalty(int index) {
+        return (types[index] & TYPE_MASK) == PENALTY;
+    }
+
+    /**
+     * @param index the element index
+     * @return true if the element is a flagged penalty
+     */
+    public boolean isPenaltyFlagged(int index) {
+        return (types[index] & FLAGGED) != 0;
+    }
+
+    /**
+     * @param index the element index
+     * @return true if the element is a penalty that forces a break
+     */
+    public boolean isForcedBreak(int index) {
+        return isPenalty(index) && penalties[index] == -KnuthElement.INFINITE;
+    }
+
+    /**
+     * @param index the element index
+     * @return the width of the element
+     */
+    public int getWidth(int index) {
+        return widths[index];
+    }
+
+    /**
+     * @param index the element index
+     * @return the stretch of the element (0 unless it is a glue)
+     */
+    public int getStretch(int index) {
+        return stretches[index];
+    }
+
+    /**
+     * @param index the element index
+     * @return the shrink of the element (0 unless it is a glue)
+     */
+    public int getShrink(int index) {
+        return shrinks[index];
+    }
+
+    /**
+     * @param index the element index
+     * @return the penalty value of the element (0 unless it is a penalty)
+     */
+    public int getPenalty(int index) {
+        return penalties[index];
+    }
+
+    /**
+     * Returns the index of the first box at or after the given index.
+     * @param index the index to start searching at
+     * @return the index of the box, or {@link #size()} if there is none
+     */
+    public int nextBoxIndex(int index) {
+        while (index < size && (types[index] & TYPE_MASK) != BOX) {
+            index++;
+        }
+        return index;
+    }
+}
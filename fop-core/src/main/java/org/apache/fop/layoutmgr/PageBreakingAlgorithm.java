@@ -680,21 +680,15 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
             // use the stored value, do nothing
         } else {
             // compute the new value
-            int index;
             // ignore suppressed elements
-            for (index = prevBreakIndex + 1;
-                    !par.getElement(index).isBox();
-                    index++) {
-                //nop
-            }
+            int index = elements.nextBoxIndex(prevBreakIndex + 1);
             // find the next break
             for (;
                  index < breakIndex;
                  index++) {
-                if (par.getElement(index).isGlue() && par.getElement(index - 1).isBox()
-                    || par.getElement(index).isPenalty()
-                       && ((KnuthElement) par
-                           .getElement(index)).getPenalty() < KnuthElement.INFINITE) {
+                if (elements.isGlue(index) && elements.isBox(index - 1)
+                    || elements.isPenalty(index)
+                       && elements.getPenalty(index) < KnuthElement.INFINITE) {
                     // break found
                     break;
                 }
@@ -914,8 +908,7 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         }
 
         if (element.isPenalty() && ((KnuthPenalty) element).isPenaltyFlagged()
-            && getElement(activeNode.position).isPenalty()
-            && ((KnuthPenalty) getElement(activeNode.position)).isPenaltyFlagged()) {
+            && elements.isPenaltyFlagged(activeNode.position)) {
             // add demerit for consecutive breaks at flagged penalties
             demerits += repeatedFlaggedDemerit;
         }
@@ -19,9 +19,14 @@
 
 package org.apache.fop.pdf;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.output.CountingOutputStream;
 
@@ -41,6 +46,8 @@ public abstract class AbstractPDFStream extends PDFObject {
 
     private PDFNumber refLength = new PDFNumber();
 
+    private Future<StreamCache> backgroundEncoding;
+
     protected AbstractPDFStream() {
         this(true);
     }
@@ -165,17 +172,89 @@ public abstract class AbstractPDFStream extends PDFObject {
      * @throws IOException in case of an I/O problem
      */
     protected StreamCache encodeStream() throws IOException {
+        long startTime = System.nanoTime();
         //Allocate a temporary buffer to find out the size of the encoded stream
         final StreamCache encodedStream = StreamCacheFactory.getInstance()
                 .createStreamCache(getSizeHint());
         OutputStream filteredOutput
                 = getFilterList().applyFilters(encodedStream.getOutputStream());
-        outputRawStreamData(filteredOutput);
+        CountingOutputStream rawOutput = new CountingOutputStream(filteredOutput);
+        outputRawStreamData(rawOutput);
         filteredOutput.flush();
         filteredOutput.close();
+        streamEncoded(rawOutput.getByteCount(), encodedStream.getSize(), startTime);
         return encodedStream;
     }
 
+    private void streamEncoded(long unencodedLength, long encodedLength, long startTime) {
+        PDFDocument doc = getDocument();
+        if (doc != null) {
+            doc.getOutputStatistics().streamEncoded(unencodedLength, encodedLength,
+                    System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Indicates whether this stream may be encoded on another thread, through
+     * {@link #encodeInBackground(ExecutorService)}, before being output.
+     * @return true if the stream supports being encoded in the background
+     */
+    protected boolean supportsParallelEncoding() {
+        return false;
+    }
+
+    /**
+     * Starts encoding this stream on the given executor. The filters are set up, and the raw
+     * data retrieved, on the calling thread; only the filtering itself (compression, encryption)
+     * is done by the executor. {@link #output(OutputStream)} then waits for the encoded data.
+     * @param executor the executor to encode the stream with
+     * @throws IOException in case of an I/O problem
+     */
+    void encodeInBackground(ExecutorService executor) throws IOException {
+        setupFilterList();
+        final StreamCache encodedStream = StreamCacheFactory.getInstance()
+                .createStreamCache(getSizeHint());
+        final OutputStream filteredOutput
+                = getFilterList().applyFilters(encodedStream.getOutputStream());
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        outputRawStreamData(raw);
+        final byte[] rawData = raw.toByteArray();
+        backgroundEncoding = executor.submit(new Callable<StreamCache>() {
+            public StreamCache call() throws IOException {
+                long startTime = System.nanoTime();
+                filteredOutput.write(rawData);
+                filteredOutput.flush();
+                filteredOutput.close();
+                streamEncoded(rawData.length, encodedStream.getSize(), startTime);
+                return encodedStream;
+            }
+        });
+    }
+
+    /**
+     * Indicates whether this stream is being, or has been, encoded in the background.
+     * @return true if {@link #encodeInBackground(ExecutorService)} has been called
+     */
+    boolean isEncodingInBackground() {
+        return backgroundEncoding != null;
+    }
+
+    private StreamCache getBackgroundEncodedStream() throws IOException {
+        try {
+            return backgroundEncoding.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while encoding a stream", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            backgroundEncoding = null;
+        }
+    }
+
     /**
      * Encodes and writes a stream directly to an OutputStream. The length of
      * the stream, in this case, is set on a PDFNumber object that has to be
@@ -196,9 +275,12 @@ public abstract class AbstractPDFStream extends PDFObject {
         //Stream contents
         CloseBlockerOutputStream cbout = new CloseBlockerOutputStream(out);
         CountingOutputStream cout = new CountingOutputStream(cbout);
+        long startTime = System.nanoTime();
         OutputStream filteredOutput = getFilterList().applyFilters(cout);
-        outputRawStreamData(filteredOutput);
+        CountingOutputStream rawOutput = new CountingOutputStream(filteredOutput);
+        outputRawStreamData(rawOutput);
         filteredOutput.close();
+        streamEncoded(rawOutput.getByteCount(), cout.getByteCount(), startTime);
         refLength.setNumber(cout.getCount());
         bytesWritten += cout.getCount();
 
@@ -217,14 +299,20 @@ public abstract class AbstractPDFStream extends PDFObject {
      */
     @Override
     public int output(OutputStream stream) throws IOException {
-        setupFilterList();
+        StreamCache encodedStream = null;
+        if (backgroundEncoding != null) {
+            encodedStream = getBackgroundEncodedStream();
+        } else {
+            setupFilterList();
+        }
 
         CountingOutputStream cout = new CountingOutputStream(stream);
         StringBuilder textBuffer = new StringBuilder(64);
 
-        StreamCache encodedStream = null;
         final Object lengthEntry;
-        if (encodeOnTheFly) {
+        if (encodedStream != null) {
+            lengthEntry = encodedStream.getSize();
+        } else if (encodeOnTheFly) {
             if (!refLength.hasObjectNumber()) {
                 registerChildren();
             }
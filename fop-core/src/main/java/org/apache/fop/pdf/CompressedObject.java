@@ -37,6 +37,14 @@ interface CompressedObject {
      */
     PDFObjectNumber getObjectNumber();
 
+    /**
+     * Indicates whether this object has an object number, i.e. whether it is an indirect
+     * object. Direct objects cannot be stored in an object stream.
+     *
+     * @return true if this object has an object number
+     */
+    boolean hasObjectNumber();
+
     /**
      * Outputs this object's content into the given stream.
      *
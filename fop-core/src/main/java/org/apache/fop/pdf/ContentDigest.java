@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes a digest identifying the content of a PDF object, which is used to find
+ * objects that are identical to an object already in the document. The digest covers the
+ * type of the object, the values making up its dictionary and its raw stream data.
+ */
+final class ContentDigest {
+
+    private final MessageDigest digest;
+
+    /**
+     * Creates a new digest.
+     * @param type the type of the object whose content is digested
+     */
+    ContentDigest(String type) {
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        update(type);
+    }
+
+    /**
+     * Adds a value to the digest. Dictionaries and arrays are added entry by entry,
+     * indirect objects by their object number.
+     * @param value the value, may be null
+     * @return this digest
+     */
+    ContentDigest update(Object value) {
+        if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            update("bytes " + bytes.length);
+            digest.update(bytes);
+        } else if (value instanceof PDFObject && ((PDFObject) value).hasObjectNumber()) {
+            update(((PDFObject) value).makeReference());
+        } else if (value instanceof PDFDictionary) {
+            PDFDictionary dict = (PDFDictionary) value;
+            update("<<");
+            for (String key : dict.keySet()) {
+                update(key);
+                update(dict.get(key));
+            }
+            update(">>");
+        } else if (value instanceof PDFArray) {
+            PDFArray array = (PDFArray) value;
+            update("[");
+            for (int i = 0; i < array.length(); i++) {
+                update(array.get(i));
+            }
+            update("]");
+        } else if (value instanceof String) {
+            digest.update(((String) value).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        } else if (value == null) {
+            update("null");
+        } else {
+            update(value.getClass().getName() + " " + value);
+        }
+        return this;
+    }
+
+    /**
+     * Returns an output stream adding everything written to it to the digest.
+     * @return the output stream
+     */
+    OutputStream getOutputStream() {
+        return new OutputStream() {
+            public void write(int b) {
+                digest.update((byte) b);
+            }
+
+            public void write(byte[] b, int off, int len) {
+                digest.update(b, off, len);
+            }
+        };
+    }
+
+    /**
+     * Completes the digest.
+     * @return the digest as a hexadecimal string
+     */
+    String getHexDigest() {
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Formats a digest as a hexadecimal string.
+     * @param bytes the digest
+     * @return the hexadecimal string
+     */
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
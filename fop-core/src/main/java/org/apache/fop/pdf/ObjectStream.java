@@ -22,21 +22,23 @@ package org.apache.fop.pdf;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.ArrayList;
-import java.util.List;
-
-import org.apache.fop.pdf.xref.CompressedObjectReference;
 
 /**
- * An object stream, as described in section 3.4.6 of the PDF 1.5 Reference.
+ * An object stream, as described in section 3.4.6 of the PDF 1.5 Reference. Objects are
+ * serialized as soon as they are added, so that they can be released before the stream
+ * is written.
  */
 public class ObjectStream extends PDFStream {
 
     private static final PDFName OBJ_STM = new PDFName("ObjStm");
 
-    private List<CompressedObject> objects = new ArrayList<CompressedObject>();
+    private StringBuilder offsetsPart = new StringBuilder();
+
+    private ByteArrayOutputStream streamContent = new ByteArrayOutputStream();
+
+    private int objectCount;
 
-    private int firstObjectOffset;
+    private boolean complete;
 
     ObjectStream() {
         super(false);
@@ -47,39 +49,80 @@ public class ObjectStream extends PDFStream {
         put("Extends", previous);
     }
 
-    CompressedObjectReference addObject(CompressedObject obj) {
+    /**
+     * Adds an object to this stream.
+     *
+     * @param obj the object to add
+     * @return the index of the object in this stream
+     * @throws IOException if an I/O error occurs while serializing the object
+     */
+    int addObject(CompressedObject obj) throws IOException {
         if (obj == null) {
             throw new NullPointerException("obj must not be null");
         }
-        CompressedObjectReference reference = new CompressedObjectReference(obj.getObjectNumber(),
-                getObjectNumber(), objects.size());
-        objects.add(obj);
-        return reference;
+        if (complete) {
+            throw new IllegalStateException("No objects can be added to a complete object stream");
+        }
+        if (!obj.hasObjectNumber()) {
+            throw new IllegalStateException("Direct objects cannot be added to an object stream");
+        }
+        offsetsPart.append(obj.getObjectNumber())
+                .append(' ')
+                .append(streamContent.size())
+                .append('\n');
+        obj.output(streamContent);
+        return objectCount++;
+    }
+
+    /**
+     * Returns the number of objects in this stream.
+     * @return the number of objects
+     */
+    int getObjectCount() {
+        return objectCount;
+    }
+
+    /**
+     * Returns the number of bytes taken by the objects in this stream, before compression.
+     * @return the size of the objects
+     */
+    int getContentSize() {
+        return streamContent.size();
+    }
+
+    /**
+     * Marks this stream as complete: no more objects will be added to it, and it may be
+     * compressed in the background.
+     */
+    void setComplete() {
+        complete = true;
+    }
+
+    @Override
+    protected boolean supportsParallelEncoding() {
+        return complete;
     }
 
     @Override
     protected void outputRawStreamData(OutputStream out) throws IOException {
-        int currentOffset = 0;
-        StringBuilder offsetsPart = new StringBuilder();
-        ByteArrayOutputStream streamContent = new ByteArrayOutputStream();
-        for (CompressedObject object : objects) {
-            offsetsPart.append(object.getObjectNumber())
-                    .append(' ')
-                    .append(currentOffset)
-                    .append('\n');
-            currentOffset += object.output(streamContent);
-        }
-        byte[] offsets = PDFDocument.encode(offsetsPart.toString());
-        firstObjectOffset = offsets.length;
-        out.write(offsets);
+        out.write(PDFDocument.encode(offsetsPart.toString()));
         streamContent.writeTo(out);
     }
 
     @Override
     protected void populateStreamDict(Object lengthEntry) {
         put("Type", OBJ_STM);
-        put("N", objects.size());
-        put("First", firstObjectOffset);
+        put("N", objectCount);
+        put("First", offsetsPart.length());
         super.populateStreamDict(lengthEntry);
     }
+
+    @Override
+    public int output(OutputStream stream) throws IOException {
+        int len = super.output(stream);
+        //the following streams extend this one, so release the data that has been written
+        offsetsPart = null;
+        streamContent = null;
+        return len;
+    }
 }
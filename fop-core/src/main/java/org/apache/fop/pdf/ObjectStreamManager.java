@@ -19,51 +19,85 @@
 
 package org.apache.fop.pdf;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
 
-import org.apache.fop.pdf.xref.CompressedObjectReference;
+import org.apache.fop.pdf.xref.CrossReferenceIndex;
 
 /**
  * Manages a collection of object streams, creating new streams as necessary to keep the
- * number of objects in each stream at the recommended value. Streams are related to each
- * other through the use of the Extends entry in the stream dictionary.
+ * number of objects in each stream at the configured value. Streams are related to each
+ * other through the use of the Extends entry in the stream dictionary. A stream is
+ * written out as soon as it is complete, rather than with the trailer.
  */
 class ObjectStreamManager {
 
-    private static final int OBJECT_STREAM_CAPACITY = 100;
+    /** The default maximum number of objects in an object stream */
+    static final int DEFAULT_MAX_OBJECTS = 100;
 
     private final PDFDocument pdfDocument;
 
-    private final List<CompressedObjectReference> compressedObjectReferences;
+    private final CrossReferenceIndex objectReferences;
 
-    private int numObjectsInStream;
+    private final int maxObjects;
+
+    private final int maxSize;
+
+    private ObjectStream previousObjectStream;
 
     private ObjectStream currentObjectStream;
 
-    ObjectStreamManager(PDFDocument pdfDocument) {
+    ObjectStreamManager(PDFDocument pdfDocument, CrossReferenceIndex objectReferences) {
+        this(pdfDocument, objectReferences, DEFAULT_MAX_OBJECTS, 0);
+    }
+
+    /**
+     * Creates a new manager.
+     *
+     * @param pdfDocument the document the object streams belong to
+     * @param objectReferences the index recording which stream each object is stored in
+     * @param maxObjects the maximum number of objects in a stream
+     * @param maxSize the number of bytes of uncompressed objects from which a stream is
+     * considered full, 0 for no limit
+     */
+    ObjectStreamManager(PDFDocument pdfDocument, CrossReferenceIndex objectReferences, int maxObjects,
+            int maxSize) {
         this.pdfDocument = pdfDocument;
-        createObjectStream();
-        compressedObjectReferences = new ArrayList<CompressedObjectReference>();
+        this.objectReferences = objectReferences;
+        this.maxObjects = maxObjects;
+        this.maxSize = maxSize;
     }
 
-    void add(CompressedObject compressedObject) {
-        if (numObjectsInStream++ == OBJECT_STREAM_CAPACITY) {
+    void add(CompressedObject compressedObject) throws IOException {
+        if (currentObjectStream == null) {
             createObjectStream();
-            numObjectsInStream = 1;
         }
-        compressedObjectReferences.add(currentObjectStream.addObject(compressedObject));
+        int index = currentObjectStream.addObject(compressedObject);
+        objectReferences.setCompressed(compressedObject.getObjectNumber().getNumber() - 1,
+                currentObjectStream.getObjectNumber().getNumber(), index);
+        if (currentObjectStream.getObjectCount() >= maxObjects
+                || (maxSize > 0 && currentObjectStream.getContentSize() >= maxSize)) {
+            completeObjectStream();
+        }
+    }
+
+    /**
+     * Completes the current object stream, if there is one. It is then written with the
+     * next objects of the document, and the next object added goes into a new stream.
+     */
+    void completeObjectStream() {
+        if (currentObjectStream != null) {
+            currentObjectStream.setComplete();
+            pdfDocument.outputBeforeTrailer(currentObjectStream);
+            previousObjectStream = currentObjectStream;
+            currentObjectStream = null;
+        }
     }
 
     private void createObjectStream() {
-        currentObjectStream = currentObjectStream == null
+        currentObjectStream = previousObjectStream == null
                 ? new ObjectStream()
-                : new ObjectStream(currentObjectStream);
+                : new ObjectStream(previousObjectStream);
         pdfDocument.assignObjectNumber(currentObjectStream);
         pdfDocument.addTrailerObject(currentObjectStream);
     }
-
-    List<CompressedObjectReference> getCompressedObjectReferences() {
-        return compressedObjectReferences;
-    }
 }
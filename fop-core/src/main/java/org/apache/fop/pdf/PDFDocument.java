@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -41,6 +42,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.xmlgraphics.image.loader.util.SoftMapCache;
 
 import org.apache.fop.pdf.StandardStructureAttributes.Table.Scope;
+import org.apache.fop.pdf.xref.CrossReferenceIndex;
 import org.apache.fop.pdf.xref.CrossReferenceStream;
 import org.apache.fop.pdf.xref.CrossReferenceTable;
 import org.apache.fop.pdf.xref.TrailerDictionary;
@@ -74,6 +76,9 @@ public class PDFDocument {
     /** the encoding to use when converting strings to PDF commands */
     public static final String ENCODING = "ISO-8859-1";
 
+    /** the default maximum number of objects in an object stream */
+    public static final int DEFAULT_OBJECT_STREAM_MAX_OBJECTS = ObjectStreamManager.DEFAULT_MAX_OBJECTS;
+
     /** the counter for object numbering */
     protected int objectcount;
 
@@ -83,8 +88,8 @@ public class PDFDocument {
     /** the current character position */
     protected long position;
 
-    /** the character position of each object */
-    protected List<Long> indirectObjectOffsets = new ArrayList<Long>();
+    /** the character position of each object, or the object stream holding it */
+    private final CrossReferenceIndex indirectObjectOffsets = new CrossReferenceIndex();
 
     protected List<PDFStructElem> structureTreeElements;
 
@@ -137,6 +142,17 @@ public class PDFDocument {
     private Map<String, PDFXObject> xObjectsMap = new HashMap<String, PDFXObject>();
     private SoftMapCache xObjectsMapFast = new SoftMapCache(false);
 
+    /** objects that identical objects are replaced with, by content digest */
+    private Map<String, PDFObject> contentDigests = new HashMap<String, PDFObject>();
+
+    /** the content digest of each object in contentDigests */
+    private Map<PDFObject, String> objectDigests = new IdentityHashMap<PDFObject, String>();
+
+    /** the number of objects that were replaced with an identical object */
+    private int deduplicatedObjectCount;
+
+    private final PDFOutputStatistics outputStatistics = new PDFOutputStatistics();
+
     private Map<String, PDFFont> fontMap = new HashMap<String, PDFFont>();
 
     private Map<String, List<String>> filterMap = new HashMap<String, List<String>>();
@@ -193,6 +209,18 @@ public class PDFDocument {
 
     private boolean forceUriBasicLink;
 
+    private int compressionThreads;
+
+    private ParallelStreamEncoder streamEncoder;
+
+    private boolean structureTreeFlushingEnabled;
+
+    private int objectStreamMaxObjects = DEFAULT_OBJECT_STREAM_MAX_OBJECTS;
+
+    private int objectStreamMaxSize;
+
+    private boolean objectStreamFlushingEnabled;
+
     /**
      * Creates an empty PDF document.
      *
@@ -404,6 +432,51 @@ public class PDFDocument {
         }
     }
 
+    /**
+     * Queues for output the structure elements of a page sequence, i.e. the given element and all
+     * the registered elements below it. Elements of the page sequence that didn't get any content
+     * are removed from the tree, like at the end of the document. Other elements, including those
+     * of the following page sequences, are left alone. This must only be called once all the pages
+     * of the page sequence have been rendered, and has no effect with linearization, which writes
+     * the structure tree after the pages.
+     * @param pageSequence the structure element of a page sequence whose pages are complete
+     * @throws IOException if an I/O error occurs while adding the elements to an object stream
+     */
+    public void flushStructureTree(PDFStructElem pageSequence) throws IOException {
+        if (structureTreeElements == null || linearizationEnabled) {
+            return;
+        }
+        List<PDFStructElem> openElements = new ArrayList<PDFStructElem>();
+        List<PDFStructElem> completeElements = new ArrayList<PDFStructElem>();
+        for (PDFStructElem structElem : structureTreeElements) {
+            if (!isInSubtree(structElem, pageSequence)) {
+                openElements.add(structElem);
+            } else if (structElem.hasObjectNumber()) {
+                completeElements.add(structElem);
+            } else if (structElem.parentElement.kids != null) {
+                structElem.parentElement.kids.remove(structElem);
+            }
+        }
+        structureTreeElements = openElements;
+        boolean useObjectStreams = useObjectStreams();
+        for (PDFStructElem structElem : completeElements) {
+            if (useObjectStreams) {
+                addToObjectStream(structElem);
+            } else {
+                objects.add(structElem);
+            }
+        }
+    }
+
+    private static boolean isInSubtree(PDFStructElem structElem, PDFStructElem subtreeRoot) {
+        for (PDFStructElem ancestor = structElem; ancestor != null; ancestor = ancestor.getParentStructElem()) {
+            if (ancestor == subtreeRoot) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Assigns the given scope to the given element and adds it to the structure tree. The
      * scope may not be added if it's not compatible with this document's PDF version.
@@ -528,7 +601,10 @@ public class PDFDocument {
         }
         if (obj instanceof PDFPage) {
             this.pages.notifyKidRegistered((PDFPage)obj);
-            pageObjs.add((PDFPage) obj);
+            if (linearizationEnabled) {
+                //only needed to reorder the pages
+                pageObjs.add((PDFPage) obj);
+            }
         }
         if (obj instanceof PDFLaunch) {
             this.launches.add((PDFLaunch) obj);
@@ -899,7 +975,8 @@ public class PDFDocument {
      * Add an image to the PDF document.
      * This adds an image to the PDF objects.
      * If an image with the same key already exists it will return the
-     * old {@link PDFXObject}.
+     * old {@link PDFXObject}. The same happens if an image with the same
+     * data and properties has been added under a different key.
      *
      * @param res the PDF resource context to add to, may be null
      * @param img the PDF image to add
@@ -918,10 +995,14 @@ public class PDFDocument {
 
         // setup image
         img.setup(this);
-        // create a new XObject
-        xObject = new PDFImageXObject(++this.xObjectCount, img);
-        registerObject(xObject);
-        this.resources.addXObject(xObject);
+        // create a new XObject unless an identical image has already been added
+        PDFImageXObject newXObject = new PDFImageXObject(this.xObjectCount + 1, img);
+        xObject = getCanonicalObject(getContentDigest(img), newXObject);
+        if (xObject == newXObject) {
+            this.xObjectCount++;
+            registerObject(xObject);
+            this.resources.addXObject(xObject);
+        }
         if (res != null) {
             res.addXObject(xObject);
         }
@@ -933,7 +1014,8 @@ public class PDFDocument {
      * Add a form XObject to the PDF document.
      * This adds a Form XObject to the PDF objects.
      * If a Form XObject with the same key already exists it will return the
-     * old {@link PDFFormXObject}.
+     * old {@link PDFFormXObject}. The same happens if a Form XObject with the
+     * same contents and resources has been added under a different key.
      *
      * @param res the PDF resource context to add to, may be null
      * @param cont the PDF Stream contents of the Form XObject
@@ -956,12 +1038,15 @@ public class PDFDocument {
             return xObject;
         }
 
-        xObject = new PDFFormXObject(
-                ++this.xObjectCount,
-                cont,
-                formres);
-        registerObject(xObject);
-        this.resources.addXObject(xObject);
+        // create a new XObject unless an identical one has already been added
+        String digest = getContentDigest(cont, formres);
+        PDFFormXObject newXObject = new PDFFormXObject(this.xObjectCount + 1, cont, formres);
+        xObject = getCanonicalObject(digest, newXObject);
+        if (xObject == newXObject) {
+            this.xObjectCount++;
+            registerObject(xObject);
+            this.resources.addXObject(xObject);
+        }
         if (res != null) {
             res.addXObject(xObject);
         }
@@ -969,6 +1054,113 @@ public class PDFDocument {
         return xObject;
     }
 
+    /**
+     * Returns the object that an object with the given content digest is to be replaced
+     * with. If an object with the same digest has been passed to this method before, that
+     * object is returned and the given object is counted as deduplicated. Otherwise, the
+     * given object is remembered and returned.
+     *
+     * @param digest a digest identifying the content of the object, null if the object
+     * is not to be deduplicated
+     * @param object the object
+     * @param <T> the type of the object
+     * @return the object to use in place of the given object
+     */
+    public <T extends PDFObject> T getCanonicalObject(String digest, T object) {
+        if (digest == null) {
+            return object;
+        }
+        PDFObject existing = contentDigests.get(digest);
+        if (existing == null) {
+            contentDigests.put(digest, object);
+            objectDigests.put(object, digest);
+            return object;
+        }
+        deduplicatedObjectCount++;
+        @SuppressWarnings("unchecked")
+        T canonical = (T) existing;
+        return canonical;
+    }
+
+    /**
+     * Returns the number of objects that were replaced with an identical object already
+     * in the document.
+     *
+     * @return the number of deduplicated objects
+     */
+    public int getDeduplicatedObjectCount() {
+        return deduplicatedObjectCount;
+    }
+
+    /**
+     * Returns the figures collected while this document is output: bytes per category of
+     * object, stream compression and time spent.
+     *
+     * @return the output statistics
+     */
+    public PDFOutputStatistics getOutputStatistics() {
+        return outputStatistics;
+    }
+
+    /**
+     * Returns the index recording where each object has been written: its character
+     * position, or the object stream holding it.
+     *
+     * @return the cross-reference index
+     */
+    protected CrossReferenceIndex getCrossReferenceIndex() {
+        return indirectObjectOffsets;
+    }
+
+    private String getContentDigest(PDFImage img) {
+        ContentDigest digest = new ContentDigest(img.isPS() ? "PS" : "Image");
+        digest.update(img.getWidth() + "x" + img.getHeight() + " " + img.getBitsPerComponent());
+        PDFDeviceColorSpace colorSpace = img.getColorSpace();
+        digest.update(colorSpace != null ? colorSpace.getName() : null);
+        digest.update(img.getICCStream());
+        digest.update(String.valueOf(img.isInverted()));
+        if (img.isTransparent()) {
+            PDFColor transp = img.getTransparentColor();
+            digest.update(transp.red255() + " " + transp.green255() + " " + transp.blue255());
+        }
+        digest.update(img.getMask());
+        PDFReference softMask = img.getSoftMaskReference();
+        if (softMask != null) {
+            //digest what the soft mask contains, not which object it is, so that images whose
+            //soft masks were added separately still match. A soft mask that wasn't added
+            //through addImage can only match itself.
+            String softMaskDigest = objectDigests.get(softMask.getObject());
+            digest.update(softMaskDigest != null ? softMaskDigest : softMask);
+        }
+        PDFFilter filter = img.getPDFFilter();
+        digest.update(filter != null ? filter.getName() : null);
+        digest.update(img.getFilterHint());
+        digest.update(String.valueOf(img.multipleFiltersAllowed()));
+        PDFDictionary dict = new PDFDictionary();
+        img.populateXObjectDictionary(dict);
+        digest.update(dict);
+        try {
+            img.outputImageData(digest.getOutputStream());
+        } catch (IOException ioe) {
+            //the error is reported once the image is written, don't deduplicate it
+            return null;
+        }
+        return digest.getHexDigest();
+    }
+
+    private String getContentDigest(PDFStream cont, PDFReference formres) {
+        ContentDigest digest = new ContentDigest("Form");
+        digest.update(cont.getDictionary());
+        digest.update(formres);
+        try {
+            cont.outputRawStreamData(digest.getOutputStream());
+        } catch (IOException ioe) {
+            //the error is reported once the form is written, don't deduplicate it
+            return null;
+        }
+        return digest.getHexDigest();
+    }
+
     /**
      * Get the root Outlines object. This method does not write
      * the outline to the PDF document, it simply creates a
@@ -1049,6 +1241,7 @@ public class PDFDocument {
 
     private void output(OutputStream stream, List<? extends PDFObject> objs) throws IOException {
         outputStarted = true;
+        long startTime = System.nanoTime();
         //Write out objects until the list is empty. This approach (used with a
         //LinkedList) allows for output() methods to create and register objects
         //on the fly even during serialization.
@@ -1059,6 +1252,7 @@ public class PDFDocument {
                 PDFObject object = objs.remove(0);
                 if (object.supportsObjectStream()) {
                     addToObjectStream(object);
+                    releaseWrittenObject(object);
                 } else {
                     indirectObjects.add(object);
                 }
@@ -1066,17 +1260,59 @@ public class PDFDocument {
             objs.addAll(indirectObjects);
         }
 
+        ParallelStreamEncoder encoder = getStreamEncoder();
         while (!objs.isEmpty()) {
+            if (encoder != null) {
+                encoder.encodeAhead(objs);
+            }
             PDFObject object = objs.remove(0);
             streamIndirectObject(object, stream);
+            if (encoder != null) {
+                encoder.written(object);
+            }
+            releaseWrittenObject(object);
+        }
+        outputStatistics.outputWritten(System.nanoTime() - startTime);
+    }
+
+    private ParallelStreamEncoder getStreamEncoder() {
+        if (streamEncoder == null && compressionThreads > 0 && !linearizationEnabled) {
+            streamEncoder = new ParallelStreamEncoder(compressionThreads);
         }
+        return streamEncoder;
     }
 
-    private void addToObjectStream(CompressedObject object) {
+    /**
+     * Drops the references the document keeps to an object that has been output, unless
+     * they are still needed for linearization, which reorders all pages at the end.
+     */
+    private void releaseWrittenObject(PDFObject object) {
+        if (object instanceof PDFPage && !linearizationEnabled) {
+            PDFPage page = (PDFPage) object;
+            page.getPDFResources().releaseContext(page);
+        }
+    }
+
+    private void addToObjectStream(CompressedObject object) throws IOException {
+        getObjectStreamManager().add(object);
+    }
+
+    private ObjectStreamManager getObjectStreamManager() {
         if (objectStreamManager == null) {
-            objectStreamManager = new ObjectStreamManager(this);
+            objectStreamManager = new ObjectStreamManager(this, indirectObjectOffsets, objectStreamMaxObjects,
+                    objectStreamMaxSize);
+        }
+        return objectStreamManager;
+    }
+
+    /**
+     * Completes the object stream objects are currently added to, so that it is written with
+     * the next call to {@link #output(OutputStream)} even if it isn't full.
+     */
+    public void flushObjectStreams() {
+        if (objectStreamManager != null) {
+            objectStreamManager.completeObjectStream();
         }
-        objectStreamManager.add(object);
     }
 
     protected void writeTrailer(OutputStream stream, int first, int last, int size, long mainOffset, long startxref)
@@ -1101,15 +1337,13 @@ public class PDFDocument {
         recordObjectOffset(o);
         int len = outputIndirectObject(o, stream);
         this.position += len;
+        outputStatistics.objectWritten(o, len);
         return len;
     }
 
     private void recordObjectOffset(PDFObject object) {
         int index = object.getObjectNumber().getNumber() - 1;
-        while (indirectObjectOffsets.size() <= index) {
-            indirectObjectOffsets.add(null);
-        }
-        indirectObjectOffsets.set(index, position);
+        indirectObjectOffsets.setOffset(index, position);
     }
 
     /**
@@ -1163,6 +1397,18 @@ public class PDFDocument {
         this.position += bin.length;
     }
 
+    /**
+     * Moves an object registered with {@link #addTrailerObject(PDFObject)} to the objects written
+     * by the next call to {@link #output(OutputStream)}.
+     *
+     * @param obj an object that is complete before the end of the document
+     */
+    void outputBeforeTrailer(PDFObject obj) {
+        if (trailerObjects.remove(obj)) {
+            objects.add(obj);
+        }
+    }
+
     /**
      * Write the trailer
      *
@@ -1203,6 +1449,10 @@ public class PDFDocument {
             trailerOutputHelper.outputStructureTreeElements(stream);
         }
         output(stream, trailerObjects);
+        if (streamEncoder != null) {
+            streamEncoder.shutdown();
+            streamEncoder = null;
+        }
         TrailerDictionary trailerDictionary = createTrailerDictionary(true);
         long startxref = trailerOutputHelper.outputCrossReferenceObject(stream, trailerDictionary, 0,
                 indirectObjectOffsets.size(), indirectObjectOffsets.size());
@@ -1278,13 +1528,10 @@ public class PDFDocument {
     }
 
     private class CompressedTrailerOutputHelper implements TrailerOutputHelper {
-        public void outputStructureTreeElements(OutputStream stream) {
+        public void outputStructureTreeElements(OutputStream stream) throws IOException {
             assert structureTreeElements.size() > 0;
-            if (objectStreamManager == null) {
-                objectStreamManager = new ObjectStreamManager(PDFDocument.this);
-            }
             for (PDFStructElem structElem : structureTreeElements) {
-                objectStreamManager.add(structElem);
+                addToObjectStream(structElem);
             }
         }
 
@@ -1292,8 +1539,7 @@ public class PDFDocument {
                 TrailerDictionary trailerDictionary, int first, int last, int size) throws IOException {
             // Outputting the object streams should not have created new indirect objects
             assert objects.isEmpty();
-            new CrossReferenceStream(PDFDocument.this, trailerDictionary, position,
-                    indirectObjectOffsets, objectStreamManager.getCompressedObjectReferences())
+            new CrossReferenceStream(PDFDocument.this, trailerDictionary, position, indirectObjectOffsets)
                     .output(stream);
             return position;
         }
@@ -1345,4 +1591,76 @@ public class PDFDocument {
     public void setForceUriBasicLink(boolean forceUriBasicLink) {
         this.forceUriBasicLink = forceUriBasicLink;
     }
+
+    public int getCompressionThreads() {
+        return compressionThreads;
+    }
+
+    /**
+     * Sets the number of threads compressing the streams of the document while it is being
+     * written. With 0, the default, streams are compressed by the thread writing the document.
+     * Ignored when linearization is enabled.
+     * @param compressionThreads the number of compression threads
+     */
+    public void setCompressionThreads(int compressionThreads) {
+        this.compressionThreads = compressionThreads;
+    }
+
+    public boolean isStructureTreeFlushingEnabled() {
+        return structureTreeFlushingEnabled;
+    }
+
+    /**
+     * Enables writing the structure elements of tagged PDF, and the parts of the parent tree
+     * referring to them, once the page sequence they belong to is complete, instead of keeping
+     * them in memory until the end of the document. Ignored when linearization is enabled.
+     * @param structureTreeFlushingEnabled true to write the structure tree incrementally
+     */
+    public void setStructureTreeFlushingEnabled(boolean structureTreeFlushingEnabled) {
+        this.structureTreeFlushingEnabled = structureTreeFlushingEnabled;
+    }
+
+    public int getObjectStreamMaxObjects() {
+        return objectStreamMaxObjects;
+    }
+
+    /**
+     * Sets the maximum number of objects in an object stream. An object stream is written as
+     * soon as it is full. The default is {@link #DEFAULT_OBJECT_STREAM_MAX_OBJECTS}.
+     * @param objectStreamMaxObjects the maximum number of objects, between 1 and 65535
+     */
+    public void setObjectStreamMaxObjects(int objectStreamMaxObjects) {
+        if (objectStreamMaxObjects < 1 || objectStreamMaxObjects > 0xFFFF) {
+            throw new IllegalArgumentException("The maximum number of objects in an object stream must be"
+                    + " between 1 and 65535: " + objectStreamMaxObjects);
+        }
+        this.objectStreamMaxObjects = objectStreamMaxObjects;
+    }
+
+    public int getObjectStreamMaxSize() {
+        return objectStreamMaxSize;
+    }
+
+    /**
+     * Sets the number of bytes of uncompressed objects from which an object stream is
+     * considered full, in addition to the maximum number of objects.
+     * @param objectStreamMaxSize the size in bytes, 0 (the default) for no limit
+     */
+    public void setObjectStreamMaxSize(int objectStreamMaxSize) {
+        this.objectStreamMaxSize = objectStreamMaxSize;
+    }
+
+    public boolean isObjectStreamFlushingEnabled() {
+        return objectStreamFlushingEnabled;
+    }
+
+    /**
+     * Enables writing the current object stream at the end of every page sequence, even if it
+     * isn't full, so that the objects of a page sequence don't stay in memory until the next
+     * object stream fills up.
+     * @param objectStreamFlushingEnabled true to write the object stream after each page sequence
+     */
+    public void setObjectStreamFlushingEnabled(boolean objectStreamFlushingEnabled) {
+        this.objectStreamFlushingEnabled = objectStreamFlushingEnabled;
+    }
 }
@@ -50,6 +50,19 @@ public class PDFEmbeddedFile extends PDFStream {
         return false;
     }
 
+    /**
+     * Returns a digest identifying the content of this embedded file. It covers the
+     * dictionary, including the /Subtype and /Params entries, as well as the file data.
+     * @return the digest as a hexadecimal string
+     * @throws IOException if an I/O error occurs while reading the file data
+     */
+    public String getContentDigest() throws IOException {
+        ContentDigest digest = new ContentDigest("EmbeddedFile");
+        digest.update(getDictionary());
+        outputRawStreamData(digest.getOutputStream());
+        return digest.getHexDigest();
+    }
+
     /** {@inheritDoc} */
     protected void populateStreamDict(Object lengthEntry) {
         super.populateStreamDict(lengthEntry);
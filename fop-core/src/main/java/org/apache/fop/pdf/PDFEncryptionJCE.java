@@ -22,12 +22,17 @@ package org.apache.fop.pdf;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -58,6 +63,37 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
 
     private static byte[] ivZero = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
 
+    /** The number of initialization vectors drawn at once from the random number generator. */
+    private static final int IV_BATCH_SIZE = 64;
+
+    /**
+     * The ciphers of the current thread, by transformation. Obtaining a cipher from the provider
+     * is much more expensive than initializing it, so strings, which are encrypted in one go, are
+     * encrypted with a cipher re-initialized for every string.
+     */
+    private static final ThreadLocal<Map<String, Cipher>> THREAD_CIPHERS
+            = new ThreadLocal<Map<String, Cipher>>() {
+        protected Map<String, Cipher> initialValue() {
+            return new HashMap<String, Cipher>();
+        }
+    };
+
+    /**
+     * The ciphers not currently in use by a stream. A stream keeps its cipher until it is closed,
+     * which may happen on another thread when streams are encoded in parallel.
+     */
+    private final Queue<Cipher> streamCiphers = new ConcurrentLinkedQueue<Cipher>();
+
+    private byte[] ivs;
+
+    private int ivOffset;
+
+    private int lastKeyObjectNumber = -1;
+
+    private int lastKeyGeneration;
+
+    private byte[] lastKey;
+
     private class EncryptionInitializer {
 
         private final PDFEncryptionParams encryptionParams;
@@ -642,22 +678,44 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
 
         /** {@inheritDoc} */
         public OutputStream applyFilter(OutputStream out) throws IOException {
+            Cipher cipher = streamCiphers.poll();
             if (useAlgorithm31a) {
-                byte[] iv = new byte[16];
-                random.nextBytes(iv);
-                Cipher cipher = initCipher(encryptionKey, false, iv);
+                byte[] iv = nextIV();
+                cipher = initCipher(cipher, encryptionKey, false, iv);
                 out.write(iv);
                 out.flush();
-                return new CipherOutputStream(out, cipher);
             } else {
                 byte[] key = createEncryptionKey(streamNumber.getNumber(), streamGeneration);
-                Cipher cipher = initCipher(key);
-                return new CipherOutputStream(out, cipher);
+                cipher = initCipher(cipher, key);
             }
+            return new StreamCipherOutputStream(out, cipher);
         }
 
     }
 
+    /** Gives the cipher of a stream back for use by other streams, once the stream is closed. */
+    private class StreamCipherOutputStream extends CipherOutputStream {
+
+        private Cipher cipher;
+
+        StreamCipherOutputStream(OutputStream out, Cipher cipher) {
+            super(out, cipher);
+            this.cipher = cipher;
+        }
+
+        /** {@inheritDoc} */
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (cipher != null) {
+                    streamCiphers.offer(cipher);
+                    cipher = null;
+                }
+            }
+        }
+    }
+
     private PDFEncryptionJCE(PDFObjectNumber objectNumber, PDFEncryptionParams params, PDFDocument pdf) {
         setObjectNumber(objectNumber);
         try {
@@ -698,13 +756,16 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
             throw new IllegalStateException("No object number could be obtained for a PDF object");
         }
         if (useAlgorithm31a) {
-            byte[] iv = new byte[16];
-            random.nextBytes(iv);
-            byte[] encryptedData = encryptWithKey(encryptionKey, data, false, iv);
-            byte[] storedData = new byte[encryptedData.length + 16];
-            System.arraycopy(iv, 0, storedData, 0, 16);
-            System.arraycopy(encryptedData, 0, storedData, 16, encryptedData.length);
-            return storedData;
+            byte[] iv = nextIV();
+            Cipher cipher = initCipher(getThreadCipher(getAESTransformation(false)), encryptionKey, false, iv);
+            try {
+                byte[] storedData = new byte[16 + cipher.getOutputSize(data.length)];
+                System.arraycopy(iv, 0, storedData, 0, 16);
+                int length = 16 + cipher.doFinal(data, 0, data.length, storedData, 16);
+                return length == storedData.length ? storedData : Arrays.copyOf(storedData, length);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e.getMessage());
+            }
         } else {
             byte[] key = createEncryptionKey(o.getObjectNumber().getNumber(), o.getGeneration());
             return encryptWithKey(key, data);
@@ -737,7 +798,7 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
 
     private static byte[] encryptWithKey(byte[] key, byte[] data) {
         try {
-            final Cipher c = initCipher(key);
+            final Cipher c = initCipher(getThreadCipher("RC4"), key);
             return c.doFinal(data);
         } catch (IllegalBlockSizeException e) {
             throw new IllegalStateException(e.getMessage());
@@ -748,7 +809,8 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
 
     private static byte[] encryptWithKey(byte[] key, byte[] data, boolean noPadding, byte[] iv) {
         try {
-            final Cipher c = initCipher(key, noPadding, iv);
+            final Cipher c = initCipher(getThreadCipher(getAESTransformation(noPadding)),
+                    key, noPadding, iv);
             return c.doFinal(data);
         } catch (IllegalBlockSizeException e) {
             throw new IllegalStateException(e.getMessage());
@@ -757,14 +819,23 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
         }
     }
 
-    private static Cipher initCipher(byte[] key) {
+    private static String getAESTransformation(boolean noPadding) {
+        return noPadding ? "AES/CBC/NoPadding" : "AES/CBC/PKCS5Padding";
+    }
+
+    private static Cipher getThreadCipher(String transformation) {
+        Map<String, Cipher> ciphers = THREAD_CIPHERS.get();
+        Cipher cipher = ciphers.get(transformation);
+        if (cipher == null) {
+            cipher = getCipher(transformation);
+            ciphers.put(transformation, cipher);
+        }
+        return cipher;
+    }
+
+    private static Cipher getCipher(String transformation) {
         try {
-            SecretKeySpec keyspec = new SecretKeySpec(key, "RC4");
-            Cipher cipher = Cipher.getInstance("RC4");
-            cipher.init(Cipher.ENCRYPT_MODE, keyspec);
-            return cipher;
-        } catch (InvalidKeyException e) {
-            throw new IllegalStateException(e);
+            return Cipher.getInstance(transformation);
         } catch (NoSuchAlgorithmException e) {
             throw new UnsupportedOperationException(e);
         } catch (NoSuchPaddingException e) {
@@ -772,25 +843,62 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
         }
     }
 
-    private static Cipher initCipher(byte[] key, boolean noPadding, byte[] iv) {
+    /**
+     * Initializes an RC4 cipher for encryption.
+     * @param cipher the cipher to initialize, or null to obtain a new one
+     * @param key the key
+     * @return the initialized cipher
+     */
+    private static Cipher initCipher(Cipher cipher, byte[] key) {
         try {
-            SecretKeySpec skeySpec = new SecretKeySpec(key, "AES");
-            IvParameterSpec ivspec = new IvParameterSpec(iv);
-            Cipher cipher = noPadding ? Cipher.getInstance("AES/CBC/NoPadding") : Cipher
-                    .getInstance("AES/CBC/PKCS5Padding");
-            cipher.init(Cipher.ENCRYPT_MODE, skeySpec, ivspec);
+            if (cipher == null) {
+                cipher = getCipher("RC4");
+            }
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "RC4"));
+            return cipher;
+        } catch (InvalidKeyException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Initializes an AES cipher, in CBC mode, for encryption.
+     * @param cipher the cipher to initialize, or null to obtain a new one
+     * @param key the key
+     * @param noPadding true if the data is not padded
+     * @param iv the initialization vector
+     * @return the initialized cipher
+     */
+    private static Cipher initCipher(Cipher cipher, byte[] key, boolean noPadding, byte[] iv) {
+        try {
+            if (cipher == null) {
+                cipher = getCipher(getAESTransformation(noPadding));
+            }
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
             return cipher;
         } catch (InvalidKeyException e) {
             throw new IllegalStateException(e);
-        } catch (NoSuchAlgorithmException e) {
-            throw new UnsupportedOperationException(e);
-        } catch (NoSuchPaddingException e) {
-            throw new UnsupportedOperationException(e);
         } catch (InvalidAlgorithmParameterException e) {
             throw new UnsupportedOperationException(e);
         }
     }
 
+    /**
+     * Returns a new initialization vector. They are drawn from the random number generator
+     * {@link #IV_BATCH_SIZE} at a time, since every encrypted string and stream needs one.
+     * @return a 16 byte initialization vector
+     */
+    private byte[] nextIV() {
+        if (ivs == null || ivOffset == ivs.length) {
+            ivs = new byte[16 * IV_BATCH_SIZE];
+            random.nextBytes(ivs);
+            ivOffset = 0;
+        }
+        byte[] iv = Arrays.copyOfRange(ivs, ivOffset, ivOffset + 16);
+        ivOffset += 16;
+        return iv;
+    }
+
     /**
      * Applies Algorithm 3.1 from the PDF 1.4 Reference.
      *
@@ -799,6 +907,10 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
      * @return the key to use for encryption
      */
     private byte[] createEncryptionKey(int objectNumber, int generationNumber) {
+        // The strings of an object are usually encrypted one after the other
+        if (objectNumber == lastKeyObjectNumber && generationNumber == lastKeyGeneration) {
+            return lastKey;
+        }
         // Step 1 passed in
         // Step 2
         byte[] md5Input = prepareMD5Input(objectNumber, generationNumber);
@@ -809,6 +921,9 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
         int keyLength = Math.min(16, md5Input.length);
         byte[] key = new byte[keyLength];
         System.arraycopy(hash, 0, key, 0, keyLength);
+        lastKeyObjectNumber = objectNumber;
+        lastKeyGeneration = generationNumber;
+        lastKey = key;
         return key;
     }
 
@@ -20,6 +20,7 @@
 package org.apache.fop.pdf;
 
 // Java
+import java.awt.color.ICC_Profile;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.io.ByteArrayInputStream;
@@ -1394,7 +1395,7 @@ public class PDFFactory {
             AbstractPDFStream embeddedFont = null;
             if (desc.getFontType() == FontType.TYPE0) {
                 MultiByteFont mbfont = (MultiByteFont) font;
-                FontFileReader reader = new FontFileReader(in);
+                FontFileReader reader = new FontFileReader(in, font.getResolvedEmbedFileURI());
                 byte[] fontBytes;
                 String header = OFFontLoader.readHeader(reader);
                 boolean isCFF = mbfont.isOTFFile();
@@ -1425,7 +1426,7 @@ public class PDFFactory {
                 }
             } else if (desc.getFontType() == FontType.TYPE1C) {
                 if (font.getEmbeddingMode() == EmbeddingMode.SUBSET) {
-                    FontFileReader reader = new FontFileReader(in);
+                    FontFileReader reader = new FontFileReader(in, font.getResolvedEmbedFileURI());
                     String header = OFFontLoader.readHeader(reader);
                     byte[] fontBytes = getFontSubsetBytes(reader, (MultiByteFont) font, header, fontPrefix, desc, true);
                     embeddedFont = getFontStream(font, fontBytes, true);
@@ -1480,9 +1481,15 @@ public class PDFFactory {
             otfFile.readFont(reader, fontPrefix + desc.getEmbedFontName(), mbfont);
             return otfFile.getFontSubset();
         } else {
-            TTFSubSetFile otfFile = new TTFSubSetFile();
-            otfFile.readFont(reader, mbfont.getTTCName(), header, mbfont.getUsedGlyphs());
-            return otfFile.getFontSubset();
+            // another document may have used the same glyphs of a shared font
+            byte[] subset = mbfont.getCachedSubset();
+            if (subset == null) {
+                TTFSubSetFile otfFile = new TTFSubSetFile();
+                otfFile.readFont(reader, mbfont.getTTCName(), header, mbfont.getUsedGlyphs());
+                subset = otfFile.getFontSubset();
+                mbfont.cacheSubset(subset);
+            }
+            return subset;
         }
     }
 
@@ -1555,6 +1562,31 @@ public class PDFFactory {
         return iccStream;
     }
 
+    /**
+     * Create a PDFICCStream for the given ICC profile. If a stream with the same profile
+     * and alternate color space already exists in the document, that stream is returned.
+     * @param profile the ICC profile
+     * @param alt the alternate color space, may be null
+     * @return the PDF ICC stream object
+     */
+    public PDFICCStream makePDFICCStream(ICC_Profile profile, PDFDeviceColorSpace alt) {
+        String digest = new ContentDigest("ICCBased")
+                .update(alt != null ? alt.getName() : null)
+                .update(profile.getData())
+                .getHexDigest();
+        PDFICCStream iccStream = new PDFICCStream();
+        iccStream.setColorSpace(profile, alt);
+        PDFICCStream canonical = getDocument().getCanonicalObject(digest, iccStream);
+        if (canonical == iccStream) {
+            getDocument().registerObject(iccStream);
+        } else if (canonical.getICCProfile() == null) {
+            //the profile is released once the stream has been written but is still needed
+            //by the users of the stream
+            canonical.setColorSpace(profile, alt);
+        }
+        return canonical;
+    }
+
     /* ========================= misc. objects ============================= */
 
     /**
@@ -161,6 +161,11 @@ public class PDFImageXObject extends PDFXObject {
         return 0;
     }
 
+    /** {@inheritDoc} */
+    protected boolean supportsParallelEncoding() {
+        return true;
+    }
+
     /** {@inheritDoc} */
     protected void prepareImplicitFilters() {
         PDFFilter pdfFilter = pdfimage.getPDFFilter();
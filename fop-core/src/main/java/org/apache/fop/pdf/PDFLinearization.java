@@ -38,11 +38,21 @@ public class PDFLinearization {
     private Map<PDFPage, Set<PDFObject>> pageObjsMap = new HashMap<PDFPage, Set<PDFObject>>();
     private PDFDictionary linearDict;
     private HintTable hintTable;
+    private int spillThreshold = SpillingOutputStream.DEFAULT_THRESHOLD;
 
     public PDFLinearization(PDFDocument doc) {
         this.doc = doc;
     }
 
+    /**
+     * Sets the number of bytes of the body of the document that are held in memory
+     * before the body is spilled to a temporary file.
+     * @param spillThreshold the threshold
+     */
+    void setSpillThreshold(int spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
     static class HintTable extends PDFStream {
         private List<PDFPage> pages;
         int pageStartPos;
@@ -239,6 +249,7 @@ public class PDFLinearization {
     }
 
     public void outputPages(OutputStream stream) throws IOException {
+        long startTime = System.nanoTime();
         Collections.sort(doc.pageObjs, new Comparator<PDFPage>() {
             public int compare(PDFPage o1, PDFPage o2) {
                 return Integer.compare(o1.pageIndex, o2.pageIndex);
@@ -251,7 +262,7 @@ public class PDFLinearization {
             doc.structureTreeElements = null;
         }
         for (int i = 0; i < doc.objects.size() * 2; i++) {
-            doc.indirectObjectOffsets.add(0L);
+            doc.getCrossReferenceIndex().add(0L);
         }
         Set<PDFObject> page1Children = assignNumbers();
         doc.streamIndirectObject(linearDict, new ByteArrayOutputStream());
@@ -266,28 +277,35 @@ public class PDFLinearization {
                 page1Children.size() + sizeOfRest + 1, Long.MAX_VALUE, 0);
         doc.position += fakeHeaderTrailerStream.size();
 
-        ByteArrayOutputStream pageStream = new ByteArrayOutputStream();
-        writeObjects(page1Children, pageStream, sizeOfRest + 1);
-        long trailerOffset = doc.position;
-        ByteArrayOutputStream footerTrailerStream = new ByteArrayOutputStream();
-        doc.writeTrailer(footerTrailerStream, 0, sizeOfRest, sizeOfRest, 0, topTrailer);
-        doc.position += footerTrailerStream.size();
-
-        linearDict.put("/L", doc.position);
-
-        PDFDocument.outputIndirectObject(linearDict, stream);
-        CountingOutputStream realTrailer = new CountingOutputStream(stream);
-        doc.writeTrailer(realTrailer, sizeOfRest, page1Children.size() + 1,
-                page1Children.size() + sizeOfRest + 1, trailerOffset, 0);
-        writePadding(fakeHeaderTrailerStream.size() - realTrailer.getCount(), stream);
-        for (PDFObject o : page1Children) {
-            PDFDocument.outputIndirectObject(o, stream);
-            if (o instanceof HintTable) {
-                break;
+        //The objects following the hint table can only be written once the header has been
+        //completed, so they're buffered (on disk for large documents) in the meantime.
+        SpillingOutputStream pageStream = new SpillingOutputStream(spillThreshold);
+        try {
+            writeObjects(page1Children, pageStream, sizeOfRest + 1);
+            long trailerOffset = doc.position;
+            ByteArrayOutputStream footerTrailerStream = new ByteArrayOutputStream();
+            doc.writeTrailer(footerTrailerStream, 0, sizeOfRest, sizeOfRest, 0, topTrailer);
+            doc.position += footerTrailerStream.size();
+
+            linearDict.put("/L", doc.position);
+
+            PDFDocument.outputIndirectObject(linearDict, stream);
+            CountingOutputStream realTrailer = new CountingOutputStream(stream);
+            doc.writeTrailer(realTrailer, sizeOfRest, page1Children.size() + 1,
+                    page1Children.size() + sizeOfRest + 1, trailerOffset, 0);
+            writePadding(fakeHeaderTrailerStream.size() - realTrailer.getCount(), stream);
+            for (PDFObject o : page1Children) {
+                PDFDocument.outputIndirectObject(o, stream);
+                if (o instanceof HintTable) {
+                    break;
+                }
             }
+            pageStream.writeTo(stream);
+            footerTrailerStream.writeTo(stream);
+        } finally {
+            pageStream.close();
         }
-        stream.write(pageStream.toByteArray());
-        stream.write(footerTrailerStream.toByteArray());
+        doc.getOutputStatistics().outputWritten(System.nanoTime() - startTime);
     }
 
     private Set<PDFObject> getPage1Children() throws IOException {
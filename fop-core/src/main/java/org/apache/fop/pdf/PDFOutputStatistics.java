@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+/**
+ * Collects figures about the output of a PDF document: the number of bytes written for each
+ * category of object, how well streams compress and the time spent encoding and writing.
+ * Streams may be encoded on several threads, so recording is synchronized.
+ */
+public class PDFOutputStatistics {
+
+    /** The categories objects are counted in. */
+    public enum Category {
+        /** fonts, their descriptors, embedded font files and CMaps */
+        FONTS("fonts"),
+        /** image XObjects */
+        IMAGES("images"),
+        /** page content streams, form XObjects and other streams */
+        CONTENT("content"),
+        /** the structure tree of tagged PDF */
+        STRUCTURE("structure"),
+        /** object streams, which hold objects of any other category */
+        OBJECT_STREAMS("object-streams"),
+        /** all other objects */
+        OTHER("other");
+
+        private final String name;
+
+        private Category(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the name of this category.
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        static Category of(PDFObject object) {
+            if (object instanceof PDFFont || object instanceof PDFFontDescriptor
+                    || object instanceof PDFCIDFont || object instanceof AbstractPDFFontStream
+                    || object instanceof PDFCMap) {
+                return FONTS;
+            } else if (object instanceof PDFImageXObject) {
+                return IMAGES;
+            } else if (object instanceof ObjectStream) {
+                return OBJECT_STREAMS;
+            } else if (object instanceof AbstractPDFStream) {
+                return CONTENT;
+            } else if (object instanceof StructureHierarchyMember || object instanceof PDFParentTree) {
+                return STRUCTURE;
+            } else {
+                return OTHER;
+            }
+        }
+    }
+
+    private final long[] bytes = new long[Category.values().length];
+
+    private long unencodedStreamBytes;
+
+    private long encodedStreamBytes;
+
+    private long encodingTime;
+
+    private long writingTime;
+
+    synchronized void objectWritten(PDFObject object, long length) {
+        bytes[Category.of(object).ordinal()] += length;
+    }
+
+    synchronized void streamEncoded(long unencodedLength, long encodedLength, long time) {
+        unencodedStreamBytes += unencodedLength;
+        encodedStreamBytes += encodedLength;
+        encodingTime += time;
+    }
+
+    synchronized void outputWritten(long time) {
+        writingTime += time;
+    }
+
+    /**
+     * Returns the number of bytes written for the indirect objects of a category.
+     * @param category the category
+     * @return the number of bytes
+     */
+    public synchronized long getBytes(Category category) {
+        return bytes[category.ordinal()];
+    }
+
+    /**
+     * Returns the total length of the streams written, before they were encoded.
+     * @return the number of bytes
+     */
+    public synchronized long getUnencodedStreamBytes() {
+        return unencodedStreamBytes;
+    }
+
+    /**
+     * Returns the total length of the streams written, after they were encoded.
+     * @return the number of bytes
+     */
+    public synchronized long getEncodedStreamBytes() {
+        return encodedStreamBytes;
+    }
+
+    /**
+     * Returns the time spent encoding (compressing, encrypting) streams. Streams may be encoded
+     * on several threads, so this can be more than the time elapsed.
+     * @return the time in nanoseconds
+     */
+    public synchronized long getEncodingTime() {
+        return encodingTime;
+    }
+
+    /**
+     * Returns the time spent writing the document, including the encoding of the streams that
+     * aren't encoded in the background.
+     * @return the time in nanoseconds
+     */
+    public synchronized long getWritingTime() {
+        return writingTime;
+    }
+}
@@ -26,6 +26,9 @@ public class PDFParentTree extends PDFNumberTreeNode {
 
     private static final int MAX_NUMS_ARRAY_SIZE = 50;
 
+    /** the number of kids that have been queued for output */
+    private int flushedKids;
+
     public PDFParentTree() {
         put("Kids", new PDFArray());
     }
@@ -33,10 +36,26 @@ public class PDFParentTree extends PDFNumberTreeNode {
     @Override
     public void addToNums(int num, Object object) {
         int arrayIndex = num / MAX_NUMS_ARRAY_SIZE;
+        assert arrayIndex >= flushedKids : "number " + num + " belongs to a kid that has been flushed";
         setNumOfKidsArrays(arrayIndex + 1);
         insertItemToNumsArray(arrayIndex, num, object);
     }
 
+    /**
+     * Queues for output the kids whose numbers are all lower than the given one, and replaces
+     * them with references in the Kids array so that they can be released once written.
+     * @param nextNum the lowest number that can still be added to this tree
+     */
+    public void flushKids(int nextNum) {
+        PDFArray kids = getKids();
+        while (flushedKids < kids.length() && (flushedKids + 1) * MAX_NUMS_ARRAY_SIZE <= nextNum) {
+            PDFObject kid = (PDFObject) kids.get(flushedKids);
+            getDocument().outputBeforeTrailer(kid);
+            kids.set(flushedKids, new PDFReference(kid));
+            flushedKids++;
+        }
+    }
+
     private void setNumOfKidsArrays(int numKids) {
         for (int i = getKids().length(); i < numKids; i++) {
             PDFNumberTreeNode newArray = new PDFNumberTreeNode();
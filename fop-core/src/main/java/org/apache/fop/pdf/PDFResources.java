@@ -66,6 +66,11 @@ public class PDFResources extends PDFDictionary {
 
     protected Set<PDFResourceContext> contexts = new LinkedHashSet<PDFResourceContext>();
 
+    /* resources collected from contexts that have already been written and released */
+    private Set<PDFPattern> releasedPatterns = new LinkedHashSet<PDFPattern>();
+    private Set<PDFShading> releasedShadings = new LinkedHashSet<PDFShading>();
+    private Set<PDFGState> releasedGStates = new LinkedHashSet<PDFGState>();
+
     /**
      * create a /Resources object.
      */
@@ -79,6 +84,22 @@ public class PDFResources extends PDFDictionary {
         contexts.add(c);
     }
 
+    /**
+     * Releases a resource context that has been written to the output. The resources it uses
+     * are kept, but the context itself (usually a page) is no longer referenced, so that it
+     * can be garbage collected before the end of the document.
+     *
+     * @param c the resource context to release
+     */
+    public void releaseContext(PDFResourceContext c) {
+        if (contexts.remove(c)) {
+            xObjects.addAll(c.getXObjects());
+            releasedPatterns.addAll(c.getPatterns());
+            releasedShadings.addAll(c.getShadings());
+            releasedGStates.addAll(c.getGStates());
+        }
+    }
+
     public void setParentResources(PDFResources p) {
         parent = p;
     }
@@ -243,9 +264,9 @@ public class PDFResources extends PDFDictionary {
             put("Font", dict);
         }
 
-        Set<PDFPattern> patterns = new LinkedHashSet<PDFPattern>();
-        Set<PDFShading> shadings = new LinkedHashSet<PDFShading>();
-        Set<PDFGState> gstates = new LinkedHashSet<PDFGState>();
+        Set<PDFPattern> patterns = new LinkedHashSet<PDFPattern>(releasedPatterns);
+        Set<PDFShading> shadings = new LinkedHashSet<PDFShading>(releasedShadings);
+        Set<PDFGState> gstates = new LinkedHashSet<PDFGState>(releasedGStates);
         for (PDFResourceContext c : contexts) {
             xObjects.addAll(c.getXObjects());
             patterns.addAll(c.getPatterns());
@@ -254,6 +275,9 @@ public class PDFResources extends PDFDictionary {
         }
         if (parent != null) {
             xObjects.addAll(parent.xObjects);
+            patterns.addAll(parent.releasedPatterns);
+            shadings.addAll(parent.releasedShadings);
+            gstates.addAll(parent.releasedGStates);
             for (PDFResourceContext c : parent.contexts) {
                 patterns.addAll(c.getPatterns());
                 shadings.addAll(c.getShadings());
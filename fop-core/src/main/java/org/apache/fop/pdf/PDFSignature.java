@@ -19,12 +19,17 @@
 package org.apache.fop.pdf;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.URI;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
@@ -45,23 +50,18 @@ import org.bouncycastle.operator.OperatorException;
 import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
 import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.CountingOutputStream;
 
-import org.apache.xmlgraphics.io.TempResourceURIGenerator;
-
 import org.apache.fop.apps.FOUserAgent;
 
 public class PDFSignature {
     private static final int SIZE_OF_CONTENTS = 18944;
-    private static final TempResourceURIGenerator TEMP_URI_GENERATOR = new TempResourceURIGenerator("pdfsign2");
     private Perms perms;
     private PDFRoot root;
     private PrivateKey privateKey;
     private long startOfDocMDP;
     private long startOfContents;
     private FOUserAgent userAgent;
-    private URI tempURI;
     private PDFSignParams signParams;
 
     static class TransformParams extends PDFDictionary {
@@ -184,7 +184,6 @@ public class PDFSignature {
         this.signParams = signParams;
         perms = new Perms(root, new DocMDP());
         root.put("Perms", perms);
-        tempURI = TEMP_URI_GENERATOR.generate();
     }
 
     public void add(PDFPage page) {
@@ -193,46 +192,86 @@ public class PDFSignature {
         page.addAnnotation(sigField);
     }
 
-    public void signPDF(URI uri, OutputStream os) throws IOException {
-        try (InputStream pdfIS = getTempIS(uri)) {
-            pdfIS.mark(Integer.MAX_VALUE);
+    /**
+     * Signs the PDF document written to the given file and copies the signed document to the
+     * given stream. The /ByteRange and /Contents placeholders are patched in place in the file,
+     * which is only read again to compute the signature.
+     * @param pdfFile the file containing the unsigned document
+     * @param os the stream to write the signed document to
+     * @throws IOException if an I/O error occurs
+     */
+    public void signPDF(File pdfFile, OutputStream os) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(pdfFile, "rw")) {
+            FileChannel channel = raf.getChannel();
             String byteRangeValues = "0 1000000000 1000000000 1000000000";
             String byteRange = "\n  /ByteRange [" + byteRangeValues + "]";
-            int pdfLength = pdfIS.available();
-            long offsetToPDFEnd = startOfContents + SIZE_OF_CONTENTS + 2 + byteRange.length();
+            long pdfLength = channel.size();
+            long endOfContents = startOfContents + SIZE_OF_CONTENTS + 2;
+            long offsetToPDFEnd = endOfContents + byteRange.length();
             long endOfPDFSize = pdfLength - offsetToPDFEnd;
             String byteRangeValues2 = String.format("0 %s %s %s", startOfContents,
-                    startOfContents + SIZE_OF_CONTENTS + 2, byteRange.length() + endOfPDFSize);
+                    endOfContents, byteRange.length() + endOfPDFSize);
             byteRange = "\n  /ByteRange [" + byteRangeValues2 + "]";
             String byteRangePadding = new String(new char[byteRangeValues.length() - byteRangeValues2.length()])
                     .replace("\0", " ");
-            try (OutputStream editedPDF = getTempOS()) {
-                IOUtils.copyLarge(pdfIS, editedPDF, 0, startOfContents);
-                editedPDF.write(byteRange.getBytes(StandardCharsets.UTF_8));
-                editedPDF.write(byteRangePadding.getBytes(StandardCharsets.UTF_8));
-                IOUtils.copyLarge(pdfIS, editedPDF, offsetToPDFEnd - startOfContents, Long.MAX_VALUE);
-            }
-            pdfIS.reset();
-            IOUtils.copyLarge(pdfIS, os, 0, startOfContents);
-            try (InputStream is = getTempIS(tempURI)) {
-                byte[] signed = readPKCS(is);
-                String signedHexPadding = new String(new char[SIZE_OF_CONTENTS - (signed.length * 2)])
-                        .replace("\0", "0");
-                String signedHex = "<" + PDFText.toHex(signed, false) + signedHexPadding + ">";
-                os.write(signedHex.getBytes(StandardCharsets.UTF_8));
+            write(channel, byteRange + byteRangePadding, endOfContents);
+            InputStream signedContent = new SequenceInputStream(
+                    new ChannelRangeInputStream(channel, 0, startOfContents),
+                    new ChannelRangeInputStream(channel, endOfContents, pdfLength));
+            byte[] signed = readPKCS(new BufferedInputStream(signedContent));
+            String signedHexPadding = new String(new char[SIZE_OF_CONTENTS - (signed.length * 2)])
+                    .replace("\0", "0");
+            write(channel, "<" + PDFText.toHex(signed, false) + signedHexPadding + ">", startOfContents);
+            WritableByteChannel out = Channels.newChannel(os);
+            long position = 0;
+            while (position < pdfLength) {
+                position += channel.transferTo(position, pdfLength - position, out);
             }
-            os.write(byteRange.getBytes(StandardCharsets.UTF_8));
-            os.write(byteRangePadding.getBytes(StandardCharsets.UTF_8));
-            IOUtils.copyLarge(pdfIS, os, offsetToPDFEnd - startOfContents, Long.MAX_VALUE);
         }
     }
 
-    private OutputStream getTempOS() throws IOException {
-        return new BufferedOutputStream(userAgent.getResourceResolver().getOutputStream(tempURI));
+    private static void write(FileChannel channel, String s, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
     }
 
-    private InputStream getTempIS(URI uri) throws IOException {
-        return new BufferedInputStream(userAgent.getResourceResolver().getResource(uri));
+    /**
+     * Reads a range of a file through positional reads, leaving the position of the channel
+     * untouched.
+     */
+    private static final class ChannelRangeInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+        private final byte[] singleByte = new byte[1];
+
+        ChannelRangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        public int read() throws IOException {
+            int n;
+            do {
+                n = read(singleByte, 0, 1);
+            } while (n == 0);
+            return n == -1 ? -1 : singleByte[0] & 0xff;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
     }
 
     private byte[] readPKCS(InputStream pdf) throws IOException {
@@ -44,6 +44,10 @@ public class PDFStream extends AbstractPDFStream {
 
     private transient Writer streamWriter;
     private transient char[] charBuffer;
+    private transient StringBuffer numberBuffer;
+
+    /** the first error writing to the buffer, reported when the stream is output */
+    private transient IOException writeException;
 
     /**
      * Create an empty stream object
@@ -88,8 +92,7 @@ public class PDFStream extends AbstractPDFStream {
         try {
             this.streamWriter.write(s);
         } catch (IOException ex) {
-            //TODO throw the exception and catch it elsewhere
-            ex.printStackTrace();
+            handleIOException(ex);
         }
     }
 
@@ -116,12 +119,63 @@ public class PDFStream extends AbstractPDFStream {
             sb.getChars(0, nHave, charBuffer, 0);
             this.streamWriter.write(charBuffer, 0, nHave);
         } catch (IOException ex) {
-            //TODO throw the exception and catch it elsewhere
-            ex.printStackTrace();
+            handleIOException(ex);
+        }
+    }
+
+    /**
+     * Append a single character to the stream
+     *
+     * @param c the character of PDF to add
+     */
+    public void add(char c) {
+        try {
+            this.streamWriter.write(c);
+        } catch (IOException ex) {
+            handleIOException(ex);
+        }
+    }
+
+    /**
+     * Append a number to the stream, formatted with up to 6 decimal places. Unlike
+     * <code>add(PDFNumber.doubleOut(value))</code>, this doesn't create any intermediate
+     * objects.
+     *
+     * @param value the number to add
+     */
+    public void addNumber(double value) {
+        addNumber(value, 6);
+    }
+
+    /**
+     * Append a number to the stream, formatted with up to the given number of decimal places.
+     *
+     * @param value the number to add
+     * @param dec the maximum number of decimal places
+     */
+    public void addNumber(double value, int dec) {
+        if (numberBuffer == null) {
+            numberBuffer = new StringBuffer(32);
+        } else {
+            numberBuffer.setLength(0);
+        }
+        add(PDFNumber.doubleOut(value, dec, numberBuffer));
+    }
+
+    /**
+     * Records an error writing to the buffer. The add methods can't throw an IOException, so
+     * the error is thrown once the contents of the stream are used.
+     */
+    private void handleIOException(IOException ex) {
+        if (writeException == null) {
+            writeException = ex;
         }
     }
 
     private void flush() throws IOException {
+        if (writeException != null) {
+            throw new IOException("Error while adding to the PDF stream", writeException);
+        }
         this.streamWriter.flush();
     }
 
@@ -183,6 +237,11 @@ public class PDFStream extends AbstractPDFStream {
         data.outputContents(out);
     }
 
+    /** {@inheritDoc} */
+    protected boolean supportsParallelEncoding() {
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -199,12 +258,7 @@ public class PDFStream extends AbstractPDFStream {
         outputRawStreamData(bos);
         try {
             MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] thedigest = md.digest(bos.toByteArray());
-            StringBuilder hex = new StringBuilder();
-            for (byte b : thedigest) {
-                hex.append(String.format("%02x", b));
-            }
-            return hex.toString();
+            return ContentDigest.toHex(md.digest(bos.toByteArray()));
         } catch (NoSuchAlgorithmException e) {
             throw new IOException(e);
         }
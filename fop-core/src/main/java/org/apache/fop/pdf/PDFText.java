@@ -21,7 +21,6 @@ package org.apache.fop.pdf;
 
 import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.Locale;
 
 import org.apache.fop.util.CharUtilities;
 
@@ -208,10 +207,9 @@ public class PDFText extends PDFObject {
      * @param sb the string buffer to append output
      */
     public static final void toUnicodeHex(int c, StringBuffer sb) {
-        if (CharUtilities.isBmpCodePoint(c)) {
-            sb.append(Integer.toHexString(c + 0x10000).substring(1).toUpperCase(Locale.US));
-        } else {
-            sb.append(Integer.toHexString(c + 0x1000000).substring(1).toUpperCase(Locale.US));
+        int shift = CharUtilities.isBmpCodePoint(c) ? 12 : 20;
+        for (; shift >= 0; shift -= 4) {
+            sb.append(DIGITS[(c >>> shift) & 0x0F]);
         }
     }
 
@@ -53,6 +53,8 @@ public abstract class PDFTextUtil {
     private boolean useMultiByte;
     private boolean useCid;
     private StringBuffer bufTJ;
+    private final StringBuffer buffer = new StringBuffer();
+    private final double[] matrix = new double[6];
     private int textRenderingMode = TR_FILL;
 
     private String currentFontName;
@@ -72,13 +74,23 @@ public abstract class PDFTextUtil {
     protected abstract void write(String code);
 
     /**
-     * Writes PDF code.
+     * Writes PDF code. The buffer is reused once this method returns, so implementations
+     * must not keep a reference to it.
      * @param code the PDF code to write
      */
     protected abstract void write(StringBuffer code);
 
+    /**
+     * Returns the buffer used to build up PDF code, after clearing it.
+     * @return the buffer
+     */
+    private StringBuffer getBuffer() {
+        buffer.setLength(0);
+        return buffer;
+    }
+
     private void writeAffineTransform(AffineTransform at, StringBuffer sb) {
-        double[] lt = new double[6];
+        double[] lt = matrix;
         at.getMatrix(lt);
         PDFNumber.doubleOut(lt[0], DEC, sb);
         sb.append(' ');
@@ -96,7 +108,8 @@ public abstract class PDFTextUtil {
     private static void writeChar(int codePoint, StringBuffer sb, boolean multibyte, boolean cid) {
         if (!multibyte) {
             if (cid || codePoint < 32 || codePoint > 127) {
-                sb.append("\\").append(Integer.toOctalString(codePoint));
+                sb.append('\\');
+                writeOctal(codePoint, sb);
             } else {
                 switch (codePoint) {
                 case '(':
@@ -113,6 +126,16 @@ public abstract class PDFTextUtil {
         }
     }
 
+    private static void writeOctal(int value, StringBuffer sb) {
+        int shift = 0;
+        while ((value >>> shift) > 7) {
+            shift += 3;
+        }
+        for (; shift >= 0; shift -= 3) {
+            sb.append((char) ('0' + ((value >>> shift) & 7)));
+        }
+    }
+
     private void writeChar(int codePoint, StringBuffer sb) {
         writeChar(codePoint, sb, useMultiByte, useCid);
     }
@@ -169,7 +192,7 @@ public abstract class PDFTextUtil {
     public void concatMatrix(AffineTransform at) {
         if (!at.isIdentity()) {
             writeTJ();
-            StringBuffer sb = new StringBuffer();
+            StringBuffer sb = getBuffer();
             writeAffineTransform(at, sb);
             sb.append(" cm\n");
             write(sb);
@@ -183,7 +206,7 @@ public abstract class PDFTextUtil {
      */
     public void writeTf(String fontName, double fontSize) {
         checkInTextObject();
-        StringBuffer sb = new StringBuffer();
+        StringBuffer sb = getBuffer();
         sb.append('/');
         sb.append(fontName);
         sb.append(' ');
@@ -252,7 +275,7 @@ public abstract class PDFTextUtil {
      * @param localTransform the new text transformation matrix
      */
     public void writeTextMatrix(AffineTransform localTransform) {
-        StringBuffer sb = new StringBuffer();
+        StringBuffer sb = getBuffer();
         writeAffineTransform(localTransform, sb);
         sb.append(" Tm ");
         write(sb);
@@ -336,7 +359,7 @@ public abstract class PDFTextUtil {
      * @param y coordinate
      */
     public void writeTd(double x, double y) {
-        StringBuffer sb = new StringBuffer();
+        StringBuffer sb = getBuffer();
         PDFNumber.doubleOut(x, DEC, sb);
         sb.append(' ');
         PDFNumber.doubleOut(y, DEC, sb);
@@ -349,7 +372,7 @@ public abstract class PDFTextUtil {
      * @param ch character code to write
      */
     public void writeTj(int ch, boolean multibyte, boolean cid) {
-        StringBuffer sb = new StringBuffer();
+        StringBuffer sb = getBuffer();
         sb.append(startText);
         writeChar(ch, sb, multibyte, cid);
         sb.append(endText);
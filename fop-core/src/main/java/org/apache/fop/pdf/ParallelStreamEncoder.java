@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes (i.e. compresses) the streams of a PDF document on a pool of worker threads
+ * while the document is being written. Before an object is written, the streams that
+ * follow it in the list of objects to be written are handed to the workers, so that they
+ * are usually encoded by the time they have to be written. Objects are still written in
+ * their original order. The number of streams being encoded ahead of the writer is bounded,
+ * which bounds the amount of memory used to hold their encoded data.
+ */
+final class ParallelStreamEncoder {
+
+    /** The maximum number of objects looked at ahead of the one being written */
+    private static final int MAX_LOOKAHEAD = 256;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int maxPending;
+
+    private final Set<AbstractPDFStream> pending
+            = Collections.newSetFromMap(new IdentityHashMap<AbstractPDFStream, Boolean>());
+
+    /**
+     * Creates a new encoder.
+     * @param threads the number of worker threads
+     */
+    ParallelStreamEncoder(int threads) {
+        executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private int count;
+
+                    public synchronized Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "FOP PDF stream encoder " + (++count));
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        maxPending = threads * 2;
+    }
+
+    /**
+     * Starts encoding the streams at the beginning of the given list of objects still to be
+     * written, as long as the number of streams encoded ahead of the writer allows it.
+     * @param objects the objects still to be written, in order
+     * @throws IOException if an I/O error occurs while preparing a stream
+     */
+    void encodeAhead(List<? extends PDFObject> objects) throws IOException {
+        Iterator<? extends PDFObject> iter = objects.iterator();
+        for (int i = 0; pending.size() < maxPending && i < MAX_LOOKAHEAD && iter.hasNext(); i++) {
+            PDFObject object = iter.next();
+            if (object instanceof AbstractPDFStream) {
+                AbstractPDFStream stream = (AbstractPDFStream) object;
+                if (!stream.isEncodingInBackground() && stream.supportsParallelEncoding()) {
+                    stream.encodeInBackground(executor);
+                    pending.add(stream);
+                }
+            }
+        }
+    }
+
+    /**
+     * Notifies the encoder that an object has been written.
+     * @param object the written object
+     */
+    void written(PDFObject object) {
+        pending.remove(object);
+    }
+
+    /** Stops the worker threads once the streams being encoded are done. */
+    void shutdown() {
+        executor.shutdown();
+    }
+}
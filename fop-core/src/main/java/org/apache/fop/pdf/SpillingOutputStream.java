@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+
+/**
+ * Buffers data that has to be written to a PDF file after data that isn't known yet. The
+ * data is held in memory until it exceeds a threshold; from then on, it is written to a
+ * temporary file, which is copied to the final output without going through the heap.
+ */
+final class SpillingOutputStream extends OutputStream {
+
+    /** The default number of bytes held in memory before spilling to a temporary file */
+    static final int DEFAULT_THRESHOLD = 4 * 1024 * 1024;
+
+    private final int threshold;
+
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+
+    private File tempFile;
+
+    private OutputStream fileOutput;
+
+    private long size;
+
+    /**
+     * Creates a new stream.
+     * @param threshold the number of bytes held in memory before spilling to a temporary file
+     */
+    SpillingOutputStream(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /** {@inheritDoc} */
+    public void write(int b) throws IOException {
+        getOutputStream(1).write(b);
+        size++;
+    }
+
+    /** {@inheritDoc} */
+    public void write(byte[] b, int off, int len) throws IOException {
+        getOutputStream(len).write(b, off, len);
+        size += len;
+    }
+
+    private OutputStream getOutputStream(int len) throws IOException {
+        if (fileOutput == null && size + len > threshold) {
+            tempFile = Files.createTempFile("org.apache.fop.pdf.Linearization-", ".temp").toFile();
+            tempFile.deleteOnExit();
+            fileOutput = new BufferedOutputStream(new FileOutputStream(tempFile));
+            memory.writeTo(fileOutput);
+            memory = null;
+        }
+        return fileOutput != null ? fileOutput : memory;
+    }
+
+    /**
+     * Returns the number of bytes written to this stream.
+     * @return the size
+     */
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Indicates whether the data has been written to a temporary file.
+     * @return true if the data isn't held in memory
+     */
+    boolean isSpilled() {
+        return tempFile != null;
+    }
+
+    /**
+     * Copies the data written to this stream to the given stream.
+     * @param out the stream to copy the data to
+     * @throws IOException if an I/O error occurs
+     */
+    void writeTo(OutputStream out) throws IOException {
+        if (tempFile == null) {
+            memory.writeTo(out);
+            return;
+        }
+        fileOutput.flush();
+        out.flush();
+        RandomAccessFile file = new RandomAccessFile(tempFile, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Releases the data written to this stream, deleting the temporary file if there's one.
+     * @throws IOException if an I/O error occurs
+     */
+    public void close() throws IOException {
+        memory = null;
+        if (tempFile != null) {
+            fileOutput.close();
+            tempFile.delete();
+            tempFile = null;
+        }
+    }
+}
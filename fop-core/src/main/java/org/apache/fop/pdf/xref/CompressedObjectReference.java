@@ -51,10 +51,20 @@ public class CompressedObjectReference implements ObjectReference {
     }
 
     public void output(DataOutputStream out) throws IOException {
+        output(out, objectStreamNumber.getNumber(), index);
+    }
+
+    /**
+     * Outputs a reference to a compressed object without creating an instance.
+     *
+     * @param out the stream to which to output the reference
+     * @param objectStreamNumber the number of the object stream holding the object
+     * @param index the index of the object in the object stream
+     */
+    static void output(DataOutputStream out, int objectStreamNumber, int index) throws IOException {
         out.write(2);
-        out.writeLong(objectStreamNumber.getNumber());
-        out.write(0);
-        out.write(index);
+        out.writeLong(objectStreamNumber);
+        out.writeShort(index);
     }
 
     public PDFObjectNumber getObjectNumber() {
@@ -65,4 +75,8 @@ public class CompressedObjectReference implements ObjectReference {
         return objectStreamNumber;
     }
 
+    public int getIndex() {
+        return index;
+    }
+
 }
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf.xref;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records the file offset of every indirect object written to a PDF file, indexed by object
+ * number minus one, as well as the location of every object stored in an object stream.
+ * Entries are kept in primitive arrays so that documents with millions of objects don't need
+ * one boxed entry per object.
+ */
+public final class CrossReferenceIndex {
+
+    /** Value returned by {@link #getOffset(int)} for objects that have not been written. */
+    public static final long NO_OFFSET = -1L;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private long[] offsets;
+
+    /** The number of the object stream holding each object, 0 for uncompressed objects */
+    private int[] objectStreamNumbers;
+
+    /** The index of each compressed object in its object stream */
+    private int[] objectStreamIndexes;
+
+    private int size;
+
+    /** Creates an empty index. */
+    public CrossReferenceIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty index.
+     *
+     * @param initialCapacity the number of entries to allocate room for
+     */
+    public CrossReferenceIndex(int initialCapacity) {
+        offsets = new long[Math.max(initialCapacity, 16)];
+    }
+
+    /**
+     * Creates an index holding the given offsets.
+     *
+     * @param offsets the offsets, indexed by object number minus one; null entries denote
+     * objects that have not been written
+     * @return the index
+     */
+    public static CrossReferenceIndex valueOf(List<Long> offsets) {
+        CrossReferenceIndex index = new CrossReferenceIndex(offsets.size());
+        for (Long offset : offsets) {
+            index.add(offset == null ? NO_OFFSET : offset);
+        }
+        return index;
+    }
+
+    /**
+     * Records the offset of an object.
+     *
+     * @param index the object number minus one
+     * @param offset the offset of the object from the beginning of the file
+     */
+    public void setOffset(int index, long offset) {
+        grow(index);
+        offsets[index] = offset;
+    }
+
+    /**
+     * Records that an object is stored in an object stream.
+     *
+     * @param index the object number minus one
+     * @param objectStreamNumber the number of the object stream holding the object
+     * @param objectStreamIndex the index of the object in the object stream
+     */
+    public void setCompressed(int index, int objectStreamNumber, int objectStreamIndex) {
+        grow(index);
+        if (objectStreamNumbers == null) {
+            objectStreamNumbers = new int[offsets.length];
+            objectStreamIndexes = new int[offsets.length];
+        }
+        objectStreamNumbers[index] = objectStreamNumber;
+        objectStreamIndexes[index] = objectStreamIndex;
+    }
+
+    /**
+     * Appends an entry for the next object number.
+     *
+     * @param offset the offset of the object from the beginning of the file
+     */
+    public void add(long offset) {
+        setOffset(size, offset);
+    }
+
+    /**
+     * Returns the offset of an object.
+     *
+     * @param index the object number minus one
+     * @return the offset, or {@link #NO_OFFSET} if the object has not been written
+     */
+    public long getOffset(int index) {
+        return index < size ? offsets[index] : NO_OFFSET;
+    }
+
+    /**
+     * Indicates whether an object is stored in an object stream.
+     *
+     * @param index the object number minus one
+     * @return true if the object is compressed
+     */
+    public boolean isCompressed(int index) {
+        return objectStreamNumbers != null && index < size && objectStreamNumbers[index] != 0;
+    }
+
+    /**
+     * Returns the number of the object stream holding an object.
+     *
+     * @param index the object number minus one
+     * @return the object stream number, or 0 if the object isn't compressed
+     */
+    public int getObjectStreamNumber(int index) {
+        return isCompressed(index) ? objectStreamNumbers[index] : 0;
+    }
+
+    /**
+     * Returns the index of a compressed object in its object stream.
+     *
+     * @param index the object number minus one
+     * @return the index in the object stream
+     */
+    public int getObjectStreamIndex(int index) {
+        return isCompressed(index) ? objectStreamIndexes[index] : 0;
+    }
+
+    /**
+     * Returns the number of entries, which is the highest recorded object number.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    private void grow(int index) {
+        if (index >= size) {
+            ensureCapacity(index + 1);
+            Arrays.fill(offsets, size, index, NO_OFFSET);
+            size = index + 1;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > offsets.length) {
+            int newCapacity = Math.max(capacity, offsets.length + (offsets.length >> 1));
+            offsets = Arrays.copyOf(offsets, newCapacity);
+            if (objectStreamNumbers != null) {
+                objectStreamNumbers = Arrays.copyOf(objectStreamNumbers, newCapacity);
+                objectStreamIndexes = Arrays.copyOf(objectStreamIndexes, newCapacity);
+            }
+        }
+    }
+}
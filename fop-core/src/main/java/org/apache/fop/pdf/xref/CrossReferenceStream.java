@@ -23,7 +23,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.fop.pdf.PDFArray;
@@ -45,7 +44,7 @@ public class CrossReferenceStream extends CrossReferenceObject {
 
     private final int objectNumber;
 
-    private final List<ObjectReference> objectReferences;
+    private final CrossReferenceIndex objectReferences;
 
     public CrossReferenceStream(PDFDocument document, TrailerDictionary trailerDictionary, long startxref,
             List<Long> uncompressedObjectReferences, List<CompressedObjectReference> compressedObjectReferences) {
@@ -53,25 +52,49 @@ public class CrossReferenceStream extends CrossReferenceObject {
                 uncompressedObjectReferences, compressedObjectReferences);
     }
 
+    /**
+     * Creates a cross-reference stream for the given objects.
+     *
+     * @param document the document the stream belongs to
+     * @param trailerDictionary the trailer dictionary
+     * @param startxref the offset of the stream from the beginning of the file
+     * @param objectReferences the offsets of the uncompressed objects and the locations of
+     * the compressed objects
+     */
+    public CrossReferenceStream(PDFDocument document, TrailerDictionary trailerDictionary, long startxref,
+            CrossReferenceIndex objectReferences) {
+        this(document, document.getObjectCount() + 1, trailerDictionary, startxref, objectReferences);
+    }
+
     protected CrossReferenceStream(PDFDocument document,
             int objectNumber,
             TrailerDictionary trailerDictionary,
             long startxref,
             List<Long> uncompressedObjectReferences,
             List<CompressedObjectReference> compressedObjectReferences) {
+        this(document, objectNumber, trailerDictionary, startxref,
+                createIndex(uncompressedObjectReferences, compressedObjectReferences));
+    }
+
+    protected CrossReferenceStream(PDFDocument document,
+            int objectNumber,
+            TrailerDictionary trailerDictionary,
+            long startxref,
+            CrossReferenceIndex objectReferences) {
         super(trailerDictionary, startxref);
         this.document = document;
         this.objectNumber = objectNumber;
-        this.objectReferences = new ArrayList<>(uncompressedObjectReferences.size());
-        for (Long offset : uncompressedObjectReferences) {
-            objectReferences.add(offset == null ? null : new UncompressedObjectReference(offset));
-        }
+        this.objectReferences = objectReferences;
+    }
+
+    private static CrossReferenceIndex createIndex(List<Long> uncompressedObjectReferences,
+            List<CompressedObjectReference> compressedObjectReferences) {
+        CrossReferenceIndex index = CrossReferenceIndex.valueOf(uncompressedObjectReferences);
         for (CompressedObjectReference ref : compressedObjectReferences) {
-            while (ref.getObjectNumber().getNumber() > objectReferences.size()) {
-                objectReferences.add(null);
-            }
-            this.objectReferences.set(ref.getObjectNumber().getNumber() - 1, ref);
+            index.setCompressed(ref.getObjectNumber().getNumber() - 1,
+                    ref.getObjectStreamNumber().getNumber(), ref.getIndex());
         }
+        return index;
     }
 
     /** {@inheritDoc} */
@@ -92,11 +115,18 @@ public class CrossReferenceStream extends CrossReferenceObject {
         ByteArrayOutputStream byteArray = new ByteArrayOutputStream();
         DataOutputStream data = new DataOutputStream(byteArray);
         addFreeEntryForObject0(data);
-        for (ObjectReference objectReference : objectReferences) {
-            assert objectReference != null;
-            objectReference.output(data);
+        int entryCount = objectReferences.size();
+        for (int i = 0; i < entryCount; i++) {
+            if (objectReferences.isCompressed(i)) {
+                CompressedObjectReference.output(data, objectReferences.getObjectStreamNumber(i),
+                        objectReferences.getObjectStreamIndex(i));
+            } else {
+                long offset = objectReferences.getOffset(i);
+                assert offset != CrossReferenceIndex.NO_OFFSET;
+                UncompressedObjectReference.output(data, offset);
+            }
         }
-        new UncompressedObjectReference(startxref).output(data);
+        UncompressedObjectReference.output(data, startxref);
         data.close();
         helperStream.setData(byteArray.toByteArray());
         PDFDocument.outputIndirectObject(helperStream, stream);
@@ -31,9 +31,14 @@ import org.apache.fop.pdf.PDFDocument;
  */
 public class CrossReferenceTable extends CrossReferenceObject {
 
-    private final List<Long> objectReferences;
+    private static final byte[] ENTRY_TEMPLATE = PDFDocument.encode("0000000000 00000 n \n");
 
-    private final StringBuilder pdf = new StringBuilder(256);
+    private static final int ENTRY_LENGTH = ENTRY_TEMPLATE.length;
+
+    /** Number of entries formatted into the buffer before it is written out. */
+    private static final int ENTRIES_PER_WRITE = 256;
+
+    private final CrossReferenceIndex objectReferences;
 
     private int last;
     private int first;
@@ -41,6 +46,11 @@ public class CrossReferenceTable extends CrossReferenceObject {
 
     public CrossReferenceTable(TrailerDictionary trailerDictionary, long startxref,
             List<Long> location, int first, int last, int size) {
+        this(trailerDictionary, startxref, CrossReferenceIndex.valueOf(location), first, last, size);
+    }
+
+    public CrossReferenceTable(TrailerDictionary trailerDictionary, long startxref,
+            CrossReferenceIndex location, int first, int last, int size) {
         super(trailerDictionary, startxref);
         this.objectReferences = location;
         this.first = first;
@@ -49,11 +59,12 @@ public class CrossReferenceTable extends CrossReferenceObject {
     }
 
     public void output(OutputStream stream) throws IOException {
-        outputXref();
+        outputXref(stream);
         writeTrailer(stream);
     }
 
-    private void outputXref() throws IOException {
+    private void outputXref(OutputStream stream) throws IOException {
+        StringBuilder pdf = new StringBuilder(64);
         if (first == 0) {
             pdf.append("xref\n0 ");
             pdf.append(last + 1);
@@ -62,23 +73,33 @@ public class CrossReferenceTable extends CrossReferenceObject {
             pdf.append("xref\n" + (first + 1) + " ");
             pdf.append(last + "\n");
         }
+        stream.write(PDFDocument.encode(pdf.toString()));
+        byte[] buffer = new byte[ENTRY_LENGTH * ENTRIES_PER_WRITE];
+        int pos = 0;
         for (int i = first; i < first + last; i++) {
-            Long objectReference = objectReferences.get(i);
-            assert objectReference != null;
-            final String padding = "0000000000";
-            String s = String.valueOf(objectReference);
-            if (s.length() > 10) {
+            long objectReference = objectReferences.getOffset(i);
+            assert objectReference != CrossReferenceIndex.NO_OFFSET;
+            if (objectReference > 9999999999L) {
                 throw new IOException("PDF file too large."
                         + " PDF 1.4 cannot grow beyond approx. 9.3GB.");
             }
-            String loc = padding.substring(s.length()) + s;
-            pdf.append(loc).append(" 00000 n \n");
+            System.arraycopy(ENTRY_TEMPLATE, 0, buffer, pos, ENTRY_LENGTH);
+            //format the offset right-aligned into the 10 digit, zero-padded field
+            for (int digit = pos + 9; objectReference != 0; digit--) {
+                buffer[digit] = (byte) ('0' + (objectReference % 10));
+                objectReference /= 10;
+            }
+            pos += ENTRY_LENGTH;
+            if (pos == buffer.length) {
+                stream.write(buffer, 0, pos);
+                pos = 0;
+            }
         }
+        stream.write(buffer, 0, pos);
     }
 
     private void writeTrailer(OutputStream stream) throws IOException {
-        pdf.append("trailer\n");
-        stream.write(PDFDocument.encode(pdf.toString()));
+        stream.write(PDFDocument.encode("trailer\n"));
         PDFDictionary dictionary = trailerDictionary.getDictionary();
         dictionary.put("/Size", size + 1);
         dictionary.output(stream);
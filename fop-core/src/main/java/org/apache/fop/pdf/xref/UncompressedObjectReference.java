@@ -39,6 +39,16 @@ class UncompressedObjectReference implements ObjectReference {
     }
 
     public void output(DataOutputStream out) throws IOException {
+        output(out, offset);
+    }
+
+    /**
+     * Outputs a reference to a non-compressed object without creating an instance.
+     *
+     * @param out the stream to which to output the reference
+     * @param offset offset of the object from the beginning of the PDF file
+     */
+    static void output(DataOutputStream out, long offset) throws IOException {
         out.write(1);
         out.writeLong(offset);
         out.write(0);
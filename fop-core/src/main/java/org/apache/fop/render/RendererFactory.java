@@ -34,6 +34,7 @@ import org.apache.xmlgraphics.util.Service;
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.area.AreaTreeHandler;
+import org.apache.fop.area.AsyncAreaTreeHandler;
 import org.apache.fop.fo.FOEventHandler;
 import org.apache.fop.render.intermediate.AbstractIFDocumentHandlerMaker;
 import org.apache.fop.render.intermediate.EventProducingFilter;
@@ -360,6 +361,9 @@ public class RendererFactory {
                             "OutputStream has not been set");
                     }
                     //Found a Renderer so we need to construct an AreaTreeHandler.
+                    if (userAgent.isAsyncLayoutEnabled() && !userAgent.isAccessibilityEnabled()) {
+                        return new AsyncAreaTreeHandler(userAgent, outputFormat, out);
+                    }
                     return new AreaTreeHandler(userAgent, outputFormat, out);
                 } else {
                     throw new UnsupportedOperationException(
@@ -197,6 +197,12 @@ public class CustomFontMetricsMapper extends Typeface implements FontMetricsMapp
         return getRealFont().getKerningInfo();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public final int getKernValue(int first, int second) {
+        return getRealFont().getKernValue(first, second);
+    }
+
     /** {@inheritDoc} */
     public final int getWidth(final int i, final int size) {
         return getRealFont().getWidth(i, size);
@@ -168,8 +168,7 @@ public abstract class AbstractImageAdapter implements PDFImage {
         PDFICCStream pdfICCStream;
         if (!defaultsRGB) {
             if (cs == null) {
-                pdfICCStream = doc.getFactory().makePDFICCStream();
-                pdfICCStream.setColorSpace(prof, pdfCS);
+                pdfICCStream = doc.getFactory().makePDFICCStream(prof, pdfCS);
                 cs = doc.getFactory().makeICCBasedColorSpace(null, null, pdfICCStream);
             } else {
                 pdfICCStream = cs.getICCStream();
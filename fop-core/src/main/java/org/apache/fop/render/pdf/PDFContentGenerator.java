@@ -377,12 +377,15 @@ public class PDFContentGenerator {
      * @param rect the clip rectangle
      */
     public void clipRect(Rectangle rect) {
-        StringBuffer sb = new StringBuffer();
-        sb.append(format(rect.x / 1000f)).append(' ');
-        sb.append(format(rect.y / 1000f)).append(' ');
-        sb.append(format(rect.width / 1000f)).append(' ');
-        sb.append(format(rect.height / 1000f)).append(" re W n\n");
-        add(sb.toString());
+        PDFStream stream = getStream();
+        stream.addNumber(rect.x / 1000f);
+        stream.add(' ');
+        stream.addNumber(rect.y / 1000f);
+        stream.add(' ');
+        stream.addNumber(rect.width / 1000f);
+        stream.add(' ');
+        stream.addNumber(rect.height / 1000f);
+        stream.add(" re W n\n");
     }
 
     /**
@@ -409,7 +412,8 @@ public class PDFContentGenerator {
     public void updateLineWidth(float width) {
         if (getState().setLineWidth(width)) {
             //Only write if value has changed WRT the current line width
-            getStream().add(format(width) + " w\n");
+            getStream().addNumber(width);
+            getStream().add(" w\n");
         }
     }
 
@@ -419,7 +423,8 @@ public class PDFContentGenerator {
      */
     public void updateCharacterSpacing(float value) {
         if (getState().setCharacterSpacing(value)) {
-            getStream().add(format(value) + " Tc\n");
+            getStream().addNumber(value);
+            getStream().add(" Tc\n");
         }
     }
 
@@ -428,7 +433,7 @@ public class PDFContentGenerator {
      */
     public void resetCharacterSpacing() {
         if (getState().setCharacterSpacing(0)) {
-            getStream().add(format(0) + " Tc\n");
+            getStream().add("0 Tc\n");
         }
     }
 
@@ -25,26 +25,30 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.net.URI;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import org.apache.xmlgraphics.io.TempResourceURIGenerator;
 import org.apache.xmlgraphics.xmp.Metadata;
 
 import org.apache.fop.accessibility.StructureTreeEventHandler;
+import org.apache.fop.apps.FormattingResults;
 import org.apache.fop.apps.MimeConstants;
 import org.apache.fop.fo.extensions.xmp.XMPMetadata;
 import org.apache.fop.pdf.PDFAnnotList;
 import org.apache.fop.pdf.PDFArray;
 import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFOutputStatistics;
 import org.apache.fop.pdf.PDFPage;
 import org.apache.fop.pdf.PDFReference;
 import org.apache.fop.pdf.PDFResources;
@@ -69,7 +73,6 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
 
     /** logging instance */
     private static Log log = LogFactory.getLog(PDFDocumentHandler.class);
-    private static final TempResourceURIGenerator SIGN_TEMP_URI_GENERATOR = new TempResourceURIGenerator("pdfsign");
 
     private boolean accessEnabled;
 
@@ -108,7 +111,7 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
     private Map<Integer, PDFArray> pageNumbers = new HashMap<Integer, PDFArray>();
     private Map<String, PDFReference> contents = new HashMap<String, PDFReference>();
     private PDFSignature pdfSignature;
-    private URI signTempURI;
+    private File signTempFile;
     private OutputStream orgOutputStream;
 
     /**
@@ -181,8 +184,10 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
     private void setupPDFSigning() throws IOException {
         if (pdfUtil.getSignParams() != null) {
             orgOutputStream = outputStream;
-            signTempURI = SIGN_TEMP_URI_GENERATOR.generate();
-            outputStream = new BufferedOutputStream(getUserAgent().getResourceResolver().getOutputStream(signTempURI));
+            //a local file rather than a resource, so that the signature can be patched in place;
+            //it is deleted once the document has been signed
+            signTempFile = Files.createTempFile("org.apache.fop.pdf.Signature-", ".temp").toFile();
+            outputStream = new BufferedOutputStream(new FileOutputStream(signTempFile));
             outputStream = new CountingOutputStream(outputStream);
         }
     }
@@ -212,29 +217,56 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
             } else {
                 pdfDoc.outputTrailer(this.outputStream);
             }
+            FormattingResults results = getUserAgent().getFormattingResults();
+            if (results != null) {
+                results.haveDeduplicatedObjects(pdfDoc.getDeduplicatedObjectCount());
+                reportOutputStatistics(pdfDoc.getOutputStatistics(), results);
+            }
             this.pdfDoc = null;
 
             pdfResources = null;
             this.generator = null;
             currentPage = null;
         } catch (IOException ioe) {
+            deleteSignTempFile();
             throw new IFException("I/O error in endDocument()", ioe);
         }
         super.endDocument();
         signPDF();
     }
 
+    private static void reportOutputStatistics(PDFOutputStatistics statistics, FormattingResults results) {
+        for (PDFOutputStatistics.Category category : PDFOutputStatistics.Category.values()) {
+            results.haveWrittenBytes(category.getName(), statistics.getBytes(category));
+        }
+        results.haveEncodedStreams(statistics.getUnencodedStreamBytes(), statistics.getEncodedStreamBytes());
+        results.haveSpentTime(FormattingResults.PHASE_COMPRESSION, statistics.getEncodingTime());
+        results.haveSpentTime(FormattingResults.PHASE_WRITING, statistics.getWritingTime());
+    }
+
     private void signPDF() {
-        if (signTempURI != null) {
+        if (signTempFile != null) {
             try {
                 outputStream.close();
-                pdfSignature.signPDF(signTempURI, orgOutputStream);
+                pdfSignature.signPDF(signTempFile, orgOutputStream);
             } catch (IOException e) {
                 throw new RuntimeException(e);
+            } finally {
+                deleteSignTempFile();
             }
         }
     }
 
+    private void deleteSignTempFile() {
+        if (signTempFile != null) {
+            IOUtils.closeQuietly(outputStream);
+            if (!signTempFile.delete()) {
+                log.warn("Could not delete temporary file " + signTempFile);
+            }
+            signTempFile = null;
+        }
+    }
+
     /** {@inheritDoc} */
     public void startPageSequence(String id) throws IFException {
         //nop
@@ -242,7 +274,21 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
 
     /** {@inheritDoc} */
     public void endPageSequence() throws IFException {
-        //nop
+        boolean flushStructureTree = accessEnabled && pdfDoc.isStructureTreeFlushingEnabled()
+                && !pdfDoc.isLinearizationEnabled();
+        if (flushStructureTree || pdfDoc.isObjectStreamFlushingEnabled()) {
+            try {
+                if (flushStructureTree) {
+                    logicalStructureHandler.endPageSequence();
+                }
+                if (pdfDoc.isObjectStreamFlushingEnabled()) {
+                    pdfDoc.flushObjectStreams();
+                }
+                pdfDoc.output(this.outputStream);
+            } catch (IOException ioe) {
+                throw new IFException("I/O error in endPageSequence()", ioe);
+            }
+        }
     }
 
     /** {@inheritDoc} */
@@ -299,7 +345,7 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         generator.saveGraphicsState();
         generator.concatenate(basicPageTransform);
 
-        if (signTempURI != null && pdfSignature == null) {
+        if (signTempFile != null && pdfSignature == null) {
             pdfSignature = new PDFSignature(pdfDoc.getRoot(), getUserAgent(), pdfUtil.getSignParams());
             pdfSignature.add(currentPage);
         }
@@ -25,6 +25,7 @@ import java.awt.Rectangle;
 import java.io.IOException;
 
 import org.apache.fop.fo.Constants;
+import org.apache.fop.pdf.PDFNumber;
 import org.apache.fop.render.intermediate.ArcToBezierCurveTransformer;
 import org.apache.fop.render.intermediate.BezierCurvePainter;
 import org.apache.fop.render.intermediate.BorderPainter;
@@ -296,21 +297,40 @@ public class PDFGraphicsPainter implements GraphicsPainter, BezierCurvePainter {
 
         private final PDFContentGenerator generator;
 
+        /** buffer reused for building up each operation, to avoid a String per number */
+        private final StringBuffer buffer = new StringBuffer();
+
         public PDFContentGeneratorHelper(PDFContentGenerator generator) {
             this.generator = generator;
         }
 
         public PDFContentGeneratorHelper moveTo(int x, int y) {
-            return add("m", format(x), format(y));
+            clearBuffer();
+            appendArg(x);
+            appendArg(y);
+            add(buffer, "m");
+            return this;
         }
 
         public PDFContentGeneratorHelper lineTo(int x, int y) {
-            return add("l", format(x), format(y));
+            clearBuffer();
+            appendArg(x);
+            appendArg(y);
+            add(buffer, "l");
+            return this;
         }
 
         /** {@inheritDoc} */
         public PDFContentGeneratorHelper cubicBezierTo(int p1x, int p1y, int p2x, int p2y, int p3x, int p3y) {
-            return add("c", format(p1x), format(p1y), format(p2x), format(p2y), format(p3x), format(p3y));
+            clearBuffer();
+            appendArg(p1x);
+            appendArg(p1y);
+            appendArg(p2x);
+            appendArg(p2y);
+            appendArg(p3x);
+            appendArg(p3y);
+            add(buffer, "c");
+            return this;
         }
 
         public PDFContentGeneratorHelper closePath() {
@@ -387,10 +407,12 @@ public class PDFGraphicsPainter implements GraphicsPainter, BezierCurvePainter {
         }
 
         public PDFContentGeneratorHelper setDashLine(float first, float... rest) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("[").append(format(first));
+            StringBuffer sb = clearBuffer();
+            sb.append('[');
+            PDFNumber.doubleOut(first, 6, sb);
             for (float unit : rest) {
-                sb.append(" ").append(format(unit));
+                sb.append(' ');
+                PDFNumber.doubleOut(unit, 6, sb);
             }
             sb.append("] 0 d ");
             generator.add(sb.toString());
@@ -452,30 +474,44 @@ public class PDFGraphicsPainter implements GraphicsPainter, BezierCurvePainter {
             return this;
         }
 
-        private StringBuilder createArgs(float... args) {
-            StringBuilder sb = new StringBuilder();
+        private StringBuffer clearBuffer() {
+            buffer.setLength(0);
+            return buffer;
+        }
+
+        private void appendArg(int coordinate) {
+            appendArg(coordinate / 1000f);
+        }
+
+        private void appendArg(float arg) {
+            PDFNumber.doubleOut(arg, 6, buffer);
+            buffer.append(' ');
+        }
+
+        private StringBuffer createArgs(float... args) {
+            clearBuffer();
             for (float arg : args) {
-                sb.append(format(arg)).append(" ");
+                appendArg(arg);
             }
-            return sb;
+            return buffer;
         }
 
-        private StringBuilder createArgs(String... args) {
-            StringBuilder sb = new StringBuilder();
+        private StringBuffer createArgs(String... args) {
+            StringBuffer sb = clearBuffer();
             for (String arg : args) {
-                sb.append(arg).append(" ");
+                sb.append(arg).append(' ');
             }
             return sb;
         }
 
-        private void add(StringBuilder args, String op) {
+        private void add(StringBuffer args, String op) {
             assert op.equals(op.trim());
-            generator.add(args.append(op).append(" ").toString());
+            generator.add(args.append(op).append(' ').toString());
         }
 
-        private void addLine(StringBuilder args, String op) {
+        private void addLine(StringBuffer args, String op) {
             assert op.equals(op.trim());
-            generator.add(args.append(op).append("\n").toString());
+            generator.add(args.append(op).append('\n').toString());
         }
     }
 
@@ -19,6 +19,9 @@
 
 package org.apache.fop.render.pdf;
 
+import java.io.IOException;
+import java.util.LinkedList;
+
 import org.apache.fop.pdf.PDFArray;
 import org.apache.fop.pdf.PDFDictionary;
 import org.apache.fop.pdf.PDFDocument;
@@ -56,6 +59,13 @@ public class PDFLogicalStructureHandler {
      */
     private PDFArray pageParentTreeArray;
 
+    /**
+     * The structure elements of the page sequences that haven't been rendered yet, when the
+     * structure tree is written incrementally. The structure tree of a page sequence is usually
+     * built before the previous page sequences have been rendered.
+     */
+    private final LinkedList<PDFStructElem> pendingPageSequences = new LinkedList<PDFStructElem>();
+
     /**
      * Class providing the necessary information for bracketing content
      * associated to a structure element as a marked-content sequence.
@@ -123,6 +133,33 @@ public class PDFLogicalStructureHandler {
         parentTree.addToNums(currentPage.getStructParents(), pageParentTreeArray);
     }
 
+    /**
+     * Receive notification of the structure element of a new page sequence. The page sequences
+     * are rendered in the order in which their structure elements are created.
+     *
+     * @param pageSequence the structure element of the page sequence
+     */
+    void addPageSequence(PDFStructElem pageSequence) {
+        if (pdfDoc.isStructureTreeFlushingEnabled() && !pdfDoc.isLinearizationEnabled()) {
+            pendingPageSequences.add(pageSequence);
+        }
+    }
+
+    /**
+     * Receive notification of the end of the current page sequence, when the structure tree
+     * is written incrementally. Queues the structure elements of the page sequence, and the
+     * parts of the parent tree that are complete, for output.
+     *
+     * @throws IOException if an I/O error occurs while adding the elements to an object stream
+     */
+    void endPageSequence() throws IOException {
+        parentTree.flushKids(parentTreeKey);
+        PDFStructElem pageSequence = pendingPageSequences.poll();
+        if (pageSequence != null) {
+            pdfDoc.flushStructureTree(pageSequence);
+        }
+    }
+
     private MarkedContentInfo addToParentTree(PDFStructElem structureTreeElement) {
         PDFStructElem parent = structureTreeElement;
         while (parent instanceof PDFStructElem.Placeholder) {
@@ -53,6 +53,7 @@ import org.apache.fop.pdf.PDFImage;
 import org.apache.fop.pdf.PDFImageXObject;
 import org.apache.fop.pdf.PDFName;
 import org.apache.fop.pdf.PDFNumber;
+import org.apache.fop.pdf.PDFStream;
 import org.apache.fop.pdf.PDFStructElem;
 import org.apache.fop.pdf.PDFTextUtil;
 import org.apache.fop.pdf.PDFXObject;
@@ -425,20 +426,23 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
                     throw new UnsupportedOperationException("Non-Color paints NYI");
                 }
             }
-            StringBuffer sb = new StringBuffer();
-            sb.append(format(rect.x)).append(' ');
-            sb.append(format(rect.y)).append(' ');
-            sb.append(format(rect.width)).append(' ');
-            sb.append(format(rect.height)).append(" re");
+            PDFStream stream = generator.getStream();
+            stream.addNumber(rect.x / 1000f);
+            stream.add(' ');
+            stream.addNumber(rect.y / 1000f);
+            stream.add(' ');
+            stream.addNumber(rect.width / 1000f);
+            stream.add(' ');
+            stream.addNumber(rect.height / 1000f);
+            stream.add(" re");
             if (fill != null) {
-                sb.append(" f");
+                stream.add(" f");
             }
             /* Removed from method signature as it is currently not used
             if (stroke != null) {
-                sb.append(" S");
+                stream.add(" S");
             }*/
-            sb.append('\n');
-            generator.add(sb.toString());
+            stream.add('\n');
             if (accessEnabled && getUserAgent().isPdfUAEnabled()) {
                 generator.endMarkedContentSequence();
             }
@@ -56,14 +56,19 @@ import static org.apache.fop.render.pdf.PDFEncryptionOption.NO_PRINT;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.NO_PRINTHQ;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.OWNER_PASSWORD;
 import static org.apache.fop.render.pdf.PDFEncryptionOption.USER_PASSWORD;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_THREADS;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
+import static org.apache.fop.render.pdf.PDFRendererOption.FLUSH_OBJECT_STREAMS;
+import static org.apache.fop.render.pdf.PDFRendererOption.FLUSH_STRUCTURE_TREE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FORCE_URI_BASIC_LINK;
 import static org.apache.fop.render.pdf.PDFRendererOption.FORM_XOBJECT;
 import static org.apache.fop.render.pdf.PDFRendererOption.LINEARIZATION;
 import static org.apache.fop.render.pdf.PDFRendererOption.MERGE_FONTS;
 import static org.apache.fop.render.pdf.PDFRendererOption.MERGE_FORM_FIELDS;
 import static org.apache.fop.render.pdf.PDFRendererOption.OBJECT_STREAMS;
+import static org.apache.fop.render.pdf.PDFRendererOption.OBJECT_STREAM_MAX_OBJECTS;
+import static org.apache.fop.render.pdf.PDFRendererOption.OBJECT_STREAM_MAX_SIZE;
 import static org.apache.fop.render.pdf.PDFRendererOption.OUTPUT_PROFILE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_UA_MODE;
@@ -158,6 +163,11 @@ public final class PDFRendererConfig implements RendererConfig {
                 parseAndPut(LINEARIZATION, cfg);
                 parseAndPut(FORM_XOBJECT, cfg);
                 parseAndPut(OBJECT_STREAMS, cfg);
+                parseAndPut(OBJECT_STREAM_MAX_OBJECTS, cfg);
+                parseAndPut(OBJECT_STREAM_MAX_SIZE, cfg);
+                parseAndPut(FLUSH_OBJECT_STREAMS, cfg);
+                parseAndPut(COMPRESSION_THREADS, cfg);
+                parseAndPut(FLUSH_STRUCTURE_TREE, cfg);
                 parseAndPut(FORCE_URI_BASIC_LINK, cfg);
                 parseAndPut(VERSION, cfg);
                 configureSignParams(cfg);
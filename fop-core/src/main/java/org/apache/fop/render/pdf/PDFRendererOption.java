@@ -24,6 +24,7 @@ import java.net.URISyntaxException;
 
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.pdf.PDFAMode;
+import org.apache.fop.pdf.PDFDocument;
 import org.apache.fop.pdf.PDFUAMode;
 import org.apache.fop.pdf.PDFVTMode;
 import org.apache.fop.pdf.PDFXMode;
@@ -111,6 +112,44 @@ public enum PDFRendererOption implements RendererConfigOption {
             return Boolean.valueOf(value);
         }
     },
+    /** Rendering Options key for the number of threads compressing streams, default: 0 (none) */
+    COMPRESSION_THREADS("compression-threads", 0) {
+        @Override
+        Integer deserialize(String value) {
+            return Integer.valueOf(value);
+        }
+    },
+    /**
+     * Rendering Options key for the maximum number of objects in an object stream, default:
+     * {@link PDFDocument#DEFAULT_OBJECT_STREAM_MAX_OBJECTS}
+     */
+    OBJECT_STREAM_MAX_OBJECTS("object-stream-max-objects", PDFDocument.DEFAULT_OBJECT_STREAM_MAX_OBJECTS) {
+        @Override
+        Integer deserialize(String value) {
+            return Integer.valueOf(value);
+        }
+    },
+    /** Rendering Options key for the size in bytes from which an object stream is full, default: 0 (no limit) */
+    OBJECT_STREAM_MAX_SIZE("object-stream-max-size", 0) {
+        @Override
+        Integer deserialize(String value) {
+            return Integer.valueOf(value);
+        }
+    },
+    /** Rendering Options key for writing the current object stream after each page sequence, default: false */
+    FLUSH_OBJECT_STREAMS("flush-object-streams", false) {
+        @Override
+        Boolean deserialize(String value) {
+            return Boolean.valueOf(value);
+        }
+    },
+    /** Rendering Options key for writing the structure tree after each page sequence, default: false */
+    FLUSH_STRUCTURE_TREE("flush-structure-tree", false) {
+        @Override
+        Boolean deserialize(String value) {
+            return Boolean.valueOf(value);
+        }
+    },
     /** Rendering Options key for the ICC profile for the output intent. */
     OUTPUT_PROFILE("output-profile") {
         @Override
@@ -32,14 +32,19 @@ import org.apache.fop.pdf.PDFUAMode;
 import org.apache.fop.pdf.PDFVTMode;
 import org.apache.fop.pdf.PDFXMode;
 import org.apache.fop.pdf.Version;
+import static org.apache.fop.render.pdf.PDFRendererOption.COMPRESSION_THREADS;
 import static org.apache.fop.render.pdf.PDFRendererOption.DISABLE_SRGB_COLORSPACE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FILTER_LIST;
+import static org.apache.fop.render.pdf.PDFRendererOption.FLUSH_OBJECT_STREAMS;
+import static org.apache.fop.render.pdf.PDFRendererOption.FLUSH_STRUCTURE_TREE;
 import static org.apache.fop.render.pdf.PDFRendererOption.FORCE_URI_BASIC_LINK;
 import static org.apache.fop.render.pdf.PDFRendererOption.FORM_XOBJECT;
 import static org.apache.fop.render.pdf.PDFRendererOption.LINEARIZATION;
 import static org.apache.fop.render.pdf.PDFRendererOption.MERGE_FONTS;
 import static org.apache.fop.render.pdf.PDFRendererOption.MERGE_FORM_FIELDS;
 import static org.apache.fop.render.pdf.PDFRendererOption.OBJECT_STREAMS;
+import static org.apache.fop.render.pdf.PDFRendererOption.OBJECT_STREAM_MAX_OBJECTS;
+import static org.apache.fop.render.pdf.PDFRendererOption.OBJECT_STREAM_MAX_SIZE;
 import static org.apache.fop.render.pdf.PDFRendererOption.OUTPUT_PROFILE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_UA_MODE;
@@ -164,6 +169,26 @@ public final class PDFRendererOptionsConfig {
         return (Boolean)properties.get(OBJECT_STREAMS);
     }
 
+    public Integer getObjectStreamMaxObjects() {
+        return (Integer)properties.get(OBJECT_STREAM_MAX_OBJECTS);
+    }
+
+    public Integer getObjectStreamMaxSize() {
+        return (Integer)properties.get(OBJECT_STREAM_MAX_SIZE);
+    }
+
+    public Boolean getObjectStreamFlushingEnabled() {
+        return (Boolean)properties.get(FLUSH_OBJECT_STREAMS);
+    }
+
+    public Integer getCompressionThreads() {
+        return (Integer)properties.get(COMPRESSION_THREADS);
+    }
+
+    public Boolean getStructureTreeFlushingEnabled() {
+        return (Boolean)properties.get(FLUSH_STRUCTURE_TREE);
+    }
+
     public Boolean getForceUriBasicLinkEnabled() {
         return (Boolean)properties.get(FORCE_URI_BASIC_LINK);
     }
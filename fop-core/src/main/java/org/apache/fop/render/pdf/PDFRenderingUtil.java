@@ -196,14 +196,13 @@ class PDFRenderingUtil {
         InputStream in = null;
         URI outputProfileUri = rendererConfig.getOutputProfileURI();
         if (outputProfileUri != null) {
-            this.outputProfile = pdfDoc.getFactory().makePDFICCStream();
             in = userAgent.getResourceResolver().getResource(rendererConfig.getOutputProfileURI());
             try {
                 profile = ColorProfileUtil.getICC_Profile(in);
             } finally {
                 IOUtils.closeQuietly(in);
             }
-            this.outputProfile.setColorSpace(profile, null);
+            this.outputProfile = pdfDoc.getFactory().makePDFICCStream(profile, null);
         } else {
             //Fall back to sRGB profile
             outputProfile = sRGBColorSpace.getICCStream();
@@ -638,6 +637,11 @@ class PDFRenderingUtil {
         pdfDoc.setLinearizationEnabled(rendererConfig.getLinearizationEnabled());
         pdfDoc.setFormXObjectEnabled(rendererConfig.getFormXObjectEnabled());
         pdfDoc.setObjectStreamsEnabled(rendererConfig.getObjectStreamsEnabled());
+        pdfDoc.setObjectStreamMaxObjects(rendererConfig.getObjectStreamMaxObjects());
+        pdfDoc.setObjectStreamMaxSize(rendererConfig.getObjectStreamMaxSize());
+        pdfDoc.setObjectStreamFlushingEnabled(rendererConfig.getObjectStreamFlushingEnabled());
+        pdfDoc.setCompressionThreads(rendererConfig.getCompressionThreads());
+        pdfDoc.setStructureTreeFlushingEnabled(rendererConfig.getStructureTreeFlushingEnabled());
         pdfDoc.setForceUriBasicLink(rendererConfig.getForceUriBasicLinkEnabled());
 
         return this.pdfDoc;
@@ -680,7 +684,6 @@ class PDFRenderingUtil {
 
         //Create embedded file
         PDFEmbeddedFile file = new PDFEmbeddedFile();
-        this.pdfDoc.registerObject(file);
         URI srcURI;
         try {
             srcURI = InternalResourceResolver.cleanURI(embeddedFile.getSrc());
@@ -697,8 +700,13 @@ class PDFRenderingUtil {
         } finally {
             IOUtils.closeQuietly(in);
         }
+        //Files attached more than once are only embedded once
+        PDFEmbeddedFile canonicalFile = pdfDoc.getCanonicalObject(file.getContentDigest(), file);
+        if (canonicalFile == file) {
+            this.pdfDoc.registerObject(file);
+        }
         PDFDictionary dict = new PDFDictionary();
-        dict.put("F", file);
+        dict.put("F", canonicalFile);
         PDFFileSpec fileSpec = new PDFFileSpec(embeddedFile.getFilename(), embeddedFile.getUnicodeFilename());
         String filename = fileSpec.getFilename();
         pdfDoc.getRoot().addAF(fileSpec);
@@ -355,6 +355,8 @@ public class PDFStructureTreeBuilder implements StructureTreeEventHandler {
 
     private PDFStructElem rootStructureElement;
 
+    private PDFLogicalStructureHandler logicalStructureHandler;
+
     void setPdfFactory(PDFFactory pdfFactory) {
         this.pdfFactory = pdfFactory;
     }
@@ -364,6 +366,7 @@ public class PDFStructureTreeBuilder implements StructureTreeEventHandler {
     }
 
     void setLogicalStructureHandler(PDFLogicalStructureHandler logicalStructureHandler) {
+        this.logicalStructureHandler = logicalStructureHandler;
         createRootStructureElement(logicalStructureHandler);
     }
 
@@ -394,6 +397,7 @@ public class PDFStructureTreeBuilder implements StructureTreeEventHandler {
         if (language != null) {
             structElem.setLanguage(language);
         }
+        logicalStructureHandler.addPageSequence(structElem);
         ancestors.add(structElem);
     }
 
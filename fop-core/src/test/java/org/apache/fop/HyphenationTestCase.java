@@ -23,12 +23,16 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.StringReader;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.junit.Test;
+import org.xml.sax.InputSource;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import org.apache.commons.io.IOUtils;
 
@@ -36,8 +40,10 @@ import org.apache.fop.apps.FopFactory;
 import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.apps.io.ResourceResolverFactory;
 import org.apache.fop.hyphenation.Hyphenation;
+import org.apache.fop.hyphenation.HyphenationCache;
 import org.apache.fop.hyphenation.HyphenationException;
 import org.apache.fop.hyphenation.HyphenationTree;
+import org.apache.fop.hyphenation.MappedHyphenationTree;
 import org.apache.fop.hyphenation.Hyphenator;
 
 public class HyphenationTestCase {
@@ -76,6 +82,60 @@ public class HyphenationTestCase {
         f.delete();
     }
 
+    @Test
+    public void testHyphenatorCompiled() throws HyphenationException, IOException {
+        File f = File.createTempFile("hyp", "fop");
+        f.delete();
+        f.mkdir();
+        InternalResourceResolver resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                f.toURI());
+
+        HyphenationTree hTree = new HyphenationTree();
+        hTree.loadPatterns(new File("test/resources/fop/fr.xml").getAbsolutePath());
+        File hyb = new File(f, "fr.hyb");
+        FileOutputStream out = new FileOutputStream(hyb);
+        MappedHyphenationTree.write(hTree, out);
+        out.close();
+
+        Hyphenation hyph = Hyphenator.hyphenate("fr.hyb" + Hyphenator.HYBTYPE, null, resourceResolver, null,
+                "oello", 0, 0, fopFactory.newFOUserAgent());
+        assertEquals(hyph.toString(), "oel-lo");
+        //without an extension the compiled file is looked up first
+        HyphenationTree loaded = Hyphenator.getUserHyphenationTree("fr", resourceResolver);
+        assertTrue(loaded instanceof MappedHyphenationTree);
+        assertEquals(loaded.hyphenate("hello", 0, 0).toString(), "-hel-lo");
+
+        hyb.delete();
+        f.delete();
+    }
+
+    @Test
+    public void testCompiledTreeMatchesTree() throws HyphenationException, IOException {
+        String patterns = "<hyphenation-info><classes>aA bB eE hH lL nN oO rR sS tT</classes>"
+                + "<exceptions>ta-ble hel-lo-o</exceptions>"
+                + "<patterns>1he 1lo a1b 2bl .ta4 4ble. n1s o1r</patterns></hyphenation-info>";
+        HyphenationTree hTree = new HyphenationTree();
+        hTree.loadPatterns(new InputSource(new StringReader(patterns)));
+        File hyb = File.createTempFile("fop", ".hyb");
+        FileOutputStream out = new FileOutputStream(hyb);
+        try {
+            MappedHyphenationTree.write(hTree, out);
+        } finally {
+            out.close();
+        }
+        HyphenationTree mapped = MappedHyphenationTree.map(hyb);
+        for (String word : new String[] {"table", "Table", "hellooo", "hello", "oelhelo", "abnsor",
+                "tablet", "hello-table", "ball"}) {
+            assertEquals(word, String.valueOf(hTree.hyphenate(word, 1, 1)),
+                    String.valueOf(mapped.hyphenate(word, 1, 1)));
+        }
+        assertEquals("ta-ble", mapped.hyphenate("table", 1, 1).toString());
+        assertEquals("40000", mapped.findPattern("ble."));
+        assertEquals(hTree.findPattern("ble."), mapped.findPattern("ble."));
+        assertEquals("", mapped.findPattern("xyz"));
+        hyb.delete();
+    }
+
     @Test
     public void testHyphenatorCache() throws IOException {
         File f = File.createTempFile("hyp", "fop");
@@ -101,6 +161,42 @@ public class HyphenationTestCase {
         f.delete();
     }
 
+    @Test
+    public void testHyphenationCache() throws HyphenationException {
+        File f = new File("test/resources/fop");
+        InternalResourceResolver resourceResolver = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                f.toURI());
+        HyphenationCache cache = fopFactory.getHyphenationTreeCache().getHyphenationCache();
+        Hyphenation hyph = Hyphenator.hyphenate("fr.xml" + Hyphenator.XMLTYPE, null, resourceResolver, null,
+                "hello", 0, 0, fopFactory.newFOUserAgent());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertSame(hyph, Hyphenator.hyphenate("fr.xml" + Hyphenator.XMLTYPE, null, resourceResolver, null,
+                "hello", 0, 0, fopFactory.newFOUserAgent()));
+        assertEquals(1, cache.getHitCount());
+        //the character counts are part of the key, words without hyphenation points are cached too
+        assertNull(Hyphenator.hyphenate("fr.xml" + Hyphenator.XMLTYPE, null, resourceResolver, null,
+                "hello", 3, 3, fopFactory.newFOUserAgent()));
+        assertNull(Hyphenator.hyphenate("fr.xml" + Hyphenator.XMLTYPE, null, resourceResolver, null,
+                "hello", 3, 3, fopFactory.newFOUserAgent()));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        HyphenationTree hTree = new HyphenationTree();
+        hTree.loadPatterns(new File("test/resources/fop/fr.xml").getAbsolutePath());
+        cache = new HyphenationCache(2);
+        cache.hyphenate(hTree, "fr", null, "hello", 0, 0);
+        cache.hyphenate(hTree, "fr", null, "oello", 0, 0);
+        cache.hyphenate(hTree, "fr", null, "hello", 0, 0);
+        cache.hyphenate(hTree, "fr", null, "lolo", 0, 0);
+        assertEquals(2, cache.size());
+        //"oello" was the least recently used word
+        cache.hyphenate(hTree, "fr", null, "hello", 0, 0);
+        cache.hyphenate(hTree, "fr", null, "oello", 0, 0);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+    }
+
     @Test
     public void testHyphenatorCountry() {
         Map<String, String> hyphPatNames = new HashMap<>();
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+
+public class AsyncAreaTreeHandlerTestCase {
+
+    private final FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+
+    @Test
+    public void testSameAreaTreeAsSynchronousLayout() throws Exception {
+        String fo = createDocument(20);
+        String sync = render(fo, false);
+        String async = render(fo, true);
+        assertTrue(sync.contains("pageViewport"));
+        assertEquals(sync, async);
+    }
+
+    @Test
+    public void testHandlerSelection() throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setAsyncLayout(true);
+        assertTrue(userAgent.getRendererFactory().createFOEventHandler(userAgent,
+                MimeConstants.MIME_FOP_AREA_TREE, new ByteArrayOutputStream())
+                instanceof AsyncAreaTreeHandler);
+        userAgent.setAccessibility(true);
+        assertEquals(AreaTreeHandler.class, userAgent.getRendererFactory().createFOEventHandler(
+                userAgent, MimeConstants.MIME_FOP_AREA_TREE, new ByteArrayOutputStream()).getClass());
+    }
+
+    private String render(String fo, boolean asyncLayout) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setAsyncLayout(asyncLayout);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new ByteArrayInputStream(fo.getBytes("UTF-8"))),
+                new SAXResult(fop.getDefaultHandler()));
+        return out.toString("UTF-8");
+    }
+
+    private String createDocument(int pageSequences) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">\n"
+                + "  <fo:layout-master-set>\n"
+                + "    <fo:simple-page-master master-name=\"simple\" page-height=\"10cm\""
+                + " page-width=\"10cm\">\n"
+                + "      <fo:region-body />\n"
+                + "    </fo:simple-page-master>\n"
+                + "  </fo:layout-master-set>\n");
+        for (int i = 0; i < pageSequences; i++) {
+            sb.append("  <fo:page-sequence master-reference=\"simple\" force-page-count=\"even\">\n"
+                    + "    <fo:flow flow-name=\"xsl-region-body\">\n");
+            sb.append("      <fo:block id=\"seq").append(i).append("\">Sequence ").append(i)
+                    .append(" on page <fo:page-number/>, next one starts on page"
+                    + " <fo:page-number-citation ref-id=\"seq")
+                    .append((i + 1) % pageSequences).append("\"/></fo:block>\n");
+            for (int j = 0; j < i % 4; j++) {
+                sb.append("      <fo:block break-before=\"page\">Page ").append(j).append("</fo:block>\n");
+            }
+            sb.append("    </fo:flow>\n  </fo:page-sequence>\n");
+        }
+        sb.append("</fo:root>");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.flow.table;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.FONode;
+
+/**
+ * Checks that table-cells having the same properties share their property values.
+ */
+public class TableCellPropertiesTestCase extends AbstractTableTest {
+
+    private void collectCells(FONode node, List<TableCell> cells) {
+        if (node instanceof TableCell) {
+            cells.add((TableCell) node);
+        } else {
+            FONode.FONodeIterator iter = node.getChildNodes();
+            while (iter != null && iter.hasNext()) {
+                collectCells(iter.next(), cells);
+            }
+        }
+    }
+
+    @Test
+    public void testSharedProperties() throws Exception {
+        setUp("table/table-cell_shared-properties.fo");
+        List<TableCell> cells = new ArrayList<TableCell>();
+        collectCells((Table) getTableIterator().next(), cells);
+        assertEquals(6, cells.size());
+        for (int i = 0; i < 6; i++) {
+            TableCell cell = cells.get(i);
+            assertEquals(i % 3 + 1, cell.getColumnNumber());
+            assertEquals(1000, cell.getCommonBorderPaddingBackground().getBorderBeforeWidth(false));
+        }
+        for (int i = 1; i < 5; i++) {
+            assertSame(cells.get(0).getCommonBorderPaddingBackground(),
+                    cells.get(i).getCommonBorderPaddingBackground());
+            assertSame(cells.get(0).getBlockProgressionDimension(),
+                    cells.get(i).getBlockProgressionDimension());
+            assertSame(cells.get(0).getWidth(), cells.get(i).getWidth());
+        }
+        assertEquals(Constants.EN_AUTO, cells.get(0).getDisplayAlign());
+        assertEquals(Constants.EN_CENTER, cells.get(5).getDisplayAlign());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+public class CMapIndexTestCase {
+
+    private static List<CMapSegment> createCMap() {
+        List<CMapSegment> cmap = new ArrayList<CMapSegment>();
+        cmap.add(new CMapSegment(0x20, 0x7E, 3));
+        cmap.add(new CMapSegment(0xA0, 0xFF, 98));
+        cmap.add(new CMapSegment(0x0600, 0x06FF, 200));
+        cmap.add(new CMapSegment(0x4E00, 0x9FFF, 500));
+        cmap.add(new CMapSegment(0x1F600, 0x1F64F, 21500));
+        return cmap;
+    }
+
+    @Test
+    public void testGlyphIndex() {
+        CMapIndex index = new CMapIndex(createCMap());
+        assertEquals(0, index.getGlyphIndex(0x1F));
+        assertEquals(3, index.getGlyphIndex(' '));
+        assertEquals(97, index.getGlyphIndex('~'));
+        assertEquals(0, index.getGlyphIndex(0x7F));
+        assertEquals(98, index.getGlyphIndex(0xA0));
+        assertEquals(200 + 0x27, index.getGlyphIndex(0x0627));
+        assertEquals(0, index.getGlyphIndex(0x0700));
+        assertEquals(500 + 0x1234, index.getGlyphIndex(0x4E00 + 0x1234));
+        assertEquals(21500, index.getGlyphIndex(0x1F600));
+        assertEquals(0, index.getGlyphIndex(0x1F650));
+        assertEquals(0, index.getGlyphIndex(-1));
+    }
+
+    @Test
+    public void testUnsortedSegments() {
+        List<CMapSegment> cmap = createCMap();
+        Collections.reverse(cmap);
+        CMapIndex index = new CMapIndex(cmap);
+        assertEquals(3, index.getGlyphIndex(' '));
+        assertEquals(500, index.getGlyphIndex(0x4E00));
+        assertEquals(0x4E00, index.getCodePoint(500));
+    }
+
+    @Test
+    public void testOverlappingSegments() {
+        CMapIndex index = new CMapIndex(Arrays.asList(
+                new CMapSegment(0x100, 0x1FF, 10),
+                new CMapSegment(0x120, 0x12F, 500),
+                new CMapSegment(0x180, 0x180, 0)));
+        assertEquals(10 + 0x20, index.getGlyphIndex(0x120));
+        assertEquals(10 + 0x80, index.getGlyphIndex(0x180));
+        assertEquals(10 + 0xFF, index.getGlyphIndex(0x1FF));
+        assertEquals(0x120, index.getCodePoint(500));
+    }
+
+    @Test
+    public void testCodePoint() {
+        CMapIndex index = new CMapIndex(createCMap());
+        assertEquals(0, index.getCodePoint(0));
+        assertEquals(' ', index.getCodePoint(3));
+        assertEquals(0xFF, index.getCodePoint(98 + 0x5F));
+        assertEquals(0, index.getCodePoint(199));
+        assertEquals(0x1F64F, index.getCodePoint(21500 + 0x4F));
+        assertEquals(0, index.getCodePoint(21500 + 0x50));
+        assertEquals(0, index.getCodePoint(-1));
+    }
+
+    @Test
+    public void testEmptyCMap() {
+        CMapIndex index = new CMapIndex(Collections.<CMapSegment>emptyList());
+        assertEquals(0, index.getGlyphIndex('A'));
+        assertEquals(0, index.getGlyphIndex(0x4E00));
+        assertEquals(0, index.getCodePoint(1));
+    }
+}
@@ -27,6 +27,7 @@ import java.net.URI;
 import org.junit.Assert;
 import org.junit.Test;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
 import org.apache.xmlgraphics.io.Resource;
@@ -50,6 +51,33 @@ public class FontInfoFinderTestCase {
         Assert.assertNull(embedFontInfos);
     }
 
+    @Test
+    public void testCacheRefresh() throws Exception {
+        InternalResourceResolver rr = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                new File(".").toURI());
+        File font = File.createTempFile("fop", ".ttf");
+        try {
+            FileUtils.copyFile(new File("test/resources/fonts/ttf/glb12.ttf"), font);
+            FontCache cache = new FontCache();
+            URI fontURI = font.toURI();
+            EmbedFontInfo[] embedFontInfos = new FontInfoFinder().find(fontURI, rr, cache);
+            Assert.assertEquals(1, embedFontInfos.length);
+            String key = fontURI.toASCIIString();
+            Assert.assertTrue(cache.containsFont(key));
+
+            // touched, but not changed
+            Assert.assertTrue(font.setLastModified(font.lastModified() - 60000));
+            Assert.assertNotNull(cache.getFontInfos(key, fontURI));
+            Assert.assertNotNull(cache.getFontInfos(key, fontURI));
+
+            FileUtils.writeByteArrayToFile(font, new byte[1], true);
+            Assert.assertNull(cache.getFontInfos(key, fontURI));
+            Assert.assertFalse(cache.containsFont(key));
+        } finally {
+            font.delete();
+        }
+    }
+
     @Test
     public void testOOMError() {
         InternalResourceResolver rr = ResourceResolverFactory.createInternalResourceResolver(new File(".").toURI(),
@@ -20,6 +20,7 @@ package org.apache.fop.fonts;
 import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Arrays;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -60,6 +61,15 @@ public class FontManagerTestCase {
         inOrder.verify(fontCacheManager).setCacheFile(nullable(URI.class));
     }
 
+    @Test
+    public void testFontSharingIsOptional() {
+        Assert.assertNull(sut.getFontRegistry());
+        sut.setFontSharingEnabled(true);
+        FontRegistry registry = sut.getFontRegistry();
+        Assert.assertNotNull(registry);
+        Assert.assertSame(registry, sut.getFontRegistry());
+    }
+
     @Test
     public void testSetCacheURL() throws URISyntaxException {
         InternalResourceResolver rr = ResourceResolverFactory.createDefaultInternalResourceResolver(
@@ -71,6 +81,39 @@ public class FontManagerTestCase {
         Assert.assertTrue(fc.containsFont(uri));
     }
 
+    @Test
+    public void testFontCacheSaveAndLoad() throws Exception {
+        InternalResourceResolver rr = ResourceResolverFactory.createDefaultInternalResourceResolver(
+                new File(".").toURI());
+        File fontFile = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf");
+        FontUris fontUris = new FontUris(fontFile.toURI(), null);
+        EmbedFontInfo efi = new EmbedFontInfo(fontUris, true, false,
+                Arrays.asList(new FontTriplet("DejaVu LGC Serif", "normal", 400, 1)), null,
+                EncodingMode.CID, EmbeddingMode.SUBSET, false, false, true, false);
+        efi.setPostScriptName("DejaVuLGCSerif");
+        FontCache fc = new FontCache();
+        fc.addFont(efi, rr);
+        fc.registerFailedFont("file:/broken.ttf", 42L);
+        File cacheFile = File.createTempFile("fop", ".cache");
+        try {
+            fc.saveTo(cacheFile);
+            FontCache loaded = FontCache.loadFrom(cacheFile);
+            Assert.assertNotNull(loaded);
+            String key = fontFile.toURI().toASCIIString();
+            long lastModified = FontCache.getLastModified(fontFile.toURI());
+            EmbedFontInfo[] infos = loaded.getFontInfos(key, lastModified);
+            Assert.assertEquals(1, infos.length);
+            Assert.assertEquals(efi.toString(), infos[0].toString());
+            Assert.assertEquals("DejaVuLGCSerif", infos[0].getPostScriptName());
+            Assert.assertEquals(EmbeddingMode.SUBSET, infos[0].getEmbeddingMode());
+            Assert.assertEquals(efi.getFontTriplets(), infos[0].getFontTriplets());
+            Assert.assertEquals(1, infos[0].getFontTriplets().get(0).getPriority());
+            Assert.assertTrue(loaded.isFailedFont("file:/broken.ttf", 42L));
+        } finally {
+            cacheFile.delete();
+        }
+    }
+
     @Test
     public void testGetFontCache() {
         sut.getFontCache();
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.FileUtils;
+
+import org.apache.xmlgraphics.io.Resource;
+import org.apache.xmlgraphics.io.ResourceResolver;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+public class FontMetricsStoreTestCase {
+
+    private static final String OPTIONS = "test";
+
+    private final InternalResourceResolver resolver
+            = ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+
+    private final URI fontURI = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf").toURI();
+
+    private File directory;
+
+    private FontMetricsStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("fop", "metrics");
+        directory.delete();
+        store = new FontMetricsStore(directory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    private CustomFont loadFont(EncodingMode encodingMode) throws IOException {
+        return FontLoader.loadFont(new FontUris(fontURI, null), "", true, EmbeddingMode.AUTO, encodingMode,
+                true, false, resolver, false, false, false);
+    }
+
+    @Test
+    public void testMultiByteFont() throws IOException {
+        MultiByteFont original = (MultiByteFont) loadFont(EncodingMode.AUTO);
+        assertNull(store.load(fontURI, OPTIONS, resolver));
+        store.save(fontURI, OPTIONS, original);
+
+        FontMetricsStore.StoredFont stored = store.load(fontURI, OPTIONS, resolver);
+        assertNotNull(stored);
+        assertFalse(stored.hasLayoutTables());
+        MultiByteFont font = (MultiByteFont) stored.getFont();
+        assertCommonMetrics(original, font);
+        assertEquals(original.getCIDType(), font.getCIDType());
+        assertEquals(original.isOTFFile(), font.isOTFFile());
+        assertArrayEquals(original.getWidths(), font.getWidths());
+        for (char c = 'A'; c <= 'z'; c++) {
+            assertEquals(original.mapChar(c), font.mapChar(c));
+            int glyph = original.mapChar(c);
+            assertEquals(original.getWidth(glyph, 12), font.getWidth(glyph, 12));
+            assertEquals(original.getBoundingBox(glyph, 12), font.getBoundingBox(glyph, 12));
+        }
+    }
+
+    @Test
+    public void testSingleByteFont() throws IOException {
+        SingleByteFont original = (SingleByteFont) loadFont(EncodingMode.SINGLE_BYTE);
+        store.save(fontURI, OPTIONS, original);
+
+        SingleByteFont font = (SingleByteFont) store.load(fontURI, OPTIONS, resolver).getFont();
+        assertCommonMetrics(original, font);
+        assertEquals(original.getEncodingName(), font.getEncodingName());
+        assertEquals(original.getTrueTypePostScriptVersion(), font.getTrueTypePostScriptVersion());
+        assertArrayEquals(original.getWidths(), font.getWidths());
+        for (int i = original.getFirstChar(); i <= original.getLastChar(); i++) {
+            assertEquals(original.getBoundingBox(i, 10), font.getBoundingBox(i, 10));
+        }
+        //glyphs outside the encoding are kept as unencoded characters
+        assertNotNull(original.unencodedCharacters);
+        assertEquals(original.unencodedCharacters.keySet(), font.unencodedCharacters.keySet());
+    }
+
+    private void assertCommonMetrics(CustomFont expected, CustomFont actual) {
+        assertEquals(expected.getFontType(), actual.getFontType());
+        assertEquals(expected.getEmbeddingMode(), actual.getEmbeddingMode());
+        assertEquals(expected.getFontName(), actual.getFontName());
+        assertEquals(expected.getFullName(), actual.getFullName());
+        assertEquals(expected.getFamilyNames(), actual.getFamilyNames());
+        assertEquals(expected.getFontSubName(), actual.getFontSubName());
+        assertEquals(expected.getEmbedFileURI(), actual.getEmbedFileURI());
+        assertEquals(expected.getAscender(), actual.getAscender());
+        assertEquals(expected.getDescender(), actual.getDescender());
+        assertEquals(expected.getCapHeight(), actual.getCapHeight());
+        assertEquals(expected.getXHeight(1), actual.getXHeight(1));
+        assertArrayEquals(expected.getFontBBox(), actual.getFontBBox());
+        assertEquals(expected.getUnderlinePosition(7), actual.getUnderlinePosition(7));
+        assertEquals(expected.getUnderlineThickness(7), actual.getUnderlineThickness(7));
+        assertEquals(expected.getStrikeoutPosition(7), actual.getStrikeoutPosition(7));
+        assertEquals(expected.getStrikeoutThickness(7), actual.getStrikeoutThickness(7));
+        assertEquals(expected.getFlags(), actual.getFlags());
+        assertEquals(expected.getItalicAngle(), actual.getItalicAngle());
+        assertEquals(expected.getWeight(), actual.getWeight());
+        assertEquals(expected.getFirstChar(), actual.getFirstChar());
+        assertEquals(expected.getLastChar(), actual.getLastChar());
+        assertEquals(Arrays.asList(expected.getCMap()), Arrays.asList(actual.getCMap()));
+        assertTrue(expected.hasKerningInfo());
+        assertEquals(expected.getKerningInfo(), actual.getKerningInfo());
+    }
+
+    @Test
+    public void testRecordKey() throws IOException {
+        store.save(fontURI, OPTIONS, loadFont(EncodingMode.AUTO));
+        assertNull(store.load(fontURI, "other options", resolver));
+        assertNotNull(store.load(fontURI, OPTIONS, resolver));
+        store.clear();
+        assertNull(store.load(fontURI, OPTIONS, resolver));
+    }
+
+    @Test
+    public void testExistingRecordIsKept() throws IOException {
+        CustomFont font = loadFont(EncodingMode.AUTO);
+        store.save(fontURI, OPTIONS, font);
+        File record = directory.listFiles()[0];
+        assertTrue(record.setLastModified(0));
+        store.save(fontURI, OPTIONS, font);
+        assertEquals(1, directory.listFiles().length);
+        assertEquals(0, record.lastModified());
+    }
+
+    @Test
+    public void testCorruptRecordIsDiscarded() throws IOException {
+        store.save(fontURI, OPTIONS, loadFont(EncodingMode.AUTO));
+        File[] records = directory.listFiles();
+        assertEquals(1, records.length);
+        FileOutputStream out = new FileOutputStream(records[0]);
+        try {
+            out.write(new byte[] {'F', 'O', 'P', 'M', 0, 0});
+        } finally {
+            out.close();
+        }
+        assertNull(store.load(fontURI, OPTIONS, resolver));
+        assertFalse(records[0].exists());
+    }
+
+    @Test
+    public void testLazyFontUsesStore() throws IOException {
+        EmbedFontInfo fontInfo = new EmbedFontInfo(new FontUris(fontURI, null), true, false,
+                Collections.singletonList(new FontTriplet("DejaVu", "normal", 400)), null);
+        LazyFont first = new LazyFont(fontInfo, resolver, false);
+        first.setMetricsStore(store);
+        int ascender = first.getAscender();
+        assertEquals(1, directory.listFiles().length);
+
+        LazyFont second = new LazyFont(fontInfo, resolver, false);
+        second.setMetricsStore(store);
+        assertEquals(ascender, second.getAscender());
+        assertEquals(first.getWidth(first.mapChar('W'), 10), second.getWidth(second.mapChar('W'), 10));
+    }
+
+    @Test
+    public void testStoreHitDoesNotReadFontFile() throws IOException {
+        EmbedFontInfo fontInfo = new EmbedFontInfo(new FontUris(fontURI, null), true, true,
+                Collections.singletonList(new FontTriplet("DejaVu", "normal", 400)), null);
+        LazyFont first = new LazyFont(fontInfo, resolver, true);
+        first.setMetricsStore(store);
+        int ascender = first.getAscender();
+        assertTrue(first.performsSubstitution());
+
+        final AtomicInteger reads = new AtomicInteger();
+        final ResourceResolver defaultResolver = ResourceResolverFactory.createDefaultResourceResolver();
+        InternalResourceResolver countingResolver = ResourceResolverFactory.createInternalResourceResolver(
+                new File(".").toURI(), new ResourceResolver() {
+                    public Resource getResource(URI uri) throws IOException {
+                        reads.incrementAndGet();
+                        return defaultResolver.getResource(uri);
+                    }
+
+                    public OutputStream getOutputStream(URI uri) throws IOException {
+                        return defaultResolver.getOutputStream(uri);
+                    }
+                });
+        LazyFont second = new LazyFont(fontInfo, countingResolver, true);
+        second.setMetricsStore(store);
+        assertEquals(ascender, second.getAscender());
+        assertEquals(first.getWidth(first.mapChar('W'), 10), second.getWidth(second.mapChar('W'), 10));
+        assertEquals(0, reads.get());
+
+        //the layout tables are only read once they are needed
+        assertTrue(second.performsSubstitution());
+        assertTrue(reads.get() > 0);
+    }
+}
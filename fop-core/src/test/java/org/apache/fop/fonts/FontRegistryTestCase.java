@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.FileUtils;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+
+public class FontRegistryTestCase {
+
+    private final InternalResourceResolver resolver
+            = ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+
+    private final URI fontURI = new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf").toURI();
+
+    private final FontRegistry registry = new FontRegistry(resolver);
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    private final FontRegistry.Loader loader = new FontRegistry.Loader() {
+        public CustomFont load(InternalResourceResolver resourceResolver) throws IOException {
+            loadCount.incrementAndGet();
+            return FontLoader.loadFont(new FontUris(fontURI, null), "", true, EmbeddingMode.AUTO,
+                    EncodingMode.AUTO, true, true, resourceResolver, false, false, false);
+        }
+    };
+
+    @Test
+    public void testMultiByteFontIsShared() throws IOException {
+        MultiByteFont first = (MultiByteFont) registry.getFont(fontURI, "", resolver, loader);
+        MultiByteFont second = (MultiByteFont) registry.getFont(fontURI, "", resolver, loader);
+        assertEquals(1, loadCount.get());
+        assertEquals(1, registry.size());
+        assertNotSame(first, second);
+        assertSame(first.width, second.width);
+        assertSame(first.boundingBoxes, second.boundingBoxes);
+        assertSame(first.getGSUB(), second.getGSUB());
+        assertSame(first.getKerningInfo(), second.getKerningInfo());
+        assertEquals(first.getFontName(), second.getFontName());
+
+        //the used glyphs are tracked per document
+        first.mapChar('A');
+        first.mapChar('B');
+        second.mapChar('Z');
+        assertEquals(3, first.getUsedGlyphs().size());
+        assertEquals(2, second.getUsedGlyphs().size());
+        assertNotSame(first.getCIDSet(), second.getCIDSet());
+    }
+
+    @Test
+    public void testSubsetsAreShared() throws IOException {
+        MultiByteFont first = (MultiByteFont) registry.getFont(fontURI, "", resolver, loader);
+        MultiByteFont second = (MultiByteFont) registry.getFont(fontURI, "", resolver, loader);
+        MultiByteFont third = (MultiByteFont) registry.getFont(fontURI, "", resolver, loader);
+        first.mapChar('A');
+        first.mapChar('B');
+        second.mapChar('A');
+        second.mapChar('B');
+        third.mapChar('B');
+        third.mapChar('A');
+        assertNull(first.getCachedSubset());
+
+        byte[] subset = new byte[] {1, 2, 3};
+        first.cacheSubset(subset);
+        assertSame(subset, second.getCachedSubset());
+        //the glyphs have other indices in the subset
+        assertNull(third.getCachedSubset());
+        assertEquals(1, registry.getSubsetCache().size());
+
+        registry.clear();
+        assertEquals(0, registry.getSubsetCache().size());
+    }
+
+    @Test
+    public void testOptionsAreSeparated() throws IOException {
+        registry.getFont(fontURI, "kerning=true", resolver, loader);
+        registry.getFont(fontURI, "kerning=false", resolver, loader);
+        assertEquals(2, loadCount.get());
+        registry.clear();
+        registry.getFont(fontURI, "kerning=true", resolver, loader);
+        assertEquals(3, loadCount.get());
+    }
+
+    @Test
+    public void testRegisteredFontKeepsNoDocumentResolver() throws IOException {
+        final List<InternalResourceResolver> resolvers = new ArrayList<InternalResourceResolver>();
+        FontRegistry.Loader recordingLoader = new FontRegistry.Loader() {
+            public CustomFont load(InternalResourceResolver resourceResolver) throws IOException {
+                resolvers.add(resourceResolver);
+                return loader.load(resourceResolver);
+            }
+        };
+        InternalResourceResolver documentResolver
+                = ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+        registry.getFont(fontURI, "", documentResolver, recordingLoader);
+        registry.getFont(fontURI, "", documentResolver, recordingLoader);
+        assertEquals(1, resolvers.size());
+        assertSame(resolver, resolvers.get(0));
+    }
+
+    @Test
+    public void testChangedFontFileIsReloaded() throws IOException {
+        FontRegistry registry = new FontRegistry(resolver, 0);
+        final File file = File.createTempFile("fop", ".ttf");
+        try {
+            FileUtils.copyFile(new File(fontURI), file);
+            FontRegistry.Loader fileLoader = new FontRegistry.Loader() {
+                public CustomFont load(InternalResourceResolver resourceResolver) throws IOException {
+                    loadCount.incrementAndGet();
+                    return FontLoader.loadFont(new FontUris(file.toURI(), null), "", true, EmbeddingMode.AUTO,
+                            EncodingMode.AUTO, true, true, resourceResolver, false, false, false);
+                }
+            };
+            MultiByteFont first = (MultiByteFont) registry.getFont(file.toURI(), "", resolver, fileLoader);
+            first.mapChar('A');
+            first.cacheSubset(new byte[] {1, 2, 3});
+            registry.getFont(file.toURI(), "", resolver, fileLoader);
+            assertEquals(1, loadCount.get());
+
+            assertTrue(file.setLastModified(file.lastModified() - 10000));
+            MultiByteFont second = (MultiByteFont) registry.getFont(file.toURI(), "", resolver, fileLoader);
+            assertEquals(2, loadCount.get());
+            assertNotSame(first.width, second.width);
+            //the subsets of the old file aren't used for the new one
+            second.mapChar('A');
+            assertNull(second.getCachedSubset());
+            registry.getFont(file.toURI(), "", resolver, fileLoader);
+            assertEquals(2, loadCount.get());
+            assertEquals(1, registry.size());
+        } finally {
+            registry.clear();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testConcurrentRequestsLoadOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<CustomFont>> futures = new ArrayList<Future<CustomFont>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<CustomFont>() {
+                    public CustomFont call() throws Exception {
+                        return registry.getFont(fontURI, "", resolver, loader);
+                    }
+                }));
+            }
+            for (Future<CustomFont> future : futures) {
+                assertEquals("DejaVuLGCSerif", future.get().getFontName());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, loadCount.get());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class FontSubsetCacheTestCase {
+
+    private final Object font = new Object();
+
+    private static Map<Integer, Integer> glyphs(int... originalIndices) {
+        Map<Integer, Integer> glyphs = new LinkedHashMap<Integer, Integer>();
+        for (int i = 0; i < originalIndices.length; i++) {
+            glyphs.put(originalIndices[i], i);
+        }
+        return glyphs;
+    }
+
+    @Test
+    public void testLookup() {
+        FontSubsetCache cache = new FontSubsetCache();
+        byte[] subset = new byte[10];
+        cache.put(font, null, glyphs(0, 36, 37), subset);
+        assertSame(subset, cache.get(font, null, glyphs(0, 36, 37)));
+        assertSame(subset, cache.get(font, null, new HashMap<Integer, Integer>(glyphs(0, 36, 37))));
+        assertNull(cache.get(font, null, glyphs(0, 37, 36)));
+        assertNull(cache.get(font, null, glyphs(0, 36)));
+        assertNull(cache.get(font, "Font", glyphs(0, 36, 37)));
+        assertNull(cache.get(new Object(), null, glyphs(0, 36, 37)));
+    }
+
+    @Test
+    public void testEviction() {
+        FontSubsetCache cache = new FontSubsetCache(100);
+        cache.put(font, null, glyphs(0, 1), new byte[40]);
+        cache.put(font, null, glyphs(0, 2), new byte[40]);
+        // makes the first subset the most recently used one
+        cache.get(font, null, glyphs(0, 1));
+        cache.put(font, null, glyphs(0, 3), new byte[40]);
+        assertEquals(2, cache.size());
+        assertEquals(80, cache.getTotalSize());
+        assertNull(cache.get(font, null, glyphs(0, 2)));
+
+        cache.put(font, null, glyphs(0, 4), new byte[101]);
+        assertNull(cache.get(font, null, glyphs(0, 4)));
+        assertEquals(2, cache.size());
+
+        cache.setMaxSize(50);
+        assertEquals(1, cache.size());
+        assertEquals(40, cache.getTotalSize());
+        cache.clear();
+        assertEquals(0, cache.getTotalSize());
+    }
+}
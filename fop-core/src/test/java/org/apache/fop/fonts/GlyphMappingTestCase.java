@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.CharacterIterator;
+import java.text.StringCharacterIterator;
+import java.util.Arrays;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import org.apache.fop.apps.io.InternalResourceResolver;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.traits.MinOptMax;
+
+public class GlyphMappingTestCase {
+
+    private static final String TEXT = "AVATAR WAVE AVATAR WAVE";
+
+    private final InternalResourceResolver resolver
+            = ResourceResolverFactory.createDefaultInternalResourceResolver(new File(".").toURI());
+
+    private CustomFont loadFont(boolean useAdvanced) throws IOException {
+        return FontLoader.loadFont(new FontUris(new File("test/resources/fonts/ttf/DejaVuLGCSerif.ttf").toURI(),
+                null), "", true, EmbeddingMode.AUTO, EncodingMode.AUTO, true, useAdvanced, resolver,
+                false, false, false);
+    }
+
+    private static TextFragment createText(final String text) {
+        return new TextFragment() {
+            public CharacterIterator getIterator() {
+                return new StringCharacterIterator(text);
+            }
+
+            public int getBeginIndex() {
+                return 0;
+            }
+
+            public int getEndIndex() {
+                return text.length();
+            }
+
+            public String getScript() {
+                return "auto";
+            }
+
+            public String getLanguage() {
+                return "none";
+            }
+
+            public int getBidiLevel() {
+                return -1;
+            }
+
+            public char charAt(int index) {
+                return text.charAt(index);
+            }
+
+            public CharSequence subSequence(int startIndex, int endIndex) {
+                return text.subSequence(startIndex, endIndex);
+            }
+        };
+    }
+
+    private GlyphMapping map(Font font, int start, int end, char precedingChar, MinOptMax[] letterAdjust) {
+        return GlyphMapping.doGlyphMapping(createText(TEXT), start, end, font, MinOptMax.ZERO, letterAdjust,
+                precedingChar, ' ', false, 0, false, false, false);
+    }
+
+    @Test
+    public void testRepeatedWordsWithKerning() throws IOException {
+        testRepeatedWords(loadFont(false));
+    }
+
+    @Test
+    public void testRepeatedWordsWithGlyphMapping() throws IOException {
+        testRepeatedWords(loadFont(true));
+    }
+
+    private void testRepeatedWords(CustomFont typeface) {
+        Font font = new Font("F1", null, typeface, 12000);
+        MinOptMax[] letterAdjust = new MinOptMax[TEXT.length() + 1];
+        GlyphMapping first = map(font, 0, 6, (char) 0, letterAdjust);
+        GlyphMapping second = map(font, 12, 18, 'E', letterAdjust);
+        map(font, 7, 11, (char) 0, letterAdjust);
+        map(font, 19, 23, 'R', letterAdjust);
+        GlyphMappingCache cache = font.getGlyphMappingCache();
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.size());
+
+        //a font without any cached word gives the same results
+        Font uncached = new Font("F1", null, typeface, 12000);
+        MinOptMax[] expectedLetterAdjust = new MinOptMax[TEXT.length() + 1];
+        GlyphMapping expectedFirst = map(uncached, 0, 6, (char) 0, expectedLetterAdjust);
+        map(uncached, 7, 11, (char) 0, expectedLetterAdjust);
+        uncached = new Font("F1", null, typeface, 12000);
+        GlyphMapping expectedSecond = map(uncached, 12, 18, 'E', expectedLetterAdjust);
+        map(uncached, 19, 23, 'R', expectedLetterAdjust);
+        assertMappingEquals(expectedFirst, first);
+        assertMappingEquals(expectedSecond, second);
+        assertEquals(Arrays.asList(expectedLetterAdjust), Arrays.asList(letterAdjust));
+        if (first.gposAdjustments != null) {
+            assertNotSame(first.gposAdjustments, second.gposAdjustments);
+        }
+    }
+
+    private void assertMappingEquals(GlyphMapping expected, GlyphMapping actual) {
+        assertEquals(expected.startIndex, actual.startIndex);
+        assertEquals(expected.endIndex, actual.endIndex);
+        assertEquals(expected.areaIPD, actual.areaIPD);
+        assertEquals(expected.letterSpaceCount, actual.letterSpaceCount);
+        assertEquals(expected.mapping, actual.mapping);
+        if (expected.gposAdjustments == null) {
+            assertNull(actual.gposAdjustments);
+        } else {
+            assertEquals(expected.gposAdjustments.length, actual.gposAdjustments.length);
+            for (int i = 0; i < expected.gposAdjustments.length; i++) {
+                assertArrayEquals(expected.gposAdjustments[i], actual.gposAdjustments[i]);
+            }
+        }
+    }
+}
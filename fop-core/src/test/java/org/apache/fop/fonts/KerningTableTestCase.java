@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class KerningTableTestCase {
+
+    @Test
+    public void testPutAndGet() {
+        KerningTable table = new KerningTable();
+        assertTrue(table.isEmpty());
+        table.put('A', 'V', -80);
+        table.put('V', 'A', -70);
+        table.put('A', 'V', -85);
+        assertEquals(2, table.size());
+        assertEquals(-85, table.get('A', 'V'));
+        assertEquals(-70, table.get('V', 'A'));
+        assertEquals(0, table.get('A', 'A'));
+        assertEquals(0, table.get('V', 'V'));
+    }
+
+    @Test
+    public void testGrowth() {
+        KerningTable table = new KerningTable(0);
+        for (int first = 0; first < 300; first++) {
+            for (int second = 0x4E00; second < 0x4E00 + 30; second++) {
+                table.put(first, second, first - second);
+            }
+        }
+        assertEquals(300 * 30, table.size());
+        for (int first = 0; first < 300; first++) {
+            for (int second = 0x4E00; second < 0x4E00 + 30; second++) {
+                assertEquals(first - second, table.get(first, second));
+            }
+        }
+        assertEquals(0, table.get(300, 0x4E00));
+    }
+
+    @Test
+    public void testMap() {
+        Map<Integer, Map<Integer, Integer>> kerning = new HashMap<Integer, Map<Integer, Integer>>();
+        Map<Integer, Integer> pairs = new HashMap<Integer, Integer>();
+        pairs.put((int) 'o', -20);
+        pairs.put((int) 'e', -15);
+        kerning.put((int) 'T', pairs);
+        pairs = new HashMap<Integer, Integer>();
+        pairs.put((int) 'y', -30);
+        kerning.put(0x1F600, pairs);
+
+        KerningTable table = KerningTable.fromMap(kerning);
+        assertEquals(3, table.size());
+        assertEquals(-20, table.get('T', 'o'));
+        assertEquals(-30, table.get(0x1F600, 'y'));
+        Map<Integer, Map<Integer, Integer>> map = table.toMap();
+        assertEquals(kerning, map);
+        assertSame(map, table.toMap());
+
+        table.put('T', 'a', -18);
+        assertEquals(-18, table.toMap().get((int) 'T').get((int) 'a').intValue());
+    }
+}
@@ -22,12 +22,15 @@ package org.apache.fop.fonts.autodetect;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
+import java.net.URL;
 import java.nio.file.FileSystem;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.spi.FileSystemProvider;
+import java.util.List;
 
 import org.junit.Test;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -35,6 +38,8 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.apache.commons.io.FileUtils;
+
 import org.apache.fop.fonts.FontEventListener;
 
 public class FontFileFinderTestCase {
@@ -85,6 +90,33 @@ public class FontFileFinderTestCase {
         verify(mockListener, times(1)).fontDirectoryNotFound(any(), any());
     }
 
+    @Test
+    public void testParallelFind() throws IOException {
+        File root = File.createTempFile("fop", "fonts");
+        root.delete();
+        try {
+            for (int i = 0; i < 4; i++) {
+                File dir = new File(root, "dir" + i);
+                for (int j = 0; j < 5; j++) {
+                    File subdir = new File(dir, "sub" + j);
+                    subdir.mkdirs();
+                    FileUtils.touch(new File(subdir, "font" + j + ".ttf"));
+                    FileUtils.touch(new File(subdir, "font" + j + ".txt"));
+                }
+                FileUtils.touch(new File(dir, "font.otf"));
+            }
+            FileUtils.touch(new File(root, "font.pfb"));
+
+            FontFileFinder finder = new FontFileFinder(null);
+            List<URL> expected = finder.find(root);
+            assertEquals(25, expected.size());
+            finder.setParallel(true);
+            assertEquals(expected, finder.find(root));
+        } finally {
+            FileUtils.deleteDirectory(root);
+        }
+    }
+
     private File createMockDirectory(String path) throws IOException {
         Path mockRealPath = mock(Path.class);
         when(mockRealPath.toString()).thenReturn(path);
@@ -21,20 +21,27 @@ package org.apache.fop.fonts.truetype;
 
 import java.io.ByteArrayInputStream;
 import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
 import java.util.Arrays;
 
 import org.junit.Before;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import org.apache.commons.io.FileUtils;
+
 /**
  * A test class for org.apache.fop.truetype.FontFileReader
  */
 public class FontFileReaderTestCase {
+    private static final String MAPPED_FONT = "test/resources/fonts/ttf/DejaVuLGCSerif.ttf";
+
     private FontFileReader fontReader;
     private final InputStream in;
     private final byte[] byteArray;
@@ -300,4 +307,67 @@ public class FontFileReaderTestCase {
         byte[] retrievedBytes = fontReader.getBytes(0, 256);
         assertTrue(Arrays.equals(byteArray, retrievedBytes));
     }
+
+    /**
+     * Test reading a mapped file, and writing to it without changing the file
+     * @throws IOException exception
+     */
+    @Test
+    public void testMappedFile() throws IOException {
+        File file = new File(MAPPED_FONT);
+        byte[] content = FileUtils.readFileToByteArray(file);
+        FontFileReader mappedReader = new FontFileReader(file);
+        assertTrue(mappedReader.isMapped());
+        assertEquals(content.length, mappedReader.getFileSize());
+        assertTrue(Arrays.equals(content, mappedReader.getAllBytes()));
+        mappedReader.seekSet(4);
+        assertEquals(((content[4] & 0xff) << 8) | (content[5] & 0xff), mappedReader.readTTFUShort());
+
+        mappedReader.writeTTFUShort(0x20, 0xabcd);
+        assertEquals(0xabcd, mappedReader.readTTFUShort(0x20));
+        byte[] bytes = mappedReader.getBytes(0x1f, 4);
+        assertTrue(Arrays.equals(new byte[] {content[0x1f], (byte) 0xab, (byte) 0xcd, content[0x22]}, bytes));
+        assertTrue(Arrays.equals(content, FileUtils.readFileToByteArray(file)));
+    }
+
+    /**
+     * Test that a local file is only mapped when mapping is enabled, and that the stream is read
+     * otherwise
+     * @throws IOException exception
+     */
+    @Test
+    public void testMappingIsOptIn() throws IOException {
+        File file = new File(MAPPED_FONT);
+        byte[] content = FileUtils.readFileToByteArray(file);
+        FontFileReader reader = new FontFileReader(new ByteArrayInputStream(byteArray), file.toURI());
+        assertFalse(reader.isMapped());
+        assertTrue(Arrays.equals(byteArray, reader.getAllBytes()));
+
+        System.setProperty(FontFileReader.MAP_FONT_FILES, "true");
+        try {
+            reader = new FontFileReader(new ByteArrayInputStream(byteArray), file.toURI());
+            assertTrue(reader.isMapped());
+            assertTrue(Arrays.equals(content, reader.getAllBytes()));
+        } finally {
+            System.clearProperty(FontFileReader.MAP_FONT_FILES);
+        }
+    }
+
+    /**
+     * Test that a stream from a URI that isn't a local file is read in
+     * @throws IOException exception
+     */
+    @Test
+    public void testStreamFromRemoteURI() throws IOException {
+        System.setProperty(FontFileReader.MAP_FONT_FILES, "true");
+        try {
+            FontFileReader reader = new FontFileReader(new ByteArrayInputStream(byteArray),
+                    URI.create("http://localhost/font.ttf"));
+            assertFalse(reader.isMapped());
+            assertTrue(Arrays.equals(byteArray, reader.getBytes(0, 256)));
+            assertFalse(fontReader.isMapped());
+        } finally {
+            System.clearProperty(FontFileReader.MAP_FONT_FILES);
+        }
+    }
 }
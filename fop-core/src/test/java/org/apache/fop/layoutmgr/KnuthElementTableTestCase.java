@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KnuthElementTableTestCase {
+
+    private List<ListElement> createElements() {
+        List<ListElement> elements = new ArrayList<ListElement>();
+        elements.add(new KnuthGlue(5, 2, 1, null, false));
+        elements.add(new KnuthBox(100, null, false));
+        elements.add(new KnuthPenalty(3, 50, true, null, false));
+        elements.add(new KnuthGlue(10, 4, 2, null, false));
+        elements.add(new KnuthPenalty(0, -KnuthElement.INFINITE, false, null, false));
+        elements.add(new KnuthBox(200, null, false));
+        return elements;
+    }
+
+    @Test
+    public void testColumns() {
+        List<ListElement> elements = createElements();
+        KnuthElementTable table = KnuthElementTable.lower(elements);
+        assertEquals(elements.size(), table.size());
+        for (int i = 0; i < elements.size(); i++) {
+            KnuthElement element = (KnuthElement) elements.get(i);
+            assertEquals(element.isBox(), table.isBox(i));
+            assertEquals(element.isGlue(), table.isGlue(i));
+            assertEquals(element.isPenalty(), table.isPenalty(i));
+            assertEquals(element.isForcedBreak(), table.isForcedBreak(i));
+            assertEquals(element.getWidth(), table.getWidth(i));
+            assertEquals(element.getStretch(), table.getStretch(i));
+            assertEquals(element.getShrink(), table.getShrink(i));
+            assertEquals(element.getPenalty(), table.getPenalty(i));
+        }
+        assertTrue(table.isPenaltyFlagged(2));
+        assertFalse(table.isPenaltyFlagged(4));
+        assertFalse(table.isPenaltyFlagged(3));
+        assertEquals(KnuthElementTable.GLUE, table.getType(0));
+    }
+
+    @Test
+    public void testNextBoxIndex() {
+        KnuthElementTable table = KnuthElementTable.lower(createElements());
+        assertEquals(1, table.nextBoxIndex(0));
+        assertEquals(1, table.nextBoxIndex(1));
+        assertEquals(5, table.nextBoxIndex(2));
+        //no box left: the size of the table is returned
+        KnuthElementTable truncated = KnuthElementTable.lower(createElements().subList(0, 4));
+        assertEquals(4, truncated.nextBoxIndex(2));
+    }
+
+    @Test
+    public void testOtherElements() {
+        List<ListElement> elements = createElements();
+        elements.add(new BreakElement(new Position(null), 0, LayoutContext.newInstance()));
+        KnuthElementTable table = KnuthElementTable.lower(elements);
+        assertEquals(KnuthElementTable.OTHER, table.getType(6));
+        assertFalse(table.isBox(6));
+        assertFalse(table.isPenalty(6));
+    }
+}
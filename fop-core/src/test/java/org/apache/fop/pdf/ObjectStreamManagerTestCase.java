@@ -21,26 +21,31 @@ package org.apache.fop.pdf;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.List;
 
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
-import org.apache.fop.pdf.xref.CompressedObjectReference;
+import org.apache.fop.pdf.xref.CrossReferenceIndex;
 
 public class ObjectStreamManagerTestCase {
 
-    private List<CompressedObjectReference> compressedObjectReferences;
+    private static final String OBJECT_CONTENT = "<< /Foo true >>\n";
+
+    private CrossReferenceIndex objectReferences;
 
     private MockPdfDocument pdfDocument;
 
     @Test
-    public void add() {
+    public void add() throws IOException {
         final int expectedCapacity = 100;
         final int numCompressedObjects = expectedCapacity * 2 + 1;
         createCompressObjectReferences(numCompressedObjects);
-        assertEquals(numCompressedObjects, compressedObjectReferences.size());
+        for (int i = 0; i < numCompressedObjects; i++) {
+            assertTrue(objectReferences.isCompressed(i));
+            assertEquals(i % expectedCapacity, objectReferences.getObjectStreamIndex(i));
+        }
         int objectStreamNumber1 = assertSameObjectStream(0, expectedCapacity);
         int objectStreamNumber2 = assertSameObjectStream(expectedCapacity, expectedCapacity * 2);
         int objectStreamNumber3 = assertSameObjectStream(expectedCapacity * 2, numCompressedObjects);
@@ -48,13 +53,47 @@ public class ObjectStreamManagerTestCase {
         assertEquals(objectStreamNumber3, pdfDocument.previous.getObjectNumber().getNumber());
     }
 
-    private void createCompressObjectReferences(int numObjects) {
+    @Test
+    public void addWithMaxSize() throws IOException {
+        pdfDocument = new MockPdfDocument();
+        objectReferences = new CrossReferenceIndex();
+        ObjectStreamManager sut = new ObjectStreamManager(pdfDocument, objectReferences, 100,
+                3 * OBJECT_CONTENT.length());
+        addCompressedObjects(sut, 7);
+        int objectStreamNumber1 = assertSameObjectStream(0, 3);
+        int objectStreamNumber2 = assertSameObjectStream(3, 6);
+        int objectStreamNumber3 = assertSameObjectStream(6, 7);
+        assertDifferent(objectStreamNumber1, objectStreamNumber2, objectStreamNumber3);
+    }
+
+    @Test
+    public void completedStreamsAreWrittenBeforeTrailer() throws IOException {
         pdfDocument = new MockPdfDocument();
-        ObjectStreamManager sut = new ObjectStreamManager(pdfDocument);
+        objectReferences = new CrossReferenceIndex();
+        ObjectStreamManager sut = new ObjectStreamManager(pdfDocument, objectReferences, 2, 0);
+        addCompressedObjects(sut, 3);
+        ObjectStream full = (ObjectStream) pdfDocument.previous.get("Extends");
+        assertTrue(pdfDocument.objects.contains(full));
+        assertFalse(pdfDocument.trailerObjects.contains(full));
+        assertTrue(pdfDocument.trailerObjects.contains(pdfDocument.previous));
+        sut.completeObjectStream();
+        assertTrue(pdfDocument.objects.contains(pdfDocument.previous));
+        assertFalse(pdfDocument.trailerObjects.contains(pdfDocument.previous));
+        addCompressedObjects(sut, 1);
+        assertEquals(pdfDocument.previous.getObjectNumber().getNumber(), objectReferences.getObjectStreamNumber(0));
+    }
+
+    private void createCompressObjectReferences(int numObjects) throws IOException {
+        pdfDocument = new MockPdfDocument();
+        objectReferences = new CrossReferenceIndex();
+        ObjectStreamManager sut = new ObjectStreamManager(pdfDocument, objectReferences);
+        addCompressedObjects(sut, numObjects);
+    }
+
+    private void addCompressedObjects(ObjectStreamManager sut, int numObjects) throws IOException {
         for (int obNum = 1; obNum <= numObjects; obNum++) {
             sut.add(createCompressedObject(obNum));
         }
-        compressedObjectReferences = sut.getCompressedObjectReferences();
     }
 
     private static class MockPdfDocument extends PDFDocument {
@@ -85,8 +124,14 @@ public class ObjectStreamManagerTestCase {
                 return new PDFObjectNumber(objectNumber);
             }
 
+            public boolean hasObjectNumber() {
+                return true;
+            }
+
             public int output(OutputStream outputStream) throws IOException {
-                throw new UnsupportedOperationException();
+                byte[] content = PDFDocument.encode(OBJECT_CONTENT);
+                outputStream.write(content);
+                return content.length;
             }
         };
     }
@@ -100,7 +145,7 @@ public class ObjectStreamManagerTestCase {
     }
 
     private int getObjectStreamNumber(int index) {
-        return compressedObjectReferences.get(index).getObjectStreamNumber().getNumber();
+        return objectReferences.getObjectStreamNumber(index);
     }
 
     private void assertDifferent(int objectStreamNumber1, int objectStreamNumber2,
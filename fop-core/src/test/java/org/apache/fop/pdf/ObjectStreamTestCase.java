@@ -76,7 +76,7 @@ public class ObjectStreamTestCase {
         assertEquals(expected, actual);
     }
 
-    private void populateObjectStream() {
+    private void populateObjectStream() throws IOException {
         for (MockCompressedObject obj : compressedObjects) {
             pdfDocument.assignObjectNumber(obj);
             objectStream.addObject(obj);
@@ -19,12 +19,18 @@
 
 package org.apache.fop.pdf;
 
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 import org.junit.Assert;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
 /**
@@ -67,4 +73,96 @@ public class PDFDocumentTestCase {
         PDFImageXObject xObject = new PDFDocument("").addImage(null, image);
         Assert.assertNotNull(xObject);
     }
+
+    @Test
+    public void testIdenticalImagesAreDeduplicated() {
+        PDFDocument doc = new PDFDocument("");
+        byte[] data = {1, 2, 3, 4, 5, 6};
+        PDFImageXObject first = doc.addImage(null, new BitmapImage("a.png", 2, 1, data, null));
+        PDFImageXObject second = doc.addImage(null, new BitmapImage("data:a", 2, 1, data.clone(), null));
+        PDFImageXObject third = doc.addImage(null, new BitmapImage("b.png", 1, 2, data, null));
+        assertSame(first, second);
+        assertNotSame(first, third);
+        assertSame(first, doc.getXObject("data:a"));
+        assertEquals("Im2", third.getName().getName());
+        assertEquals(1, doc.getDeduplicatedObjectCount());
+    }
+
+    @Test
+    public void testImagesWithSoftMasksAreDeduplicated() {
+        PDFDocument doc = new PDFDocument("");
+        byte[] data = {1, 2, 3, 4, 5, 6};
+        byte[] alpha = {7, 8};
+        PDFImageXObject first = doc.addImage(null, new BitmapImage("a.png", 2, 1, data,
+                doc.addImage(null, new BitmapImage("Mask:a.png", 2, 1, alpha, null)).makeReference()));
+        PDFImageXObject second = doc.addImage(null, new BitmapImage("b.png", 2, 1, data.clone(),
+                doc.addImage(null, new BitmapImage("Mask:b.png", 2, 1, alpha.clone(), null)).makeReference()));
+        PDFImageXObject third = doc.addImage(null, new BitmapImage("c.png", 2, 1, data,
+                doc.addImage(null, new BitmapImage("Mask:c.png", 2, 1, new byte[] {9, 9}, null)).makeReference()));
+        assertSame(first, second);
+        assertNotSame(first, third);
+        assertEquals(2, doc.getDeduplicatedObjectCount());
+        assertEquals("Im4", third.getName().getName());
+    }
+
+    @Test
+    public void testIdenticalICCProfilesAreDeduplicated() {
+        PDFDocument doc = new PDFDocument("");
+        ICC_Profile profile = ICC_Profile.getInstance(ColorSpace.CS_sRGB);
+        ICC_Profile copy = ICC_Profile.getInstance(profile.getData());
+        PDFDeviceColorSpace rgb = new PDFDeviceColorSpace(PDFDeviceColorSpace.DEVICE_RGB);
+        PDFICCStream first = doc.getFactory().makePDFICCStream(profile, null);
+        assertSame(first, doc.getFactory().makePDFICCStream(copy, null));
+        assertNotSame(first, doc.getFactory().makePDFICCStream(copy, rgb));
+        assertEquals(1, doc.getDeduplicatedObjectCount());
+    }
+
+    @Test
+    public void testEmbeddedFileContentDigest() throws IOException {
+        PDFEmbeddedFile first = createEmbeddedFile("application/pdf", "2024-01-01");
+        assertEquals(first.getContentDigest(),
+                createEmbeddedFile("application/pdf", "2024-01-01").getContentDigest());
+        assertNotEquals(first.getContentDigest(),
+                createEmbeddedFile("text/plain", "2024-01-01").getContentDigest());
+        assertNotEquals(first.getContentDigest(),
+                createEmbeddedFile("application/pdf", "2024-02-01").getContentDigest());
+    }
+
+    private PDFEmbeddedFile createEmbeddedFile(String subtype, String date) throws IOException {
+        PDFEmbeddedFile file = new PDFEmbeddedFile();
+        file.put("Subtype", new PDFName(subtype));
+        PDFDictionary params = new PDFDictionary();
+        params.put("ModDate", date);
+        file.put("Params", params);
+        file.getBufferOutputStream().write(new byte[] {1, 2, 3});
+        return file;
+    }
+
+    @Test
+    public void testOutputStatistics() throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.getResources().addFont(
+                doc.getFactory().makeFont("F1", "Helvetica", "WinAnsiEncoding", null, null));
+        doc.addImage(null, new BitmapImage("a.png", 2, 1, new byte[] {1, 2, 3, 4, 5, 6}, null));
+        PDFStream contents = doc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append("0 0 m 100 100 l S\n");
+        }
+        contents.add(sb.toString());
+        doc.registerObject(contents);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.outputHeader(out);
+        doc.outputTrailer(out);
+
+        PDFOutputStatistics statistics = doc.getOutputStatistics();
+        assertTrue(statistics.getBytes(PDFOutputStatistics.Category.CONTENT) > 0);
+        assertTrue(statistics.getBytes(PDFOutputStatistics.Category.FONTS) > 0);
+        assertTrue(statistics.getBytes(PDFOutputStatistics.Category.IMAGES) > 0);
+        assertTrue(statistics.getBytes(PDFOutputStatistics.Category.OTHER) > 0);
+        assertEquals(0, statistics.getBytes(PDFOutputStatistics.Category.STRUCTURE));
+        assertTrue(statistics.getUnencodedStreamBytes() >= sb.length() + 6);
+        assertTrue(statistics.getEncodedStreamBytes() < statistics.getUnencodedStreamBytes());
+        assertTrue(statistics.getWritingTime() > 0);
+    }
 }
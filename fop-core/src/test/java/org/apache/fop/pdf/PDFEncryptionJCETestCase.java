@@ -21,6 +21,7 @@ package org.apache.fop.pdf;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidAlgorithmParameterException;
@@ -454,6 +455,50 @@ public class PDFEncryptionJCETestCase {
         runEncryptionTests();
     }
 
+    @Test
+    public void testCipherReuse() throws IOException {
+        test = new EncryptionTest();
+        encryptionObject = createEncryptionObject(test.getEncryptionParameters());
+        byte[] expected1 = encrypt(test.getData(), 1);
+        byte[] expected2 = encrypt(test.getData(), 2);
+        assertArrayEquals(expected1, encrypt(test.getData(), 1));
+        assertTrue(!Arrays.equals(expected1, expected2));
+
+        // streams being encoded at the same time must not share a cipher
+        ByteArrayOutputStream out1 = new ByteArrayOutputStream();
+        ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+        OutputStream filtered1 = createFilterList(1).applyFilters(out1);
+        OutputStream filtered2 = createFilterList(2).applyFilters(out2);
+        for (byte b : test.getData()) {
+            filtered1.write(b);
+            filtered2.write(b);
+        }
+        filtered1.close();
+        filtered2.close();
+        assertArrayEquals(expected1, out1.toByteArray());
+        assertArrayEquals(expected2, out2.toByteArray());
+
+        ByteArrayOutputStream out3 = new ByteArrayOutputStream();
+        OutputStream filtered3 = createFilterList(2).applyFilters(out3);
+        filtered3.write(test.getData());
+        filtered3.close();
+        assertArrayEquals(expected2, out3.toByteArray());
+    }
+
+    private byte[] encrypt(byte[] data, int objectNumber) {
+        PDFText text = new PDFText();
+        text.setObjectNumber(objectNumber);
+        return encryptionObject.encrypt(data, text);
+    }
+
+    private PDFFilterList createFilterList(int objectNumber) {
+        PDFStream stream = new PDFStream();
+        stream.setDocument(encryptionObject.getDocumentSafely());
+        stream.setObjectNumber(objectNumber);
+        encryptionObject.applyFilter(stream);
+        return stream.getFilterList();
+    }
+
     @Test
     public void testAES256() throws UnsupportedEncodingException, NoSuchAlgorithmException,
             NoSuchPaddingException, InvalidKeyException, InvalidAlgorithmParameterException,
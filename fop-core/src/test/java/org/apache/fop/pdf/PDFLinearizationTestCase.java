@@ -58,7 +58,30 @@ public class PDFLinearizationTestCase {
 
     @Test
     public void testPDF() throws IOException {
+        checkPDF(createPDF(new PDFDocument(""), null), 5, 6);
+    }
+
+    @Test
+    public void testPDFSpilledToTempFile() throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        PDFLinearization linearization = new PDFLinearization(doc);
+        linearization.setSpillThreshold(16);
+        checkPDF(createPDF(doc, linearization), 5, 6);
+    }
+
+    @Test
+    public void testOutputStatistics() throws IOException {
         PDFDocument doc = new PDFDocument("");
+        byte[] pdf = createPDF(doc, null);
+        PDFOutputStatistics statistics = doc.getOutputStatistics();
+        Assert.assertTrue(statistics.getBytes(PDFOutputStatistics.Category.CONTENT) > 0);
+        Assert.assertTrue(statistics.getBytes(PDFOutputStatistics.Category.OTHER) > 0);
+        Assert.assertTrue(statistics.getBytes(PDFOutputStatistics.Category.CONTENT)
+                + statistics.getBytes(PDFOutputStatistics.Category.OTHER) < pdf.length);
+        Assert.assertTrue(statistics.getWritingTime() > 0);
+    }
+
+    private byte[] createPDF(PDFDocument doc, PDFLinearization linearization) throws IOException {
         doc.setLinearizationEnabled(true);
         PDFResources resources = new PDFResources(doc);
         PDFResourceContext context = new PDFResourceContext(resources);
@@ -72,9 +95,13 @@ public class PDFLinearizationTestCase {
             doc.registerObject(gen.getStream());
             page.setContents(new PDFReference(gen.getStream()));
         }
-        gen.flushPDFDoc();
-        byte[] data = out.toByteArray();
-        checkPDF(data, 5, 6);
+        if (linearization == null) {
+            gen.flushPDFDoc();
+        } else {
+            linearization.outputPages(out);
+            doc.output(out);
+        }
+        return out.toByteArray();
     }
 
     @Test
@@ -22,6 +22,7 @@ package org.apache.fop.pdf;
 import org.junit.Before;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.spy;
 
@@ -90,6 +91,30 @@ public class PDFParentTreeTestCase {
         }
     }
 
+    /**
+     * Ensures that the complete kids are queued for output and replaced with references
+     * @throws Exception
+     */
+    @Test
+    public void testFlushKids() throws Exception {
+        assertEquals(getArrayNumber(120), 3);
+        PDFDocument pdfDocument = parentTree.getDocument();
+        PDFObject firstKid = (PDFObject) parentTree.getKids().get(0);
+        PDFObject lastKid = (PDFObject) parentTree.getKids().get(2);
+        parentTree.flushKids(120);
+        assertTrue(parentTree.getKids().get(0) instanceof PDFReference);
+        assertTrue(parentTree.getKids().get(1) instanceof PDFReference);
+        assertEquals(lastKid, parentTree.getKids().get(2));
+        assertEquals(firstKid.getObjectNumber(), ((PDFReference) parentTree.getKids().get(0)).getObjectNumber());
+        assertTrue(pdfDocument.objects.contains(firstKid));
+        assertFalse(pdfDocument.trailerObjects.contains(firstKid));
+        assertTrue(pdfDocument.trailerObjects.contains(lastKid));
+        parentTree.addToNums(149, spy(PDFStructElem.class));
+        parentTree.flushKids(150);
+        assertTrue(parentTree.getKids().get(2) instanceof PDFReference);
+        assertTrue(pdfDocument.objects.contains(lastKid));
+    }
+
     /**
      * Gets the number of arrays created for a given number of elements
      * @param elementNumber The number of elements to be added to the nums array
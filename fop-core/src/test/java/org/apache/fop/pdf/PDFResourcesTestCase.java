@@ -65,6 +65,26 @@ public class PDFResourcesTestCase {
         assertTrue(outputString.contains(expectedColorspace));
     }
 
+    @Test
+    public void testOutputAfterContextReleased() throws IOException {
+        PDFDocument pdfDoc = new PDFDocument(null);
+        PDFResources res = new PDFResources(pdfDoc);
+        res.addColorSpace(this.createColorSpace());
+        PDFResourceContext context = new PDFResourceContext(res);
+
+        context.addPattern(this.createPDFPattern(res, pdfDoc));
+        context.addShading(this.createPDFShading(res, pdfDoc));
+        res.releaseContext(context);
+        assertTrue(res.contexts.isEmpty());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        res.output(baos);
+
+        String outputString = baos.toString();
+        assertTrue(outputString.contains("/Shading << /Sh2 4 0 R >>"));
+        assertTrue(outputString.contains("/Pattern << /Pa1 2 0 R >>\n"));
+    }
+
     /**
      * Test PDF resources output with color space, pattern and shading,
      * if the PDF resource object has a parent resource object.
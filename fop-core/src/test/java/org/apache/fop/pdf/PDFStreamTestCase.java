@@ -27,7 +27,9 @@ import org.junit.Test;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class PDFStreamTestCase {
 
@@ -123,6 +125,33 @@ public class PDFStreamTestCase {
         return stream.toByteArray();
     }
 
+    @Test
+    public void testAddNumber() throws IOException {
+        PDFFilterList filters = stream.getFilterList();
+        filters.addFilter("null");
+        stream.addNumber(0.01f);
+        stream.add(' ');
+        stream.addNumber(-12.5);
+        stream.add(' ');
+        stream.addNumber(1.0 / 3, 3);
+        stream.add(" re f\n");
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        stream.outputRawStreamData(actual);
+        assertEquals(PDFNumber.doubleOut(0.01f) + " -12.5 0.333 re f\n", actual.toString("US-ASCII"));
+    }
+
+    @Test
+    public void testAddErrorIsThrownOnOutput() throws IOException {
+        stream.getBufferWriter().close();
+        stream.add("0 0 m");
+        try {
+            stream.outputRawStreamData(new ByteArrayOutputStream());
+            fail("The error adding to the stream must be reported");
+        } catch (IOException e) {
+            assertNotNull(e.getCause());
+        }
+    }
+
     @Test
     public void testHash() throws IOException {
         assertFalse(getStreamHash(65025).equals(getStreamHash(127076)));
@@ -21,7 +21,13 @@ package org.apache.fop.pdf;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
@@ -35,6 +41,16 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.xml.sax.SAXException;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNumber;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.apps.Fop;
 import org.apache.fop.apps.FopFactory;
@@ -80,9 +96,16 @@ public class PDFStructureTreeTestCase {
 
     private ByteArrayOutputStream foToOutput(String fo)
             throws SAXException, TransformerException {
+        return foToOutput(fo, false, false);
+    }
+
+    private ByteArrayOutputStream foToOutput(String fo, boolean flushStructureTree, boolean useObjectStreams)
+            throws SAXException, TransformerException {
         FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
         FOUserAgent userAgent = fopFactory.newFOUserAgent();
         userAgent.setAccessibility(true);
+        userAgent.getRendererOptions().put("flush-structure-tree", Boolean.toString(flushStructureTree));
+        userAgent.getRendererOptions().put("use-object-streams", Boolean.toString(useObjectStreams));
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
         Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, userAgent, bos);
         Transformer transformer = TransformerFactory.newInstance().newTransformer();
@@ -118,4 +141,164 @@ public class PDFStructureTreeTestCase {
         Assert.assertTrue(pdf.contains("/S /Note"));
         Assert.assertTrue(pdf.contains("/S /Reference"));
     }
+
+    @Test
+    public void testFlushStructureTree() throws Exception {
+        StringBuilder fo = new StringBuilder("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">\n"
+                + "  <fo:layout-master-set>\n"
+                + "    <fo:simple-page-master master-name=\"simple\" page-height=\"27.9cm\" page-width=\"21.6cm\">\n"
+                + "      <fo:region-body margin-top=\"2cm\"/>\n"
+                + "      <fo:region-before extent=\"2cm\"/>\n"
+                + "    </fo:simple-page-master>\n"
+                + "  </fo:layout-master-set>\n");
+        for (int i = 0; i < 60; i++) {
+            fo.append("  <fo:page-sequence master-reference=\"simple\">\n"
+                    + "    <fo:static-content flow-name=\"xsl-region-before\">\n"
+                    + "      <fo:block>Header ").append(i).append("</fo:block>\n"
+                    + "    </fo:static-content>\n"
+                    + "    <fo:flow flow-name=\"xsl-region-body\">\n"
+                    + "      <fo:block>Sequence ").append(i).append("</fo:block>\n"
+                    + "      <fo:block/>\n"
+                    + "      <fo:block>Some <fo:inline font-weight=\"bold\">inline</fo:inline> text</fo:block>\n"
+                    + "      <fo:block break-before=\"page\">Second page</fo:block>\n"
+                    + "    </fo:flow>\n"
+                    + "  </fo:page-sequence>\n");
+        }
+        fo.append("</fo:root>\n");
+        byte[] expected = foToOutput(fo.toString(), false, false).toByteArray();
+        byte[] pdf = foToOutput(fo.toString(), true, false).toByteArray();
+        assertReferencedObjectsWritten(expected);
+        assertReferencedObjectsWritten(pdf);
+        int expectedStructElems = checkStructureTree(expected);
+        Assert.assertEquals(expectedStructElems, checkStructureTree(pdf));
+        String expectedText = new String(expected, StandardCharsets.ISO_8859_1);
+        String text = new String(pdf, StandardCharsets.ISO_8859_1);
+        Assert.assertTrue(expectedText.indexOf("/S /P\n") > expectedText.lastIndexOf("/Type /Page\n"));
+        Assert.assertTrue(text.indexOf("/S /P\n") < text.lastIndexOf("/Type /Page\n"));
+
+        byte[] compressed = foToOutput(fo.toString(), true, true).toByteArray();
+        Assert.assertEquals(expectedStructElems, checkStructureTree(compressed));
+    }
+
+    /**
+     * Checks that every object referenced in a PDF with a cross-reference table has an entry in
+     * the table, that points to the definition of the object.
+     */
+    private static void assertReferencedObjectsWritten(byte[] pdf) {
+        String text = new String(pdf, StandardCharsets.ISO_8859_1);
+        Matcher xref = Pattern.compile("\nxref\n0 (\\d+)\n").matcher(text);
+        Assert.assertTrue(xref.find());
+        int size = Integer.parseInt(xref.group(1));
+        int entries = xref.end();
+        long[] offsets = new long[size];
+        for (int i = 0; i < size; i++) {
+            String entry = text.substring(entries + i * 20, entries + i * 20 + 20);
+            Assert.assertTrue("Invalid xref entry for object " + i + ": " + entry,
+                    entry.matches("\\d{10} \\d{5} [fn] \n"));
+            if (entry.charAt(17) == 'n') {
+                offsets[i] = Long.parseLong(entry.substring(0, 10));
+                Assert.assertTrue("Wrong offset for object " + i,
+                        text.startsWith(i + " 0 obj", (int) offsets[i]));
+            }
+        }
+        String objects = text.replaceAll("(?s)stream\n.*?endstream", "");
+        Matcher reference = Pattern.compile("[^\\d](\\d+) 0 R").matcher(objects);
+        while (reference.find()) {
+            int number = Integer.parseInt(reference.group(1));
+            Assert.assertTrue("Object " + number + " is referenced but not written",
+                    number < size && offsets[number] > 0);
+        }
+    }
+
+    /**
+     * Checks that the kids of the structure elements are complete and consistent with the marked
+     * content of the pages and the parent tree, and returns the number of structure elements.
+     */
+    private static int checkStructureTree(byte[] pdf) throws IOException {
+        try (PDDocument doc = Loader.loadPDF(pdf)) {
+            Map<COSDictionary, Map<Integer, COSDictionary>> owners
+                    = new IdentityHashMap<COSDictionary, Map<Integer, COSDictionary>>();
+            for (PDPage page : doc.getPages()) {
+                owners.put(page.getCOSObject(), new HashMap<Integer, COSDictionary>());
+            }
+            COSDictionary root = doc.getDocumentCatalog().getStructureTreeRoot().getCOSObject();
+            int structElems = checkKids(root, root.getDictionaryObject(COSName.K), null, owners);
+
+            Map<Integer, COSBase> parentTree = new HashMap<Integer, COSBase>();
+            collectNums((COSDictionary) root.getDictionaryObject(COSName.PARENT_TREE), parentTree);
+            Pattern mcidPattern = Pattern.compile("/MCID (\\d+)");
+            for (PDPage page : doc.getPages()) {
+                Map<Integer, COSDictionary> pageOwners = owners.get(page.getCOSObject());
+                Matcher mcid = mcidPattern.matcher(IOUtils.toString(page.getContents(), "ISO-8859-1"));
+                int mcids = 0;
+                COSArray parents = (COSArray) parentTree.get(page.getStructParents());
+                while (mcid.find()) {
+                    int number = Integer.parseInt(mcid.group(1));
+                    COSDictionary owner = pageOwners.get(number);
+                    Assert.assertNotNull("No structure element for MCID " + number, owner);
+                    Assert.assertSame(owner, parents.getObject(number));
+                    mcids++;
+                }
+                Assert.assertEquals(mcids, pageOwners.size());
+            }
+            return structElems;
+        }
+    }
+
+    private static int checkKids(COSDictionary parent, COSBase kids, COSDictionary page,
+            Map<COSDictionary, Map<Integer, COSDictionary>> owners) {
+        if (kids instanceof COSArray) {
+            COSArray array = (COSArray) kids;
+            int structElems = 0;
+            for (int i = 0; i < array.size(); i++) {
+                structElems += checkKid(parent, array.getObject(i), page, owners);
+            }
+            return structElems;
+        } else if (kids != null) {
+            return checkKid(parent, kids, page, owners);
+        }
+        return 0;
+    }
+
+    private static int checkKid(COSDictionary parent, COSBase kid, COSDictionary page,
+            Map<COSDictionary, Map<Integer, COSDictionary>> owners) {
+        if (kid instanceof COSNumber) {
+            addMCID(parent, page, ((COSNumber) kid).intValue(), owners);
+            return 0;
+        }
+        Assert.assertTrue("Invalid kid of a structure element: " + kid, kid instanceof COSDictionary);
+        COSDictionary dict = (COSDictionary) kid;
+        COSDictionary kidPage = dict.containsKey(COSName.PG) ? (COSDictionary) dict.getDictionaryObject(COSName.PG)
+                : page;
+        if (COSName.getPDFName("MCR").equals(dict.getCOSName(COSName.TYPE))) {
+            addMCID(parent, kidPage, dict.getInt(COSName.MCID), owners);
+            return 0;
+        } else if (COSName.getPDFName("OBJR").equals(dict.getCOSName(COSName.TYPE))) {
+            return 0;
+        }
+        Assert.assertNotNull(dict.getCOSName(COSName.S));
+        Assert.assertSame(parent, dict.getDictionaryObject(COSName.P));
+        return 1 + checkKids(dict, dict.getDictionaryObject(COSName.K), kidPage, owners);
+    }
+
+    private static void addMCID(COSDictionary structElem, COSDictionary page, int mcid,
+            Map<COSDictionary, Map<Integer, COSDictionary>> owners) {
+        Assert.assertNotNull("No page for MCID " + mcid, page);
+        Assert.assertNull("MCID " + mcid + " is used twice", owners.get(page).put(mcid, structElem));
+    }
+
+    private static void collectNums(COSDictionary node, Map<Integer, COSBase> nums) {
+        COSArray kids = (COSArray) node.getDictionaryObject(COSName.KIDS);
+        if (kids != null) {
+            for (int i = 0; i < kids.size(); i++) {
+                collectNums((COSDictionary) kids.getObject(i), nums);
+            }
+        }
+        COSArray array = (COSArray) node.getDictionaryObject(COSName.NUMS);
+        if (array != null) {
+            for (int i = 0; i < array.size(); i += 2) {
+                nums.put(((COSNumber) array.getObject(i)).intValue(), array.getObject(i + 1));
+            }
+        }
+    }
 }
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelStreamEncoderTestCase {
+
+    private static final int STREAM_COUNT = 50;
+
+    private static final Pattern STREAM = Pattern.compile("/Length (\\d+)( 0 R)?[^>]*>>\nstream\n");
+
+    private static String getContent(int index) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200 + index * 10; i++) {
+            sb.append(index).append(' ').append(i).append(" m ").append(i).append(" l S\n");
+        }
+        return sb.toString();
+    }
+
+    private byte[] createDocument(int threads) throws IOException {
+        PDFDocument doc = new PDFDocument("");
+        doc.setCompressionThreads(threads);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.outputHeader(out);
+        for (int i = 0; i < STREAM_COUNT; i++) {
+            PDFStream stream = new PDFStream();
+            stream.setData(PDFDocument.encode(getContent(i)));
+            doc.registerObject(stream);
+            if (i % 10 == 9) {
+                doc.output(out);
+            }
+        }
+        PDFTTFStream font = new PDFTTFStream(1000);
+        font.setData(PDFDocument.encode(getContent(STREAM_COUNT)), 1000);
+        doc.registerObject(font);
+        doc.outputTrailer(out);
+        return out.toByteArray();
+    }
+
+    private List<String> decodeStreams(byte[] pdf) throws DataFormatException {
+        String s = new String(pdf, StandardCharsets.ISO_8859_1);
+        List<String> streams = new ArrayList<String>();
+        Matcher matcher = STREAM.matcher(s);
+        while (matcher.find()) {
+            String length = matcher.group(1);
+            if (matcher.group(2) != null) {
+                Matcher lengthObject = Pattern.compile("\n" + length + " 0 obj\n(\\d+)\nendobj").matcher(s);
+                assertTrue(lengthObject.find());
+                length = lengthObject.group(1);
+            }
+            int size = Integer.parseInt(length);
+            assertTrue(s.startsWith("\nendstream", matcher.end() + size));
+            Inflater inflater = new Inflater();
+            inflater.setInput(pdf, matcher.end(), size);
+            byte[] buffer = new byte[65536];
+            int decoded = inflater.inflate(buffer);
+            assertTrue(inflater.finished());
+            inflater.end();
+            streams.add(new String(buffer, 0, decoded, StandardCharsets.ISO_8859_1));
+        }
+        return streams;
+    }
+
+    @Test
+    public void testStreamsEncodedInParallel() throws Exception {
+        byte[] pdf = createDocument(4);
+        List<String> streams = decodeStreams(pdf);
+        assertEquals(STREAM_COUNT + 1, streams.size());
+        for (int i = 0; i < STREAM_COUNT; i++) {
+            assertEquals(getContent(i), streams.get(i));
+        }
+        assertEquals(getContent(STREAM_COUNT).substring(0, 1000), streams.get(STREAM_COUNT));
+        //the lengths are known when the streams get written
+        assertFalse(new String(pdf, StandardCharsets.ISO_8859_1).matches("(?s).*/Length \\d+ 0 R.*"));
+    }
+
+    @Test
+    public void testSameContentAsSequentialEncoding() throws Exception {
+        assertEquals(decodeStreams(createDocument(0)), decodeStreams(createDocument(3)));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf.xref;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CrossReferenceIndexTestCase {
+
+    @Test
+    public void testSetOffsetGrowsAndFillsGaps() {
+        CrossReferenceIndex index = new CrossReferenceIndex(1);
+        index.setOffset(0, 15L);
+        index.setOffset(100, 0x1ffffffffL);
+        assertEquals(101, index.size());
+        assertEquals(15L, index.getOffset(0));
+        assertEquals(CrossReferenceIndex.NO_OFFSET, index.getOffset(50));
+        assertEquals(0x1ffffffffL, index.getOffset(100));
+        assertEquals(CrossReferenceIndex.NO_OFFSET, index.getOffset(101));
+        index.setOffset(50, 42L);
+        assertEquals(42L, index.getOffset(50));
+        assertEquals(101, index.size());
+    }
+
+    @Test
+    public void testValueOf() {
+        CrossReferenceIndex index = CrossReferenceIndex.valueOf(Arrays.asList(0L, null, 7L));
+        assertEquals(3, index.size());
+        assertEquals(0L, index.getOffset(0));
+        assertEquals(CrossReferenceIndex.NO_OFFSET, index.getOffset(1));
+        assertEquals(7L, index.getOffset(2));
+        index.add(9L);
+        assertEquals(9L, index.getOffset(3));
+    }
+
+    @Test
+    public void testSetCompressed() {
+        CrossReferenceIndex index = new CrossReferenceIndex(1);
+        index.setOffset(0, 15L);
+        assertFalse(index.isCompressed(0));
+        index.setCompressed(300, 1, 299);
+        assertEquals(301, index.size());
+        assertTrue(index.isCompressed(300));
+        assertEquals(1, index.getObjectStreamNumber(300));
+        assertEquals(299, index.getObjectStreamIndex(300));
+        assertFalse(index.isCompressed(0));
+        assertEquals(15L, index.getOffset(0));
+        assertFalse(index.isCompressed(150));
+        assertEquals(0, index.getObjectStreamNumber(150));
+        index.setOffset(1000, 20L);
+        assertTrue(index.isCompressed(300));
+        assertFalse(index.isCompressed(1000));
+        assertFalse(index.isCompressed(1001));
+    }
+}
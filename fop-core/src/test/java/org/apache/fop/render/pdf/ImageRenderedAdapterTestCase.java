@@ -37,6 +37,7 @@ import org.apache.xmlgraphics.image.loader.ImageInfo;
 import org.apache.xmlgraphics.image.loader.impl.ImageRendered;
 
 import org.apache.fop.pdf.PDFAMode;
+import org.apache.fop.pdf.PDFDeviceColorSpace;
 import org.apache.fop.pdf.PDFDictionary;
 import org.apache.fop.pdf.PDFDocument;
 import org.apache.fop.pdf.PDFFactory;
@@ -183,7 +184,8 @@ public class ImageRenderedAdapterTestCase {
         PDFICCStream iccStream = mock(PDFICCStream.class);
         ICC_Profile iccProfile = ICC_Profile.getInstance(ColorSpace.CS_sRGB);
         when(iccStream.getICCProfile()).thenReturn(iccProfile);
-        when(factory.makePDFICCStream()).thenReturn(iccStream);
+        when(factory.makePDFICCStream(any(ICC_Profile.class), nullable(PDFDeviceColorSpace.class)))
+                .thenReturn(iccStream);
         PDFICCBasedColorSpace iccbcs = new PDFICCBasedColorSpace(null, iccStream);
         when(factory.makeICCBasedColorSpace(null, null, iccStream)).thenReturn(iccbcs);
         when(doc.getFactory()).thenReturn(factory);